@@ -3,6 +3,8 @@ package com.ksoot.adapter.controller;
 import static com.ksoot.common.CommonConstants.DEFAULT_PAGE_SIZE;
 import static com.ksoot.common.util.rest.ApiConstants.*;
 import static com.ksoot.common.util.rest.ApiStatus.*;
+import static com.ksoot.common.util.rest.SparseFieldsets.PARAM_FIELDS;
+import static com.ksoot.common.util.rest.SparseFieldsets.PARAM_FIELDS_DESCRIPTION;
 
 import com.ksoot.common.jpa.RevisionRecord;
 import com.ksoot.common.util.pagination.PaginatedResource;
@@ -33,6 +35,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @RequestMapping("/v1/employees")
 @Tag(name = "Employee", description = "management APIs. Backed by PostgresDB")
@@ -93,7 +96,10 @@ public interface EmployeeApi extends Api {
         @ApiResponse(responseCode = "500", description = "Internal Server error")
       })
   @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-  ResponseEntity<List<EmployeeVM>> getAllEmployees();
+  ResponseEntity<List<EmployeeVM>> getAllEmployees(
+      @Parameter(description = PARAM_FIELDS_DESCRIPTION)
+          @RequestParam(name = PARAM_FIELDS, required = false)
+          final List<String> fields);
 
   @Operation(operationId = "update-employee", summary = "Updates an Employee")
   @ApiResponses(
@@ -10,6 +10,7 @@ import com.ksoot.common.jpa.RevisionRecord;
 import com.ksoot.common.util.GeneralMessageResolver;
 import com.ksoot.common.util.pagination.PaginatedResource;
 import com.ksoot.common.util.pagination.PaginatedResourceAssembler;
+import com.ksoot.common.util.rest.SparseFieldsets;
 import com.ksoot.common.util.rest.response.APIResponse;
 import com.ksoot.domain.mapper.SampleMappers;
 import com.ksoot.domain.model.Employee;
@@ -20,6 +21,7 @@ import com.ksoot.domain.service.EmployeeService;
 import com.ksoot.problem.core.Problems;
 import io.swagger.v3.oas.annotations.Parameter;
 import java.util.List;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
@@ -72,10 +74,18 @@ class EmployeeController implements EmployeeApi {
   }
 
   @Override
-  public ResponseEntity<List<EmployeeVM>> getAllEmployees() {
+  public ResponseEntity<List<EmployeeVM>> getAllEmployees(final List<String> fields) {
+    final Set<String> fieldset = SparseFieldsets.of(fields);
+    if (fieldset.isEmpty()) {
+      return ResponseEntity.ok(
+          this.employeeService.getAllEmployees().stream()
+              .map(SampleMappers.INSTANCE::toEmployeeVM)
+              .toList());
+    }
+    // Only requested columns are selected
     return ResponseEntity.ok(
-        this.employeeService.getAllEmployees().stream()
-            .map(SampleMappers.INSTANCE::toEmployeeVM)
+        this.employeeService.getAllEmployees(fieldset).stream()
+            .map(SampleMappers.INSTANCE::tupleToEmployeeVM)
             .toList());
   }
 
@@ -1,9 +1,13 @@
 package com.ksoot.adapter.controller;
 
+import static com.ksoot.common.CommonConstants.DEFAULT_PAGE_SIZE;
 import static com.ksoot.common.CommonConstants.HEADER_EXPAND;
 import static com.ksoot.common.util.rest.ApiConstants.*;
 import static com.ksoot.common.util.rest.ApiStatus.*;
+import static com.ksoot.common.util.rest.SparseFieldsets.PARAM_FIELDS;
+import static com.ksoot.common.util.rest.SparseFieldsets.PARAM_FIELDS_DESCRIPTION;
 
+import com.ksoot.common.util.pagination.PaginatedResource;
 import com.ksoot.common.util.rest.Api;
 import com.ksoot.common.util.rest.response.APIResponse;
 import com.ksoot.domain.model.dto.*;
@@ -15,8 +19,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.lang3.tuple.Pair;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -27,11 +37,15 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 @RequestMapping("/v1/location")
 @Tag(name = "Location", description = "management APIs. Backed by MongoDB")
 public interface LocationApi extends Api {
 
+  int MAX_BATCH_SIZE = 1000;
+
   // -------- States ----------
   @Operation(
       operationId = "state-exists-by-code",
@@ -82,7 +96,10 @@ public interface LocationApi extends Api {
         @ApiResponse(
             responseCode = SC_404,
             description = "Requested State not found",
-            content = @Content(examples = @ExampleObject(NOT_FOUND_EXAMPLE_RESPONSE)))
+            content = @Content(examples = @ExampleObject(NOT_FOUND_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = SC_304,
+            description = "Not modified since the version in <code>If-None-Match</code>")
       })
   @GetMapping(path = "/states/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
   ResponseEntity<StateVM> getStateById(
@@ -91,7 +108,8 @@ public interface LocationApi extends Api {
           final String id,
       @Parameter(description = "<code>cities</code> to include Cities. Not included by default")
           @RequestHeader(name = HEADER_EXPAND, required = false)
-          final String expand);
+          final String expand,
+      @Parameter(hidden = true) final WebRequest request);
 
   @Operation(
       operationId = "get-state-by-code",
@@ -103,7 +121,10 @@ public interface LocationApi extends Api {
         @ApiResponse(
             responseCode = SC_404,
             description = "Requested State not found",
-            content = @Content(examples = @ExampleObject(NOT_FOUND_EXAMPLE_RESPONSE)))
+            content = @Content(examples = @ExampleObject(NOT_FOUND_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = SC_304,
+            description = "Not modified since the version in <code>If-None-Match</code>")
       })
   @GetMapping(path = "/states/code/{code}", produces = MediaType.APPLICATION_JSON_VALUE)
   ResponseEntity<StateVM> getStateByCode(
@@ -112,7 +133,8 @@ public interface LocationApi extends Api {
           final String code,
       @Parameter(description = "<code>cities</code> to include Cities. Not included by default")
           @RequestHeader(name = HEADER_EXPAND, required = false)
-          final String expand);
+          final String expand,
+      @Parameter(hidden = true) final WebRequest request);
 
   @Operation(
       operationId = "get-all-states",
@@ -123,13 +145,58 @@ public interface LocationApi extends Api {
         @ApiResponse(
             responseCode = SC_200,
             description =
-                "States list returned successfully. Returns an empty list if no records found")
+                "States list returned successfully. Returns an empty list if no records found"),
+        @ApiResponse(
+            responseCode = SC_304,
+            description = "Not modified since the version in <code>If-None-Match</code>")
       })
   @GetMapping(path = "/states", produces = MediaType.APPLICATION_JSON_VALUE)
   ResponseEntity<List<StateVM>> getAllStates(
       @Parameter(description = "<code>cities</code> to include Cities. Not included by default")
           @RequestHeader(name = HEADER_EXPAND, required = false)
-          final String expand);
+          final String expand,
+      @Parameter(hidden = true) final WebRequest request);
+
+  @Operation(
+      operationId = "get-states-page",
+      summary = "Get States page, sorted by name case insensitively",
+      tags = {"State"})
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = SC_200,
+            description =
+                "States page returned successfully. Returns an empty page if no records found")
+      })
+  @GetMapping(path = "/states/page", produces = MediaType.APPLICATION_JSON_VALUE)
+  PaginatedResource<StateVM> getStatesPage(
+      @Parameter(description = PARAM_FIELDS_DESCRIPTION)
+          @RequestParam(name = PARAM_FIELDS, required = false)
+          final List<String> fields,
+      @ParameterObject @PageableDefault(size = DEFAULT_PAGE_SIZE) final Pageable pageRequest);
+
+  @Operation(
+      operationId = "suggest-states",
+      summary = "Suggest States with name or code starting with given text",
+      tags = {"State"})
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = SC_200,
+            description =
+                "State list items returned successfully, as code and name. Returns an empty list if no matches found")
+      })
+  @GetMapping(path = "/states/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+  ResponseEntity<List<Pair<String, String>>> suggestStates(
+      @Parameter(
+              description = "Text names or codes start with, case and accent insensitive",
+              required = true,
+              example = "har")
+          @RequestParam(name = "q")
+          final String q,
+      @Parameter(description = "Maximum number of suggestions, at most 50")
+          @RequestParam(name = "limit", defaultValue = "10")
+          final int limit);
 
   @Operation(
       operationId = "get-state-list-items",
@@ -140,10 +207,14 @@ public interface LocationApi extends Api {
         @ApiResponse(
             responseCode = SC_200,
             description =
-                "State list items returned successfully. Returns an empty list if no records found")
+                "State list items returned successfully. Returns an empty list if no records found"),
+        @ApiResponse(
+            responseCode = SC_304,
+            description = "Not modified since the version in <code>If-None-Match</code>")
       })
   @GetMapping(path = "/states/list-items", produces = MediaType.APPLICATION_JSON_VALUE)
-  ResponseEntity<List<Pair<String, String>>> getAllStateListItems();
+  ResponseEntity<List<Pair<String, String>>> getAllStateListItems(
+      @Parameter(hidden = true) final WebRequest request);
 
   @Operation(
       operationId = "update-state",
@@ -239,6 +310,39 @@ public interface LocationApi extends Api {
       @Parameter(description = "Create City request", required = true) @RequestBody @Valid
           final CityCreationRQ request);
 
+  @Operation(
+      operationId = "create-cities",
+      summary = "Creates many Cities of a State in one batch",
+      tags = {"City"})
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = SC_200,
+            description =
+                "Batch processed. Returns the result of each City, in requested order, with Id of each created City"),
+        @ApiResponse(
+            responseCode = SC_400,
+            description = "Bad request",
+            content = @Content(examples = @ExampleObject(BAD_REQUEST_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = SC_404,
+            description = "Requested State not found",
+            content = @Content(examples = @ExampleObject(NOT_FOUND_EXAMPLE_RESPONSE)))
+      })
+  @PostMapping(
+      path = "/states/{id}/cities:batch",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  ResponseEntity<List<CityBatchResultVM>> createCities(
+      @Parameter(description = "State Id", required = true, example = "6558c30160463a1fee00c7dc")
+          @PathVariable(name = "id")
+          final String stateId,
+      @Parameter(description = "Create City requests, at most 1000", required = true)
+          @RequestBody
+          @NotEmpty
+          @Size(max = MAX_BATCH_SIZE)
+          final List<@Valid CityCreationRQ> requests);
+
   @Operation(
       operationId = "get-city-by-id",
       summary = "Gets a city by Id",
@@ -249,7 +353,10 @@ public interface LocationApi extends Api {
         @ApiResponse(
             responseCode = SC_404,
             description = "Requested Fuel type not found",
-            content = @Content(examples = @ExampleObject(NOT_FOUND_EXAMPLE_RESPONSE)))
+            content = @Content(examples = @ExampleObject(NOT_FOUND_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = SC_304,
+            description = "Not modified since the version in <code>If-None-Match</code>")
       })
   @GetMapping(path = "/cities/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
   ResponseEntity<CityVM> getCityById(
@@ -264,7 +371,8 @@ public interface LocationApi extends Api {
                       + "<li>None is included by default</li>"
                       + "</ul>")
           @RequestHeader(name = HEADER_EXPAND, required = false)
-          final List<String> expand);
+          final List<String> expand,
+      @Parameter(hidden = true) final WebRequest request);
 
   @Operation(
       operationId = "get-city-by-code",
@@ -276,7 +384,10 @@ public interface LocationApi extends Api {
         @ApiResponse(
             responseCode = SC_404,
             description = "Requested City not found",
-            content = @Content(examples = @ExampleObject(NOT_FOUND_EXAMPLE_RESPONSE)))
+            content = @Content(examples = @ExampleObject(NOT_FOUND_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = SC_304,
+            description = "Not modified since the version in <code>If-None-Match</code>")
       })
   @GetMapping(path = "/cities/code/{code}", produces = MediaType.APPLICATION_JSON_VALUE)
   ResponseEntity<CityVM> getCityByCode(
@@ -291,7 +402,8 @@ public interface LocationApi extends Api {
                       + "<li>None is included by default</li>"
                       + "</ul>")
           @RequestHeader(name = HEADER_EXPAND, required = false)
-          final List<String> expand);
+          final List<String> expand,
+      @Parameter(hidden = true) final WebRequest request);
 
   @Operation(
       operationId = "get-all-cities-by-state-id",
@@ -302,7 +414,10 @@ public interface LocationApi extends Api {
         @ApiResponse(
             responseCode = SC_200,
             description =
-                "Cities list returned successfully. Returns an empty list if no records found")
+                "Cities list returned successfully. Returns an empty list if no records found"),
+        @ApiResponse(
+            responseCode = SC_304,
+            description = "Not modified since the version in <code>If-None-Match</code>")
       })
   @GetMapping(path = "/states/{id}/cities", produces = MediaType.APPLICATION_JSON_VALUE)
   ResponseEntity<List<CityVM>> getAllCitiesByStateId(
@@ -317,7 +432,49 @@ public interface LocationApi extends Api {
                       + "<li>None is included by default</li>"
                       + "</ul>")
           @RequestHeader(name = HEADER_EXPAND, required = false)
-          final List<String> expand);
+          final List<String> expand,
+      @Parameter(hidden = true) final WebRequest request);
+
+  @Operation(
+      operationId = "get-cities-page-by-state-id",
+      summary = "Get Cities page by State Id, sorted by name case insensitively",
+      tags = {"City"})
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = SC_200,
+            description =
+                "Cities page returned successfully. Returns an empty page if no records found")
+      })
+  @GetMapping(path = "/states/{id}/cities/page", produces = MediaType.APPLICATION_JSON_VALUE)
+  PaginatedResource<CityVM> getCitiesPageByStateId(
+      @Parameter(description = "State Id", required = true, example = "6558c30160463a1fee00c7dc")
+          @PathVariable(name = "id")
+          final String stateId,
+      @Parameter(description = PARAM_FIELDS_DESCRIPTION)
+          @RequestParam(name = PARAM_FIELDS, required = false)
+          final List<String> fields,
+      @ParameterObject @PageableDefault(size = DEFAULT_PAGE_SIZE) final Pageable pageRequest);
+
+  @Operation(
+      operationId = "get-city-count-by-state-id",
+      summary = "Get number of Cities by State Id",
+      tags = {"City"})
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = SC_200,
+            description = "Cities count returned successfully. Returns 0 if no records found"),
+        @ApiResponse(
+            responseCode = SC_304,
+            description = "Not modified since the version in <code>If-None-Match</code>")
+      })
+  @GetMapping(path = "/states/{id}/cities/count", produces = MediaType.APPLICATION_JSON_VALUE)
+  ResponseEntity<Integer> getCityCountByStateId(
+      @Parameter(description = "State Id", required = true, example = "6558c30160463a1fee00c7dc")
+          @PathVariable(name = "id")
+          final String stateId,
+      @Parameter(hidden = true) final WebRequest request);
 
   @Operation(
       operationId = "get-all-cities",
@@ -328,7 +485,10 @@ public interface LocationApi extends Api {
         @ApiResponse(
             responseCode = SC_200,
             description =
-                "Cities list returned successfully. Returns an empty list if no records found")
+                "Cities list returned successfully. Returns an empty list if no records found"),
+        @ApiResponse(
+            responseCode = SC_304,
+            description = "Not modified since the version in <code>If-None-Match</code>")
       })
   @GetMapping(path = "/cities", produces = MediaType.APPLICATION_JSON_VALUE)
   ResponseEntity<List<CityVM>> getAllCities(
@@ -340,7 +500,49 @@ public interface LocationApi extends Api {
                       + "<li>None is included by default</li>"
                       + "</ul>")
           @RequestHeader(name = HEADER_EXPAND, required = false)
-          final List<String> expand);
+          final List<String> expand,
+      @Parameter(hidden = true) final WebRequest request);
+
+  @Operation(
+      operationId = "get-cities-page",
+      summary = "Get Cities page, sorted by name case insensitively",
+      tags = {"City"})
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = SC_200,
+            description =
+                "Cities page returned successfully. Returns an empty page if no records found")
+      })
+  @GetMapping(path = "/cities/page", produces = MediaType.APPLICATION_JSON_VALUE)
+  PaginatedResource<CityVM> getCitiesPage(
+      @Parameter(description = PARAM_FIELDS_DESCRIPTION)
+          @RequestParam(name = PARAM_FIELDS, required = false)
+          final List<String> fields,
+      @ParameterObject @PageableDefault(size = DEFAULT_PAGE_SIZE) final Pageable pageRequest);
+
+  @Operation(
+      operationId = "suggest-cities",
+      summary = "Suggest Cities with name or code starting with given text",
+      tags = {"City"})
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = SC_200,
+            description =
+                "City list items returned successfully, as code and name. Returns an empty list if no matches found")
+      })
+  @GetMapping(path = "/cities/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+  ResponseEntity<List<Pair<String, String>>> suggestCities(
+      @Parameter(
+              description = "Text names or codes start with, case and accent insensitive",
+              required = true,
+              example = "sir")
+          @RequestParam(name = "q")
+          final String q,
+      @Parameter(description = "Maximum number of suggestions, at most 50")
+          @RequestParam(name = "limit", defaultValue = "10")
+          final int limit);
 
   @Operation(
       operationId = "get-city-list-items",
@@ -351,10 +553,39 @@ public interface LocationApi extends Api {
         @ApiResponse(
             responseCode = SC_200,
             description =
-                "City list items returned successfully. Returns an empty list if no records found")
+                "City list items returned successfully. Returns an empty list if no records found"),
+        @ApiResponse(
+            responseCode = SC_304,
+            description = "Not modified since the version in <code>If-None-Match</code>")
       })
   @GetMapping(path = "/cities/list-items", produces = MediaType.APPLICATION_JSON_VALUE)
-  ResponseEntity<List<Pair<String, String>>> getAllCitiesListItems();
+  ResponseEntity<List<Pair<String, String>>> getAllCitiesListItems(
+      @Parameter(hidden = true) final WebRequest request);
+
+  @Operation(
+      operationId = "update-cities",
+      summary = "Updates many Cities in one batch",
+      tags = {"City"})
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = SC_200,
+            description = "Batch processed. Returns the result of each City, in requested order"),
+        @ApiResponse(
+            responseCode = SC_400,
+            description = "Bad request",
+            content = @Content(examples = @ExampleObject(BAD_REQUEST_EXAMPLE_RESPONSE)))
+      })
+  @PatchMapping(
+      path = "/cities:batch",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  ResponseEntity<List<CityBatchResultVM>> updateCities(
+      @Parameter(description = "Update City requests by City Id, at most 1000", required = true)
+          @RequestBody
+          @NotEmpty
+          @Size(max = MAX_BATCH_SIZE)
+          final Map<String, @Valid CityUpdationRQ> requests);
 
   @Operation(
       operationId = "update-city",
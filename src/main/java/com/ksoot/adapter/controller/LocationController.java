@@ -5,6 +5,10 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 import com.ksoot.common.CommonErrorKeys;
 import com.ksoot.common.util.GeneralMessageResolver;
+import com.ksoot.common.util.pagination.PaginatedResource;
+import com.ksoot.common.util.pagination.PaginatedResourceAssembler;
+import com.ksoot.common.util.rest.ETags;
+import com.ksoot.common.util.rest.SparseFieldsets;
 import com.ksoot.common.util.rest.response.APIResponse;
 import com.ksoot.domain.mapper.SampleMappers;
 import com.ksoot.domain.model.City;
@@ -13,11 +17,17 @@ import com.ksoot.domain.model.dto.*;
 import com.ksoot.domain.service.LocationService;
 import com.ksoot.problem.core.Problems;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequiredArgsConstructor
@@ -35,36 +45,76 @@ class LocationController implements LocationApi {
   public ResponseEntity<APIResponse<?>> createState(final StateCreationRQ request) {
     final State state = this.locationService.createState(request);
     return ResponseEntity.created(
-            linkTo(methodOn(LocationController.class).getStateById(state.getId(), null))
+            linkTo(methodOn(LocationController.class).getStateById(state.getId(), null, null))
                 .withSelfRel()
                 .toUri())
         .body(APIResponse.newInstance().addSuccess(GeneralMessageResolver.RECORD_CREATED));
   }
 
   @Override
-  public ResponseEntity<StateVM> getStateById(final String id, final String expand) {
-    return ResponseEntity.ok(
-        SampleMappers.INSTANCE.toStateViewModel(this.locationService.getStateById(id), expand));
+  public ResponseEntity<StateVM> getStateById(
+      final String id, final String expand, final WebRequest request) {
+    if (Objects.equals(expand, "cities")) {
+      // Cities versioned by the catalog, so not modified is answered without reading the state.
+      // Otherwise cities joined in the same round trip, instead of resolving the lazy reference
+      return ETags.ok(
+          request,
+          ETags.of(id, expand, this.locationService.getCatalogVersion()),
+          () -> this.locationService.isCatalogedState(id),
+          () ->
+              SampleMappers.INSTANCE.toStateViewModel(
+                  this.locationService.getStateWithCitiesById(id), expand));
+    }
+    final State state = this.locationService.getStateById(id);
+    return ETags.ok(
+        request,
+        ETags.of(state.getId(), state.getVersion()),
+        () -> SampleMappers.INSTANCE.toStateViewModel(state, expand));
   }
 
   @Override
-  public ResponseEntity<StateVM> getStateByCode(final String code, final String expand) {
-    return ResponseEntity.ok(
-        SampleMappers.INSTANCE.toStateViewModel(this.locationService.getStateByCode(code), expand));
+  public ResponseEntity<StateVM> getStateByCode(
+      final String code, final String expand, final WebRequest request) {
+    final State state = this.locationService.getStateByCode(code);
+    return ETags.ok(
+        request,
+        StringUtils.isEmpty(expand)
+            ? ETags.of(state.getId(), state.getVersion())
+            : ETags.of(state.getId(), expand, this.locationService.getCatalogVersion()),
+        () -> SampleMappers.INSTANCE.toStateViewModel(state, expand));
   }
 
   @Override
-  public ResponseEntity<List<StateVM>> getAllStates(final String expand) {
-    return ResponseEntity.ok(
-        this.locationService.getAllStates().stream()
-            .map(state -> SampleMappers.INSTANCE.toStateViewModel(state, expand))
-            .toList());
+  public ResponseEntity<List<StateVM>> getAllStates(final String expand, final WebRequest request) {
+    return ETags.ok(
+        request,
+        ETags.of(this.locationService.getCatalogVersion(), expand),
+        () ->
+            this.locationService.getAllStates().stream()
+                .map(state -> SampleMappers.INSTANCE.toStateViewModel(state, expand))
+                .toList());
+  }
+
+  @Override
+  public PaginatedResource<StateVM> getStatesPage(
+      final List<String> fields, final Pageable pageRequest) {
+    return PaginatedResourceAssembler.assemble(
+        this.locationService.getStatesPage(SparseFieldsets.of(fields), pageRequest),
+        states -> states.stream().map(SampleMappers.INSTANCE::toStateSummaryViewModel).toList());
   }
 
   @Override
-  public ResponseEntity<List<Pair<String, String>>> getAllStateListItems() {
+  public ResponseEntity<List<Pair<String, String>>> suggestStates(final String q, final int limit) {
     return ResponseEntity.ok(
-        this.locationService.getAllStates().stream().map(State::listItem).toList());
+        this.locationService.suggestStates(q, limit).stream().map(State::listItem).toList());
+  }
+
+  @Override
+  public ResponseEntity<List<Pair<String, String>>> getAllStateListItems(final WebRequest request) {
+    return ETags.ok(
+        request,
+        ETags.of(this.locationService.getCatalogVersion()),
+        () -> this.locationService.getAllStates().stream().map(State::listItem).toList());
   }
 
   @Override
@@ -77,7 +127,9 @@ class LocationController implements LocationApi {
     this.locationService.updateState(id, request);
     return ResponseEntity.ok()
         .location(
-            linkTo(methodOn(LocationController.class).getStateById(id, null)).withSelfRel().toUri())
+            linkTo(methodOn(LocationController.class).getStateById(id, null, null))
+                .withSelfRel()
+                .toUri())
         .body(APIResponse.newInstance().addSuccess(GeneralMessageResolver.RECORD_UPDATED));
   }
 
@@ -99,45 +151,112 @@ class LocationController implements LocationApi {
       final String stateId, final CityCreationRQ request) {
     final City city = this.locationService.createCity(stateId, request);
     return ResponseEntity.created(
-            linkTo(methodOn(LocationController.class).getCityById(city.getId(), null))
+            linkTo(methodOn(LocationController.class).getCityById(city.getId(), null, null))
                 .withSelfRel()
                 .toUri())
         .body(APIResponse.newInstance().addSuccess(GeneralMessageResolver.RECORD_CREATED));
   }
 
   @Override
-  public ResponseEntity<CityVM> getCityById(final String id, final List<String> expand) {
-    return ResponseEntity.ok(
-        SampleMappers.INSTANCE.toCityViewModel(this.locationService.getCityById(id), expand));
+  public ResponseEntity<List<CityBatchResultVM>> createCities(
+      final String stateId, final List<CityCreationRQ> requests) {
+    return ResponseEntity.ok(this.locationService.createCities(stateId, requests));
   }
 
   @Override
-  public ResponseEntity<CityVM> getCityByCode(final String code, final List<String> expand) {
-    return ResponseEntity.ok(
-        SampleMappers.INSTANCE.toCityViewModel(this.locationService.getCityByCode(code), expand));
+  public ResponseEntity<CityVM> getCityById(
+      final String id, final List<String> expand, final WebRequest request) {
+    if (CollectionUtils.isNotEmpty(expand)) {
+      // State versioned by the catalog, so not modified is answered without reading the city
+      return ETags.ok(
+          request,
+          ETags.of(id, expand, this.locationService.getCatalogVersion()),
+          () -> this.locationService.isCatalogedCity(id),
+          () ->
+              SampleMappers.INSTANCE.toCityViewModel(this.locationService.getCityById(id), expand));
+    }
+    final City city = this.locationService.getCityById(id);
+    return ETags.ok(
+        request,
+        ETags.of(city.getId(), city.getVersion()),
+        () -> SampleMappers.INSTANCE.toCityViewModel(city, expand));
+  }
+
+  @Override
+  public ResponseEntity<CityVM> getCityByCode(
+      final String code, final List<String> expand, final WebRequest request) {
+    final City city = this.locationService.getCityByCode(code);
+    return ETags.ok(
+        request,
+        CollectionUtils.isEmpty(expand)
+            ? ETags.of(city.getId(), city.getVersion())
+            : ETags.of(city.getId(), expand, this.locationService.getCatalogVersion()),
+        () -> SampleMappers.INSTANCE.toCityViewModel(city, expand));
   }
 
   @Override
   public ResponseEntity<List<CityVM>> getAllCitiesByStateId(
-      final String stateId, final List<String> expand) {
-    return ResponseEntity.ok(
-        this.locationService.findAllCitiesByStateId(stateId).stream()
-            .map(city -> SampleMappers.INSTANCE.toCityViewModel(city, expand))
-            .toList());
+      final String stateId, final List<String> expand, final WebRequest request) {
+    return ETags.ok(
+        request,
+        ETags.of(this.locationService.getCatalogVersion(), expand),
+        () ->
+            this.locationService.findAllCitiesByStateId(stateId).stream()
+                .map(city -> SampleMappers.INSTANCE.toCityViewModel(city, expand))
+                .toList());
   }
 
   @Override
-  public ResponseEntity<List<CityVM>> getAllCities(final List<String> expand) {
-    return ResponseEntity.ok(
-        this.locationService.getAllCities().stream()
-            .map(city -> SampleMappers.INSTANCE.toCityViewModel(city, expand))
-            .toList());
+  public PaginatedResource<CityVM> getCitiesPageByStateId(
+      final String stateId, final List<String> fields, final Pageable pageRequest) {
+    return PaginatedResourceAssembler.assemble(
+        this.locationService.getCitiesPageByStateId(
+            stateId, SparseFieldsets.of(fields), pageRequest),
+        cities -> cities.stream().map(SampleMappers.INSTANCE::citySummaryViewModel).toList());
+  }
+
+  @Override
+  public ResponseEntity<Integer> getCityCountByStateId(
+      final String stateId, final WebRequest request) {
+    return ETags.ok(
+        request,
+        ETags.of(this.locationService.getCatalogVersion()),
+        () -> this.locationService.getCityCount(stateId));
+  }
+
+  @Override
+  public ResponseEntity<List<CityVM>> getAllCities(
+      final List<String> expand, final WebRequest request) {
+    return ETags.ok(
+        request,
+        ETags.of(this.locationService.getCatalogVersion(), expand),
+        () ->
+            this.locationService.getAllCities().stream()
+                .map(city -> SampleMappers.INSTANCE.toCityViewModel(city, expand))
+                .toList());
+  }
+
+  @Override
+  public PaginatedResource<CityVM> getCitiesPage(
+      final List<String> fields, final Pageable pageRequest) {
+    return PaginatedResourceAssembler.assemble(
+        this.locationService.getCitiesPage(SparseFieldsets.of(fields), pageRequest),
+        cities -> cities.stream().map(SampleMappers.INSTANCE::citySummaryViewModel).toList());
   }
 
   @Override
-  public ResponseEntity<List<Pair<String, String>>> getAllCitiesListItems() {
+  public ResponseEntity<List<Pair<String, String>>> suggestCities(final String q, final int limit) {
     return ResponseEntity.ok(
-        this.locationService.getAllCities().stream().map(City::listItem).toList());
+        this.locationService.suggestCities(q, limit).stream().map(City::listItem).toList());
+  }
+
+  @Override
+  public ResponseEntity<List<Pair<String, String>>> getAllCitiesListItems(
+      final WebRequest request) {
+    return ETags.ok(
+        request,
+        ETags.of(this.locationService.getCatalogVersion()),
+        () -> this.locationService.getAllCities().stream().map(City::listItem).toList());
   }
 
   @Override
@@ -149,10 +268,18 @@ class LocationController implements LocationApi {
     this.locationService.updateCity(id, request);
     return ResponseEntity.ok()
         .location(
-            linkTo(methodOn(LocationController.class).getCityById(id, null)).withSelfRel().toUri())
+            linkTo(methodOn(LocationController.class).getCityById(id, null, null))
+                .withSelfRel()
+                .toUri())
         .body(APIResponse.newInstance().addSuccess(GeneralMessageResolver.RECORD_UPDATED));
   }
 
+  @Override
+  public ResponseEntity<List<CityBatchResultVM>> updateCities(
+      final Map<String, CityUpdationRQ> requests) {
+    return ResponseEntity.ok(this.locationService.updateCities(requests));
+  }
+
   @Override
   public ResponseEntity<APIResponse<?>> deleteCity(final String id) {
     this.locationService.deleteCity(id);
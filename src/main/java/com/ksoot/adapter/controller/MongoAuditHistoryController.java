@@ -1,12 +1,17 @@
 package com.ksoot.adapter.controller;
 
 import static com.ksoot.common.CommonConstants.DEFAULT_PAGE_SIZE;
+import static com.ksoot.common.util.pagination.PaginatedResourceAssembler.CONTINUATION_TOKEN_PARAM;
+import static com.ksoot.common.util.rest.ApiConstants.BAD_REQUEST_EXAMPLE_RESPONSE;
 import static com.ksoot.common.util.rest.ApiConstants.INTERNAL_SERVER_ERROR_EXAMPLE_RESPONSE;
+import static com.ksoot.common.util.rest.ApiConstants.NOT_FOUND_EXAMPLE_RESPONSE;
 
 import com.ksoot.common.mongo.AuditEvent;
+import com.ksoot.common.mongo.AuditRollup;
 import com.ksoot.common.util.pagination.PaginatedResource;
 import com.ksoot.common.util.pagination.PaginatedResourceAssembler;
 import com.ksoot.domain.service.MongoAuditHistoryService;
+import com.ksoot.domain.service.MongoAuditHistoryService.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,17 +19,29 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 @RestController
 @RequestMapping("/v1/audit-history")
@@ -32,8 +49,17 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 class MongoAuditHistoryController {
 
+  static final int MAX_SCROLL_SIZE = 1000;
+
   private final MongoAuditHistoryService auditHistoryService;
 
+  /**
+   * Exports stream for as long as the export takes, so they are given their own generous but finite
+   * timeout, instead of the application wide async request timeout.
+   */
+  @Value("${application.audit-history.export-timeout:PT1H}")
+  private Duration exportTimeout;
+
   @GetMapping
   @Operation(operationId = "get-audit-history", summary = "Gets a page of Audit History")
   @ApiResponses(
@@ -71,4 +97,271 @@ class MongoAuditHistoryController {
             collectionName, type, revisions, actor, fromDateTime, tillDateTime, pageRequest);
     return PaginatedResourceAssembler.assemble(feePage);
   }
+
+  @GetMapping("/export")
+  @Operation(
+      operationId = "export-audit-history",
+      summary =
+          "Exports Audit History as NDJSON or CSV, ordered by Audit datetime and revision. "
+              + "Streamed from a database cursor, so there is no limit on the number of records")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Audit History streamed successfully, one Audit Event per line"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad request, collection not audited",
+            content = @Content(examples = @ExampleObject(BAD_REQUEST_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal Server error",
+            content = @Content(examples = @ExampleObject(INTERNAL_SERVER_ERROR_EXAMPLE_RESPONSE)))
+      })
+  public WebAsyncTask<Void> exportAuditHistory(
+      @Parameter(
+              description = "Source MongoDB Collection name. E.g. <b>products</b>",
+              required = true)
+          @RequestParam
+          final String collectionName,
+      @Parameter(description = "Audit Event type.") @RequestParam(required = false)
+          final AuditEvent.Type type,
+      @Parameter(description = "Audit Username. E.g. <b>SYSTEM</b>") @RequestParam(required = false)
+          final String actor,
+      @Parameter(description = "From Datetime, Inclusive. E.g. <b>2023-12-20T13:57:13+05:30</b>")
+          @RequestParam(required = false)
+          final OffsetDateTime fromDateTime,
+      @Parameter(description = "Till Datetime, Inclusive. E.g. <b>2023-12-22T13:57:13+05:30</b>")
+          @RequestParam(required = false)
+          final OffsetDateTime tillDateTime,
+      @Parameter(description = "Export format. E.g. <b>CSV</b>")
+          @RequestParam(defaultValue = "NDJSON")
+          final ExportFormat format,
+      @Parameter(hidden = true) final HttpServletResponse response) {
+    final Stream<AuditEvent> auditEvents =
+        this.auditHistoryService.streamAuditHistory(
+            collectionName, type, actor, fromDateTime, tillDateTime);
+    response.setContentType(format.getContentType());
+    response.setHeader(
+        HttpHeaders.CONTENT_DISPOSITION,
+        ContentDisposition.attachment()
+            .filename(collectionName + "-audit-history." + format.getExtension())
+            .build()
+            .toString());
+    // Written by the task itself, as a StreamingResponseBody would run under the global timeout
+    final WebAsyncTask<Void> exportTask =
+        new WebAsyncTask<>(
+            this.exportTimeout.toMillis(),
+            () -> {
+              this.auditHistoryService.writeAuditHistory(
+                  auditEvents, format, response.getOutputStream());
+              return null;
+            });
+    // Releases the database cursor if the export times out or the client goes away
+    exportTask.onCompletion(auditEvents::close);
+    return exportTask;
+  }
+
+  @GetMapping("/scroll")
+  @Operation(
+      operationId = "scroll-audit-history",
+      summary =
+          "Gets a page of Audit History using continuation token, "
+              + "ordered by Audit datetime and revision")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Audit History page returned successfully. Returns an empty page if no records found"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad request, invalid continuation token",
+            content = @Content(examples = @ExampleObject(BAD_REQUEST_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal Server error",
+            content = @Content(examples = @ExampleObject(INTERNAL_SERVER_ERROR_EXAMPLE_RESPONSE)))
+      })
+  public PaginatedResource<AuditEvent> scrollAuditHistory(
+      @Parameter(
+              description = "Source MongoDB Collection name. E.g. <b>products</b>",
+              required = true)
+          @RequestParam
+          final String collectionName,
+      @Parameter(description = "Audit Event type.") @RequestParam(required = false)
+          final AuditEvent.Type type,
+      @Parameter(description = "Audit Revisions.") @RequestParam(required = false)
+          final List<Long> revisions,
+      @Parameter(description = "Audit Username. E.g. <b>SYSTEM</b>") @RequestParam(required = false)
+          final String actor,
+      @Parameter(description = "From Datetime, Inclusive. E.g. <b>2023-12-20T13:57:13+05:30</b>")
+          @RequestParam(required = false)
+          final OffsetDateTime fromDateTime,
+      @Parameter(description = "Till Datetime, Inclusive. E.g. <b>2023-12-22T13:57:13+05:30</b>")
+          @RequestParam(required = false)
+          final OffsetDateTime tillDateTime,
+      @Parameter(
+              description =
+                  "Continuation token, as returned in previous page. Omit to get first page")
+          @RequestParam(name = CONTINUATION_TOKEN_PARAM, required = false)
+          final String continuationToken,
+      @Parameter(description = "Page size, at most 1000. E.g. <b>16</b>")
+          @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE)
+          @Positive
+          @Max(MAX_SCROLL_SIZE)
+          final int size,
+      @Parameter(description = "Sort direction of Audit datetime and revision. E.g. <b>DESC</b>")
+          @RequestParam(defaultValue = "ASC")
+          final Sort.Direction direction,
+      @Parameter(
+              description =
+                  "Whether to count total records matching given filters, "
+                      + "costs an additional query on every page")
+          @RequestParam(defaultValue = "false")
+          final boolean withTotalRecords) {
+    final Window<AuditEvent> window =
+        this.auditHistoryService.scrollAuditHistory(
+            collectionName,
+            type,
+            revisions,
+            actor,
+            fromDateTime,
+            tillDateTime,
+            continuationToken,
+            size,
+            direction);
+    final Long totalRecords =
+        withTotalRecords
+            ? this.auditHistoryService.countAuditHistory(
+                collectionName, type, revisions, actor, fromDateTime, tillDateTime)
+            : null;
+    return PaginatedResourceAssembler.assemble(
+        window, size, totalRecords, Sort.by(direction, "datetime", "revision", "_id"));
+  }
+
+  @GetMapping("/{collectionName}/{documentId}")
+  @Operation(
+      operationId = "get-document-audit-history",
+      summary = "Gets a page of Audit History of a document, ordered by revision")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Document Audit History page returned successfully. Returns an empty page if no records found"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad request, collection not audited",
+            content = @Content(examples = @ExampleObject(BAD_REQUEST_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal Server error",
+            content = @Content(examples = @ExampleObject(INTERNAL_SERVER_ERROR_EXAMPLE_RESPONSE)))
+      })
+  public PaginatedResource<AuditEvent> getDocumentAuditHistory(
+      @Parameter(description = "Source MongoDB Collection name. E.g. <b>states</b>")
+          @PathVariable(name = "collectionName")
+          final String collectionName,
+      @Parameter(description = "Source document id. E.g. <b>6586f0a4e8d1ab2f5c1d2e3f</b>")
+          @PathVariable(name = "documentId")
+          final String documentId,
+      @Parameter(description = "From Revision, Inclusive. E.g. <b>1</b>")
+          @RequestParam(required = false)
+          final Long fromRevision,
+      @Parameter(description = "Till Revision, Inclusive. E.g. <b>10</b>")
+          @RequestParam(required = false)
+          final Long tillRevision,
+      @Parameter(description = "Sort direction of Audit revision. E.g. <b>DESC</b>")
+          @RequestParam(defaultValue = "ASC")
+          final Sort.Direction direction,
+      @ParameterObject @PageableDefault(size = DEFAULT_PAGE_SIZE) final Pageable pageRequest) {
+    final Page<AuditEvent> auditPage =
+        this.auditHistoryService.getDocumentAuditHistory(
+            collectionName, documentId, fromRevision, tillRevision, direction, pageRequest);
+    return PaginatedResourceAssembler.assemble(auditPage);
+  }
+
+  @GetMapping("/{collectionName}/{documentId}/as-of")
+  @Operation(
+      operationId = "get-document-as-of",
+      summary = "Gets an audited document as it was at given datetime")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Latest Audit revision of the document at or before given datetime returned successfully"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad request, collection not audited",
+            content = @Content(examples = @ExampleObject(BAD_REQUEST_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Requested document did not exist at given datetime",
+            content = @Content(examples = @ExampleObject(NOT_FOUND_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal Server error",
+            content = @Content(examples = @ExampleObject(INTERNAL_SERVER_ERROR_EXAMPLE_RESPONSE)))
+      })
+  public AuditEvent getDocumentAsOf(
+      @Parameter(description = "Source MongoDB Collection name. E.g. <b>states</b>")
+          @PathVariable(name = "collectionName")
+          final String collectionName,
+      @Parameter(description = "Source document id. E.g. <b>6586f0a4e8d1ab2f5c1d2e3f</b>")
+          @PathVariable(name = "documentId")
+          final String documentId,
+      @Parameter(
+              description = "Point in time, Inclusive. E.g. <b>2023-12-20T13:57:13+05:30</b>",
+              required = true)
+          @RequestParam
+          final OffsetDateTime datetime) {
+    return this.auditHistoryService.getAuditEventAsOf(collectionName, documentId, datetime);
+  }
+
+  @GetMapping("/rollups")
+  @Operation(
+      operationId = "get-audit-rollups",
+      summary =
+          "Gets counts of Audit Events per collection, type and actor, bucketed by hour or day")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Audit Event counts returned successfully. Buckets without Audit Events are omitted"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad request, Audit rollups not enabled",
+            content = @Content(examples = @ExampleObject(BAD_REQUEST_EXAMPLE_RESPONSE))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal Server error",
+            content = @Content(examples = @ExampleObject(INTERNAL_SERVER_ERROR_EXAMPLE_RESPONSE)))
+      })
+  public List<AuditRollup> getAuditRollups(
+      @Parameter(description = "Source MongoDB Collection name. E.g. <b>states</b>")
+          @RequestParam(required = false)
+          final String collectionName,
+      @Parameter(description = "Audit Event type.") @RequestParam(required = false)
+          final AuditEvent.Type type,
+      @Parameter(description = "Audit Username. E.g. <b>SYSTEM</b>") @RequestParam(required = false)
+          final String actor,
+      @Parameter(
+              description =
+                  "From Datetime, counted from start of its hour. E.g. <b>2023-12-20T13:57:13+05:30</b>")
+          @RequestParam(required = false)
+          final OffsetDateTime fromDateTime,
+      @Parameter(
+              description =
+                  "Till Datetime, counted till end of its hour. E.g. <b>2023-12-22T13:57:13+05:30</b>")
+          @RequestParam(required = false)
+          final OffsetDateTime tillDateTime,
+      @Parameter(description = "Bucket granularity, days are in UTC. E.g. <b>DAY</b>")
+          @RequestParam(defaultValue = "HOUR")
+          final AuditRollup.Granularity granularity) {
+    return this.auditHistoryService.getAuditRollups(
+        collectionName, type, actor, fromDateTime, tillDateTime, granularity);
+  }
 }
@@ -0,0 +1,38 @@
+package com.ksoot.adapter.repository;
+
+import com.ksoot.domain.model.City;
+import java.util.List;
+import java.util.Set;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+/** City queries reading only requested fields, and bulk writes of many cities in one round trip. */
+public interface CityRepositoryCustom {
+
+  /**
+   * Gets a page of cities, of given state if any, sorted by name case insensitively, reading only
+   * given fields.
+   *
+   * @param stateId State Id, all cities if null
+   * @param fields Fields to read, all if empty
+   */
+  Page<City> findPage(@Nullable String stateId, Set<String> fields, Pageable pageRequest);
+
+  /**
+   * Inserts given new cities with one unordered bulk write, raising the same MongoDB lifecycle
+   * events as saving each of them.
+   *
+   * @return Ids of inserted cities, in given order
+   */
+  List<String> bulkInsert(List<City> cities);
+
+  /**
+   * Replaces given cities with one unordered bulk write, checking and incrementing their versions
+   * and raising the same MongoDB lifecycle events as saving each of them.
+   *
+   * @throws org.springframework.dao.OptimisticLockingFailureException if any city has been changed
+   *     or deleted meanwhile
+   */
+  void bulkReplace(List<City> cities);
+}
@@ -0,0 +1,103 @@
+package com.ksoot.adapter.repository;
+
+import com.ksoot.domain.model.City;
+import com.mongodb.bulk.BulkWriteResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.lang.Nullable;
+
+@RequiredArgsConstructor
+public class CityRepositoryCustomImpl implements CityRepositoryCustom {
+
+  private static final String ID = "_id";
+
+  private final MongoOperations mongoOperations;
+
+  @Override
+  public Page<City> findPage(
+      @Nullable final String stateId, final Set<String> fields, final Pageable pageRequest) {
+    final Criteria criteria =
+        Objects.nonNull(stateId)
+            ? Criteria.where("state").is(new ObjectId(stateId))
+            : new Criteria();
+    return ProjectedPages.find(this.mongoOperations, criteria, fields, pageRequest, City.class);
+  }
+
+  @Override
+  public List<String> bulkInsert(final List<City> cities) {
+    if (cities.isEmpty()) {
+      return List.of();
+    }
+    final String versionField = this.versionField();
+    final List<Document> documents = new ArrayList<>(cities.size());
+    for (final City city : cities) {
+      // Id and initial version assigned here, as bulk writes populate neither on the entity
+      final Document document = this.toDocument(city);
+      document.put(ID, new ObjectId());
+      document.put(versionField, 0L);
+      documents.add(document);
+    }
+    this.mongoOperations
+        .bulkOps(BulkOperations.BulkMode.UNORDERED, City.class)
+        .insert(documents)
+        .execute();
+    return documents.stream().map(document -> document.getObjectId(ID).toHexString()).toList();
+  }
+
+  @Override
+  public void bulkReplace(final List<City> cities) {
+    if (cities.isEmpty()) {
+      return;
+    }
+    final String versionField = this.versionField();
+    final BulkOperations bulkOperations =
+        this.mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, City.class);
+    for (final City city : cities) {
+      final Document document = this.toDocument(city);
+      document.put(versionField, city.getVersion() + 1);
+      // Replaced, not updated, as only replacements raise lifecycle events and so get audited
+      bulkOperations.replaceOne(
+          new Query(
+              Criteria.where(ID)
+                  .is(new ObjectId(city.getId()))
+                  .and(versionField)
+                  .is(city.getVersion())),
+          document);
+    }
+    final BulkWriteResult result = bulkOperations.execute();
+    if (result.getMatchedCount() != cities.size()) {
+      throw new OptimisticLockingFailureException(
+          "Cities changed or deleted meanwhile, replaced "
+              + result.getMatchedCount()
+              + " of "
+              + cities.size());
+    }
+  }
+
+  private Document toDocument(final City city) {
+    final Document document = new Document();
+    this.mongoOperations.getConverter().write(city, document);
+    return document;
+  }
+
+  private String versionField() {
+    return this.mongoOperations
+        .getConverter()
+        .getMappingContext()
+        .getRequiredPersistentEntity(City.class)
+        .getRequiredVersionProperty()
+        .getFieldName();
+  }
+}
@@ -6,7 +6,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.history.RevisionRepository;
 
 public interface EmployeeRepository
-    extends JpaRepository<Employee, Long>, RevisionRepository<Employee, Long, Integer> {
+    extends JpaRepository<Employee, Long>,
+        RevisionRepository<Employee, Long, Integer>,
+        EmployeeRepositoryCustom {
 
   Optional<Employee> findByCode(final String code);
 
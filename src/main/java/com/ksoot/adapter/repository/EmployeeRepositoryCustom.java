@@ -0,0 +1,15 @@
+package com.ksoot.adapter.repository;
+
+import jakarta.persistence.Tuple;
+import java.util.List;
+import java.util.Set;
+
+/** Employee queries selecting only requested attributes. */
+public interface EmployeeRepositoryCustom {
+
+  /**
+   * Gets all employees as tuples of given attributes, aliased by attribute name. Unknown attributes
+   * are ignored, only id is selected if none is known.
+   */
+  List<Tuple> findAllTuples(Set<String> attributes);
+}
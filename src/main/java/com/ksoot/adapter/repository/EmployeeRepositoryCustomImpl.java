@@ -0,0 +1,37 @@
+package com.ksoot.adapter.repository;
+
+import com.ksoot.domain.model.Employee;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+  private static final String ID = "id";
+
+  private final EntityManager entityManager;
+
+  @Override
+  public List<Tuple> findAllTuples(final Set<String> attributes) {
+    final CriteriaQuery<Tuple> query = this.entityManager.getCriteriaBuilder().createTupleQuery();
+    final Root<Employee> root = query.from(Employee.class);
+    final List<Selection<?>> selections = new ArrayList<>();
+    for (final Attribute<? super Employee, ?> attribute : root.getModel().getSingularAttributes()) {
+      if (attributes.contains(attribute.getName())) {
+        selections.add(root.get(attribute.getName()).alias(attribute.getName()));
+      }
+    }
+    if (selections.isEmpty()) {
+      selections.add(root.get(ID).alias(ID));
+    }
+    return this.entityManager.createQuery(query.multiselect(selections)).getResultList();
+  }
+}
@@ -1,32 +1,105 @@
 package com.ksoot.adapter.repository;
 
+import com.ksoot.common.mongo.AuditDeltaCodec;
 import com.ksoot.common.mongo.AuditEvent;
 import com.ksoot.common.mongo.AuditMetaData;
+import com.ksoot.common.mongo.AuditPartitions;
+import com.ksoot.common.mongo.AuditRollup;
+import com.ksoot.common.mongo.AuditRollups;
+import com.ksoot.common.mongo.MongoAuditProperties;
+import com.ksoot.common.util.pagination.ContinuationToken;
 import com.ksoot.domain.SampleErrorTypes;
 import com.ksoot.problem.core.Problems;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import lombok.RequiredArgsConstructor;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
 
-@RequiredArgsConstructor
 @Repository
 public class MongoAuditHistoryRepository {
 
+  private static final String COLLECTION_NAME = "collection_name";
+
+  private static final String DATETIME = "datetime";
+
+  private static final String REVISION = "revision";
+
+  private static final String ID = "_id";
+
   private final MongoOperations mongoOperations;
 
   private final AuditMetaData auditMetaData;
 
+  private final AuditPartitions auditPartitions;
+
+  private final AuditDeltaCodec auditDeltaCodec;
+
+  private final AuditRollups auditRollups;
+
+  private final int exportBatchSize;
+
+  // Rebuilt document versions by collection name, document id and revision, for point in time
+  // lookups. Keyed by document id too, as revisions are unique per document in DOCUMENT scheme
+  private final Map<String, AuditEvent> asOfVersions;
+
+  MongoAuditHistoryRepository(
+      final MongoOperations mongoOperations,
+      final AuditMetaData auditMetaData,
+      final AuditPartitions auditPartitions,
+      final AuditDeltaCodec auditDeltaCodec,
+      final AuditRollups auditRollups,
+      final MongoAuditProperties mongoAuditProperties) {
+    this.mongoOperations = mongoOperations;
+    this.auditMetaData = auditMetaData;
+    this.auditPartitions = auditPartitions;
+    this.auditDeltaCodec = auditDeltaCodec;
+    this.auditRollups = auditRollups;
+    this.exportBatchSize = mongoAuditProperties.getAuditing().getExportBatchSize();
+    final int cacheSize = mongoAuditProperties.getAuditing().getAsOfCacheSize();
+    this.asOfVersions =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(final Map.Entry<String, AuditEvent> eldest) {
+                return this.size() > cacheSize;
+              }
+            });
+  }
+
   public Page<AuditEvent> getAuditHistory(
       final String collectionName,
       final AuditEvent.Type type,
@@ -35,47 +108,503 @@ public class MongoAuditHistoryRepository {
       final OffsetDateTime fromDateTime,
       final OffsetDateTime tillDateTime,
       final Pageable pageRequest) {
+    final List<String> auditCollectionNames =
+        this.getAuditCollectionNames(collectionName, fromDateTime, tillDateTime);
+    final List<Criteria> criteria =
+        filterCriteria(collectionName, type, revisions, actor, fromDateTime, tillDateTime);
+    final long totalRecords = this.count(auditCollectionNames, criteria);
+    if (totalRecords == 0) {
+      return Page.empty();
+    } else {
+      final Pageable pageable =
+          totalRecords <= pageRequest.getPageSize()
+              ? PageRequest.of(0, pageRequest.getPageSize(), pageRequest.getSort())
+              : pageRequest;
+      final List<AuditEvent> feeMovementRecords =
+          this.decode(
+              collectionName,
+              this.find(
+                  auditCollectionNames,
+                  criteria,
+                  pageable.getSort(),
+                  pageable.getOffset(),
+                  pageable.getPageSize()));
+      return new PageImpl<>(feeMovementRecords, pageable, totalRecords);
+    }
+  }
+
+  /**
+   * Gets a window of audit history ordered by <code>(datetime, revision)</code>, starting after the
+   * position encoded in given continuation token. Unlike {@link #getAuditHistory} no records are
+   * counted or skipped, so every window costs the same irrespective of how deep it is.
+   *
+   * @param continuationToken Token of position to continue after, null or blank for first window
+   * @param size Window size
+   * @param direction Sort direction of <code>(datetime, revision, _id)</code>, <code>_id</code>
+   *     breaking ties of revisions written in the same millisecond
+   * @return Window of audit events, positions are {@link KeysetScrollPosition}s
+   */
+  public Window<AuditEvent> scrollAuditHistory(
+      final String collectionName,
+      final AuditEvent.Type type,
+      final List<Long> revisions,
+      final String actor,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime,
+      final String continuationToken,
+      final int size,
+      final Sort.Direction direction) {
+    final List<Criteria> criteria =
+        filterCriteria(collectionName, type, revisions, actor, fromDateTime, tillDateTime);
+    OffsetDateTime fromPartition = fromDateTime;
+    OffsetDateTime tillPartition = tillDateTime;
+    if (StringUtils.isNotBlank(continuationToken)) {
+      final Map<String, Object> keys = decodeContinuationToken(continuationToken);
+      criteria.add(keysetCriteria(keys, direction));
+      // Partitions already scrolled past need not be read
+      final OffsetDateTime position =
+          OffsetDateTime.ofInstant(Instant.ofEpochMilli((Long) keys.get(DATETIME)), ZoneOffset.UTC);
+      if (direction.isAscending()) {
+        fromPartition = position;
+      } else {
+        tillPartition = position;
+      }
+    }
+    final List<AuditEvent> auditEvents =
+        this.find(
+            this.getAuditCollectionNames(collectionName, fromPartition, tillPartition),
+            criteria,
+            Sort.by(direction, DATETIME, REVISION, ID),
+            0,
+            size + 1);
+    final boolean hasNext = auditEvents.size() > size;
+    final List<AuditEvent> content =
+        this.decode(collectionName, hasNext ? auditEvents.subList(0, size) : auditEvents);
+    return Window.from(content, index -> position(content.get(index)), hasNext);
+  }
+
+  /**
+   * Streams audit history ordered by <code>(datetime, revision)</code>, reading the overlapping
+   * audit partitions one after another through a cursor. At most one batch of audit events is held
+   * in memory at a time, so the cost of an export is independent of its size. Cursors are opened
+   * lazily, on consumption.
+   *
+   * @return Stream of audit events, must be closed by the caller
+   */
+  public Stream<AuditEvent> streamAuditHistory(
+      final String collectionName,
+      final AuditEvent.Type type,
+      final String actor,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime) {
+    final List<Criteria> criteria =
+        filterCriteria(collectionName, type, null, actor, fromDateTime, tillDateTime);
+    return this.getAuditCollectionNames(collectionName, fromDateTime, tillDateTime).stream()
+        .flatMap(
+            auditCollectionName ->
+                batches(
+                        this.mongoOperations.stream(
+                            query(criteria)
+                                .with(Sort.by(DATETIME, REVISION))
+                                .cursorBatchSize(this.exportBatchSize),
+                            AuditEvent.class,
+                            auditCollectionName),
+                        this.exportBatchSize)
+                    .flatMap(
+                        batch -> this.auditDeltaCodec.decode(batch, auditCollectionName).stream()));
+  }
+
+  public long countAuditHistory(
+      final String collectionName,
+      final AuditEvent.Type type,
+      final List<Long> revisions,
+      final String actor,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime) {
+    return this.count(
+        this.getAuditCollectionNames(collectionName, fromDateTime, tillDateTime),
+        filterCriteria(collectionName, type, revisions, actor, fromDateTime, tillDateTime));
+  }
+
+  /**
+   * Gets a page of audit history of one document ordered by revision, an index range scan on <code>
+   * (collection_name, source._id, revision)</code> in every audit partition.
+   *
+   * @param collectionName Source collection name
+   * @param documentId Source document id
+   * @param fromRevision From revision, inclusive. Null for no lower bound
+   * @param tillRevision Till revision, inclusive. Null for no upper bound
+   * @param pageRequest Page request, sorted by revision only in given direction
+   * @return Page of audit events of the document
+   */
+  public Page<AuditEvent> getDocumentAuditHistory(
+      final String collectionName,
+      final String documentId,
+      final Long fromRevision,
+      final Long tillRevision,
+      final Sort.Direction direction,
+      final Pageable pageRequest) {
+    final List<String> auditCollectionNames =
+        this.getAuditCollectionNames(collectionName, null, null);
+    final Criteria revisionCriteria = documentCriteria(collectionName, sourceId(documentId));
+    if (Objects.nonNull(fromRevision) || Objects.nonNull(tillRevision)) {
+      revisionCriteria.and(REVISION);
+      if (Objects.nonNull(fromRevision)) {
+        revisionCriteria.gte(fromRevision);
+      }
+      if (Objects.nonNull(tillRevision)) {
+        revisionCriteria.lte(tillRevision);
+      }
+    }
+    final List<Criteria> criteria = List.of(revisionCriteria);
+    final long totalRecords = this.count(auditCollectionNames, criteria);
+    if (totalRecords == 0) {
+      return Page.empty();
+    }
+    final Sort sort = Sort.by(direction, REVISION);
+    final List<AuditEvent> auditEvents =
+        this.decode(
+            collectionName,
+            this.find(
+                auditCollectionNames,
+                criteria,
+                sort,
+                pageRequest.getOffset(),
+                pageRequest.getPageSize()));
+    return new PageImpl<>(
+        auditEvents,
+        PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize(), sort),
+        totalRecords);
+  }
+
+  /**
+   * Gets the latest revision of given document at or before given datetime, with the full document
+   * as it was then. The revision is looked up from the index alone, and is rebuilt from its
+   * partition only if not cached already.
+   *
+   * @param collectionName Source collection name
+   * @param documentId Source document id
+   * @param datetime Point in time, inclusive
+   * @return Audit event of the revision, empty if the document did not exist at given datetime
+   */
+  public Optional<AuditEvent> getAuditEventAsOf(
+      final String collectionName, final String documentId, final OffsetDateTime datetime) {
+    final Object sourceId = sourceId(documentId);
+    // Latest partition first, earlier ones only if the document has no revision in later ones
+    for (final String auditCollectionName :
+        this.getAuditCollectionNames(collectionName, null, datetime).reversed()) {
+      final Query query =
+          new Query(documentCriteria(collectionName, sourceId).and(DATETIME).lte(datetime))
+              .with(Sort.by(Sort.Direction.DESC, DATETIME, REVISION))
+              .limit(1);
+      query.fields().include(REVISION).exclude("_id");
+      final Document latest =
+          this.mongoOperations.findOne(query, Document.class, auditCollectionName);
+      if (Objects.nonNull(latest)) {
+        final AuditEvent auditEvent =
+            this.getVersion(
+                collectionName, sourceId, latest.getLong(REVISION), auditCollectionName);
+        return auditEvent.getType() == AuditEvent.Type.DELETED
+            ? Optional.empty()
+            : Optional.of(auditEvent);
+      }
+    }
+    return Optional.empty();
+  }
+
+  private AuditEvent getVersion(
+      final String collectionName,
+      final Object sourceId,
+      final long revision,
+      final String auditCollectionName) {
+    final String key = collectionName + ":" + sourceId + ":" + revision;
+    AuditEvent auditEvent = this.asOfVersions.get(key);
+    if (Objects.isNull(auditEvent)) {
+      final Query query =
+          new Query(documentCriteria(collectionName, sourceId).and(REVISION).is(revision));
+      auditEvent =
+          this.auditDeltaCodec
+              .decode(
+                  List.of(
+                      this.mongoOperations.findOne(query, AuditEvent.class, auditCollectionName)),
+                  auditCollectionName)
+              .getFirst();
+      this.asOfVersions.put(key, auditEvent);
+    }
+    return auditEvent;
+  }
+
+  /**
+   * Gets counts of audit events per source collection, type and actor, bucketed by hour or day,
+   * read from the hourly rollups instead of the audit events.
+   *
+   * @param fromDateTime From datetime, counted from start of its hour. Null for no lower bound
+   * @param tillDateTime Till datetime, counted till end of its hour. Null for no upper bound
+   * @param granularity Bucket granularity
+   * @return Counts ordered by bucket, collection name, type and actor
+   */
+  public List<AuditRollup> getAuditRollups(
+      final String collectionName,
+      final AuditEvent.Type type,
+      final String actor,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime,
+      final AuditRollup.Granularity granularity) {
+    if (!this.auditRollups.isEnabled()) {
+      throw Problems.newInstance(SampleErrorTypes.AUDIT_ROLLUPS_NOT_ENABLED).throwAble();
+    }
+    final List<Criteria> criteria = new ArrayList<>();
+    if (Objects.nonNull(fromDateTime) && Objects.nonNull(tillDateTime)) {
+      criteria.add(
+          Criteria.where(AuditRollups.HOUR)
+              .gte(AuditRollups.hourOf(fromDateTime))
+              .lte(AuditRollups.hourOf(tillDateTime)));
+    } else if (Objects.nonNull(fromDateTime)) {
+      criteria.add(Criteria.where(AuditRollups.HOUR).gte(AuditRollups.hourOf(fromDateTime)));
+    } else if (Objects.nonNull(tillDateTime)) {
+      criteria.add(Criteria.where(AuditRollups.HOUR).lte(AuditRollups.hourOf(tillDateTime)));
+    }
+    if (StringUtils.isNotBlank(collectionName)) {
+      criteria.add(Criteria.where(AuditRollups.COLLECTION_NAME).is(collectionName));
+    }
+    if (Objects.nonNull(type)) {
+      criteria.add(Criteria.where(AuditRollups.TYPE).is(type.name()));
+    }
+    if (StringUtils.isNotBlank(actor)) {
+      criteria.add(Criteria.where(AuditRollups.ACTOR).is(actor));
+    }
+    final Aggregation aggregation =
+        Aggregation.newAggregation(
+            Aggregation.match(
+                criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria)),
+            Aggregation.group(
+                    granularity.getField(),
+                    AuditRollups.COLLECTION_NAME,
+                    AuditRollups.TYPE,
+                    AuditRollups.ACTOR)
+                .sum(AuditRollups.COUNT)
+                .as(AuditRollups.COUNT));
+    // A few hundred buckets at most for any sensible range, so sorted here
+    return this.mongoOperations
+        .aggregate(aggregation, this.auditRollups.getRollupCollectionName(), Document.class)
+        .getMappedResults()
+        .stream()
+        .map(
+            result -> {
+              final Document bucket = result.get("_id", Document.class);
+              return new AuditRollup(
+                  bucket.getString(AuditRollups.COLLECTION_NAME),
+                  AuditEvent.Type.valueOf(bucket.getString(AuditRollups.TYPE)),
+                  bucket.getString(AuditRollups.ACTOR),
+                  OffsetDateTime.ofInstant(
+                      bucket.getDate(granularity.getField()).toInstant(), ZoneOffset.UTC),
+                  ((Number) result.get(AuditRollups.COUNT)).longValue());
+            })
+        .sorted(
+            Comparator.comparing(AuditRollup::bucket)
+                .thenComparing(AuditRollup::collectionName)
+                .thenComparing(AuditRollup::type)
+                .thenComparing(AuditRollup::actor))
+        .toList();
+  }
+
+  // Only the audit partitions overlapping given datetime range, in chronological order
+  private List<String> getAuditCollectionNames(
+      final String collectionName,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime) {
     if (!this.auditMetaData.isPresent(collectionName)) {
       throw Problems.newInstance(SampleErrorTypes.AUDIT_COLLECTION_NOT_FOUND)
           .detailArgs(collectionName)
           .throwAble();
     }
+    return this.auditPartitions.getAuditCollections(collectionName, fromDateTime, tillDateTime);
+  }
 
-    String auditCollectionName = this.auditMetaData.getAuditCollection(collectionName).get();
-    final Query query = new Query();
+  private long count(final List<String> auditCollectionNames, final List<Criteria> criteria) {
+    return auditCollectionNames.stream()
+        .mapToLong(
+            auditCollectionName -> this.mongoOperations.count(query(criteria), auditCollectionName))
+        .sum();
+  }
+
+  private List<AuditEvent> find(
+      final List<String> auditCollectionNames,
+      final List<Criteria> criteria,
+      final Sort sort,
+      final long skip,
+      final int limit) {
+    if (auditCollectionNames.isEmpty()) {
+      return List.of();
+    } else if (auditCollectionNames.size() == 1) {
+      final Query query = query(criteria).with(sort).skip(skip).limit(limit);
+      return this.mongoOperations.find(query, AuditEvent.class, auditCollectionNames.get(0));
+    } else {
+      // Fan out to partitions with $unionWith. Each partition returns its own first skip + limit
+      // records only, so the merge sort is bounded by the page, not by the partition sizes
+      final Sort mergeSort = sort.isSorted() ? sort : Sort.by(DATETIME, REVISION);
+      final List<AggregationOperation> partitionPipeline =
+          List.of(
+              Aggregation.match(new Criteria().andOperator(criteria)),
+              Aggregation.sort(mergeSort),
+              Aggregation.limit(skip + limit));
+      final List<AggregationOperation> operations = new ArrayList<>(partitionPipeline);
+      auditCollectionNames.stream()
+          .skip(1)
+          .forEach(
+              auditCollectionName ->
+                  operations.add(
+                      UnionWithOperation.unionWith(auditCollectionName)
+                          .pipeline(partitionPipeline)
+                          .mapFieldsTo(AuditEvent.class)));
+      operations.add(Aggregation.sort(mergeSort));
+      operations.add(Aggregation.skip(skip));
+      operations.add(Aggregation.limit(limit));
+      return this.mongoOperations
+          .aggregate(
+              Aggregation.newAggregation(AuditEvent.class, operations),
+              auditCollectionNames.get(0),
+              AuditEvent.class)
+          .getMappedResults();
+    }
+  }
+
+  // Delta revisions are rebuilt from the partition they are stored in
+  private List<AuditEvent> decode(final String collectionName, final List<AuditEvent> auditEvents) {
+    if (!this.auditMetaData.isPartitioned(collectionName)) {
+      return this.auditDeltaCodec.decode(
+          auditEvents, this.auditMetaData.getAuditCollection(collectionName).get());
+    }
+    final Map<String, List<AuditEvent>> auditEventsByPartition =
+        auditEvents.stream()
+            .collect(
+                Collectors.groupingBy(
+                    auditEvent ->
+                        this.auditMetaData
+                            .getAuditCollection(collectionName, auditEvent.getDatetime())
+                            .get(),
+                    LinkedHashMap::new,
+                    Collectors.toList()));
+    final Map<AuditEvent, AuditEvent> decoded = new IdentityHashMap<>();
+    auditEventsByPartition.forEach(
+        (auditCollectionName, partitionAuditEvents) -> {
+          final List<AuditEvent> decodedAuditEvents =
+              this.auditDeltaCodec.decode(partitionAuditEvents, auditCollectionName);
+          for (int i = 0; i < partitionAuditEvents.size(); i++) {
+            decoded.put(partitionAuditEvents.get(i), decodedAuditEvents.get(i));
+          }
+        });
+    return auditEvents.stream().map(decoded::get).toList();
+  }
+
+  private static List<Criteria> filterCriteria(
+      final String collectionName,
+      final AuditEvent.Type type,
+      final List<Long> revisions,
+      final String actor,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime) {
+    final List<Criteria> criteria = new ArrayList<>();
     if (StringUtils.isNotBlank(collectionName)) {
-      query.addCriteria(Criteria.where("collection_name").is(collectionName));
+      criteria.add(Criteria.where(COLLECTION_NAME).is(collectionName));
     }
     if (Objects.nonNull(type)) {
-      query.addCriteria(Criteria.where("type").is(type));
+      criteria.add(Criteria.where("type").is(type));
     }
     if (CollectionUtils.isNotEmpty(revisions)) {
-      query.addCriteria(Criteria.where("revision").in(revisions));
+      criteria.add(Criteria.where(REVISION).in(revisions));
     }
     if (StringUtils.isNotBlank(actor)) {
-      query.addCriteria(Criteria.where("actor").is(actor));
+      criteria.add(Criteria.where("actor").is(actor));
     }
     if (Objects.nonNull(fromDateTime) && Objects.nonNull(tillDateTime)) {
-      query.addCriteria(
-          Criteria.where("datetime")
-              .gte(fromDateTime)
-              .andOperator(Criteria.where("datetime").lte(tillDateTime)));
+      criteria.add(Criteria.where(DATETIME).gte(fromDateTime).lte(tillDateTime));
     } else if (Objects.nonNull(fromDateTime)) {
-      query.addCriteria(Criteria.where("datetime").gte(fromDateTime));
+      criteria.add(Criteria.where(DATETIME).gte(fromDateTime));
     } else if (Objects.nonNull(tillDateTime)) {
-      query.addCriteria(Criteria.where("datetime").lte(tillDateTime));
-    }
-    final long totalRecords = this.mongoOperations.count(query, auditCollectionName);
-    if (totalRecords == 0) {
-      return Page.empty();
-    } else {
-      final Pageable pageable =
-          totalRecords <= pageRequest.getPageSize()
-              ? PageRequest.of(0, pageRequest.getPageSize(), pageRequest.getSort())
-              : pageRequest;
-      final List<AuditEvent> feeMovementRecords =
-          this.mongoOperations.find(query.with(pageable), AuditEvent.class, auditCollectionName);
-      return new PageImpl<>(feeMovementRecords, pageable, totalRecords);
+      criteria.add(Criteria.where(DATETIME).lte(tillDateTime));
     }
+    return criteria;
+  }
+
+  private static Criteria documentCriteria(final String collectionName, final Object sourceId) {
+    return Criteria.where(COLLECTION_NAME).is(collectionName).and("source._id").is(sourceId);
+  }
+
+  // Document ids are stored as ObjectId when they are one
+  private static Object sourceId(final String documentId) {
+    return ObjectId.isValid(documentId) ? new ObjectId(documentId) : documentId;
+  }
+
+  private static Query query(final List<Criteria> criteria) {
+    final Query query = new Query();
+    criteria.forEach(query::addCriteria);
+    return query;
+  }
+
+  private static <T> Stream<List<T>> batches(final Stream<T> stream, final int size) {
+    final Iterator<T> iterator = stream.iterator();
+    final Iterator<List<T>> batches =
+        new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return iterator.hasNext();
+          }
+
+          @Override
+          public List<T> next() {
+            final List<T> batch = new ArrayList<>(size);
+            while (batch.size() < size && iterator.hasNext()) {
+              batch.add(iterator.next());
+            }
+            return batch;
+          }
+        };
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+        .onClose(stream::close);
+  }
+
+  private static Map<String, Object> decodeContinuationToken(final String continuationToken) {
+    return ContinuationToken.decode(continuationToken)
+        .map(KeysetScrollPosition::getKeys)
+        .filter(
+            keys ->
+                keys.get(DATETIME) instanceof Long
+                    && keys.get(REVISION) instanceof Long
+                    && keys.get(ID) instanceof String id
+                    && ObjectId.isValid(id))
+        .orElseThrow(
+            () ->
+                Problems.newInstance(SampleErrorTypes.INVALID_CONTINUATION_TOKEN)
+                    .detailArgs(continuationToken)
+                    .throwAble());
+  }
+
+  // (datetime, revision, _id) strictly after the token position, in given direction
+  private static Criteria keysetCriteria(
+      final Map<String, Object> keys, final Sort.Direction direction) {
+    final Date datetime = new Date((Long) keys.get(DATETIME));
+    final long revision = (Long) keys.get(REVISION);
+    final ObjectId id = new ObjectId((String) keys.get(ID));
+    return direction.isAscending()
+        ? new Criteria()
+            .orOperator(
+                Criteria.where(DATETIME).gt(datetime),
+                Criteria.where(DATETIME).is(datetime).and(REVISION).gt(revision),
+                Criteria.where(DATETIME).is(datetime).and(REVISION).is(revision).and(ID).gt(id))
+        : new Criteria()
+            .orOperator(
+                Criteria.where(DATETIME).lt(datetime),
+                Criteria.where(DATETIME).is(datetime).and(REVISION).lt(revision),
+                Criteria.where(DATETIME).is(datetime).and(REVISION).is(revision).and(ID).lt(id));
+  }
+
+  private static KeysetScrollPosition position(final AuditEvent auditEvent) {
+    final Map<String, Object> keys = new LinkedHashMap<>();
+    keys.put(DATETIME, auditEvent.getDatetime().toInstant().toEpochMilli());
+    keys.put(REVISION, auditEvent.getRevision());
+    keys.put(ID, auditEvent.getId());
+    return ScrollPosition.forward(keys);
   }
 }
@@ -0,0 +1,53 @@
+package com.ksoot.adapter.repository;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLATION_CASE_INSENSITIVE;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import lombok.experimental.UtilityClass;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
+
+// Pages read with case insensitive collation, to be sorted on the name indexes
+@UtilityClass
+class ProjectedPages {
+
+  private static final Collation COLLATION = Collation.parse(COLLATION_CASE_INSENSITIVE);
+
+  static <T> Page<T> find(
+      final MongoOperations mongoOperations,
+      final Criteria criteria,
+      final Set<String> fields,
+      final Pageable pageRequest,
+      final Class<T> entityClass) {
+    final Query query = new Query(criteria).collation(COLLATION).with(pageRequest);
+    if (!fields.isEmpty()) {
+      // Persistent properties only, mapped to document fields, so client input such as "$" or
+      // "name.$" never reaches the projection. Id is always read
+      final MongoPersistentEntity<?> entity =
+          mongoOperations
+              .getConverter()
+              .getMappingContext()
+              .getRequiredPersistentEntity(entityClass);
+      query
+          .fields()
+          .include(
+              fields.stream()
+                  .filter(field -> Objects.nonNull(entity.getPersistentProperty(field)))
+                  .toArray(String[]::new))
+          .include(entity.getRequiredIdProperty().getName());
+    }
+    final List<T> content = mongoOperations.find(query, entityClass);
+    return PageableExecutionUtils.getPage(
+        content,
+        pageRequest,
+        () -> mongoOperations.count(Query.of(query).limit(-1).skip(-1), entityClass));
+  }
+}
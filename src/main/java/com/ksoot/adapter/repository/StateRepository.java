@@ -4,7 +4,7 @@ import com.ksoot.domain.model.State;
 import java.util.Optional;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface StateRepository extends MongoRepository<State, String> {
+public interface StateRepository extends MongoRepository<State, String>, StateRepositoryCustom {
 
   boolean existsByCode(final String code);
 
@@ -0,0 +1,28 @@
+package com.ksoot.adapter.repository;
+
+import com.ksoot.domain.model.State;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * State queries returning states with their cities joined in one round trip, or only requested
+ * fields.
+ */
+public interface StateRepositoryCustom {
+
+  /** Gets all states with their cities, states and cities sorted by name. */
+  List<State> findAllWithCities();
+
+  /** Gets the state of given id with its cities sorted by name. */
+  Optional<State> findByIdWithCities(String id);
+
+  /**
+   * Gets a page of states sorted by name case insensitively, reading only given fields.
+   *
+   * @param fields Fields to read, all if empty
+   */
+  Page<State> findPage(Set<String> fields, Pageable pageRequest);
+}
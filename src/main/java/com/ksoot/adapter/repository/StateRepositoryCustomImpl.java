@@ -0,0 +1,109 @@
+package com.ksoot.adapter.repository;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLATION_CASE_INSENSITIVE;
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_CITY;
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_STATE;
+
+import com.ksoot.domain.model.City;
+import com.ksoot.domain.model.State;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Joins cities to states with a <code>$lookup</code> on the indexed <code>cities.state</code>,
+ * sorted by name in a sub-pipeline, so expanding cities of states costs one aggregation instead of
+ * one query per state to resolve its lazily referenced cities. States and cities returned reference
+ * each other directly, no lazy reference is left to resolve.
+ */
+@RequiredArgsConstructor
+public class StateRepositoryCustomImpl implements StateRepositoryCustom {
+
+  private static final String CITIES = "cities";
+
+  private static final String STATE = "state";
+
+  private static final String NAME = "name";
+
+  private static final Collation NAME_COLLATION = Collation.parse(COLLATION_CASE_INSENSITIVE);
+
+  private final MongoOperations mongoOperations;
+
+  @Override
+  public List<State> findAllWithCities() {
+    return findWithCities(this.mongoOperations, new Criteria());
+  }
+
+  @Override
+  public Optional<State> findByIdWithCities(final String id) {
+    if (!ObjectId.isValid(id)) {
+      return Optional.empty();
+    }
+    return findWithCities(this.mongoOperations, Criteria.where("_id").is(new ObjectId(id))).stream()
+        .findFirst();
+  }
+
+  @Override
+  public Page<State> findPage(final Set<String> fields, final Pageable pageRequest) {
+    return ProjectedPages.find(
+        this.mongoOperations, new Criteria(), fields, pageRequest, State.class);
+  }
+
+  /**
+   * Gets states matching given criteria with their cities, states and cities sorted by name. Static
+   * so callers not bound to the current transaction can pass their own {@link MongoOperations}.
+   */
+  public static List<State> findWithCities(
+      final MongoOperations mongoOperations, final Criteria criteria) {
+    final List<AggregationOperation> pipeline =
+        List.of(
+            Aggregation.match(criteria),
+            Aggregation.lookup()
+                .from(COLLECTION_CITY)
+                .localField("_id")
+                .foreignField(STATE)
+                .pipeline(Aggregation.sort(Sort.by(NAME)))
+                .as(CITIES),
+            Aggregation.sort(Sort.by(NAME)));
+    final MongoConverter converter = mongoOperations.getConverter();
+    return mongoOperations
+        .aggregate(
+            Aggregation.newAggregation(pipeline)
+                .withOptions(AggregationOptions.builder().collation(NAME_COLLATION).build()),
+            COLLECTION_STATE,
+            Document.class)
+        .getMappedResults()
+        .stream()
+        .map(document -> toState(converter, document))
+        .toList();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static State toState(final MongoConverter converter, final Document document) {
+    final List<Document> cityDocuments = (List<Document>) document.remove(CITIES);
+    final State state = converter.read(State.class, document);
+    final List<City> cities = new ArrayList<>(cityDocuments.size());
+    for (final Document cityDocument : cityDocuments) {
+      // State is the one being read, not to be referenced lazily
+      cityDocument.remove(STATE);
+      cities.add(converter.read(City.class, cityDocument).copy(state));
+    }
+    // Replaces the lazy lookup of cities, already joined
+    state.setCities(cities);
+    return state;
+  }
+}
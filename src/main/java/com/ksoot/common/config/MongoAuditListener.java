@@ -3,11 +3,21 @@ package com.ksoot.common.config;
 import static org.springframework.data.mongodb.core.query.SerializationUtils.serializeToJsonSafely;
 
 import com.ksoot.common.CommonConstants;
+import com.ksoot.common.mongo.AuditCompressionCodec;
+import com.ksoot.common.mongo.AuditContentHasher;
+import com.ksoot.common.mongo.AuditDeltaCodec;
 import com.ksoot.common.mongo.AuditEvent;
+import com.ksoot.common.mongo.AuditEventWriter;
+import com.ksoot.common.mongo.AuditIndexes;
 import com.ksoot.common.mongo.AuditMetaData;
+import com.ksoot.common.mongo.AuditPartitions;
+import com.ksoot.common.mongo.AuditProjection;
+import com.ksoot.common.mongo.AuditRevisionSequence;
+import com.ksoot.common.mongo.AuditRollups;
 import com.ksoot.common.mongo.Auditable;
 import com.ksoot.common.mongo.MongoAuditProperties;
 import com.ksoot.common.util.ClassUtils;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -15,16 +25,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.event.EventListener;
-import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.data.mongodb.core.MongoOperations;
-import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.mapping.BasicMongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
 import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
 import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -39,7 +49,8 @@ import org.springframework.util.Assert;
     havingValue = "true")
 @Slf4j
 @RequiredArgsConstructor
-public class MongoAuditListener implements InitializingBean {
+public class MongoAuditListener extends AbstractMongoEventListener<Object>
+    implements InitializingBean {
 
   private final MongoAuditProperties mongoAuditProperties;
 
@@ -47,41 +58,67 @@ public class MongoAuditListener implements InitializingBean {
 
   private final AuditMetaData auditMetaData;
 
-  @EventListener(condition = "@auditMetaData.isPresent(#event.getCollectionName())")
-  public void onAfterSave(final AfterSaveEvent<?> event) {
+  private final AuditRevisionSequence auditRevisionSequence;
+
+  private final AuditEventWriter auditEventWriter;
+
+  private final AuditDeltaCodec auditDeltaCodec;
+
+  private final AuditCompressionCodec auditCompressionCodec;
+
+  private final AuditContentHasher auditContentHasher;
+
+  private final AuditIndexes auditIndexes;
+
+  private final AuditPartitions auditPartitions;
+
+  private final AuditRollups auditRollups;
+
+  @Override
+  public void onAfterSave(final AfterSaveEvent<Object> event) {
+    // Plain lookup in frozen audit metadata, as this is called for every collection
+    if (!this.auditMetaData.isPresent(event.getCollectionName())) {
+      return;
+    }
     if (log.isDebugEnabled()) {
       log.debug(
           String.format(
               "onAfterSave: %s, %s",
               event.getSource(), serializeToJsonSafely(event.getDocument())));
     }
-    this.createAuditEntryOnAfterSave(event, 0);
+    this.createAuditEntryOnAfterSave(event);
   }
 
-  private AuditEvent createAuditEntryOnAfterSave(final AfterSaveEvent<?> event, final int attempt) {
+  private void createAuditEntryOnAfterSave(final AfterSaveEvent<Object> event) {
     if (this.validateTransaction()) {
-      String auditCollectionName =
-          this.auditMetaData.getAuditCollection(event.getCollectionName()).get();
-      try {
-        Query query = new Query(Criteria.where("collection_name").is(event.getCollectionName()));
-        long revision = this.mongoOperations.count(query, auditCollectionName) + 1;
-        final AuditEvent auditEvent =
-            AuditEvent.ofSaveEvent(
-                event,
-                revision,
-                this.getAuditUserName(),
-                this.auditMetaData.getVersionProperty(event.getCollectionName()));
-        return this.mongoOperations.insert(auditEvent, auditCollectionName);
-      } catch (final DuplicateKeyException exception) {
-        if (attempt > 2) { // Max three attempts
-          throw new IllegalStateException(
-              "Non recoverable Race condition in MongoDB Auditing, "
-                  + "while getting next revision number for collection: '"
-                  + auditCollectionName
-                  + "'");
-        }
-        return createAuditEntryOnAfterSave(event, attempt + 1);
+      // Projected once, so only audited fields are hashed and diffed
+      final Document document =
+          this.auditMetaData.project(event.getCollectionName(), event.getDocument());
+      final String hash = this.auditContentHasher.hash(event.getCollectionName(), document);
+      if (this.auditContentHasher.isUnchanged(event.getCollectionName(), document, hash)) {
+        log.debug(
+            "Skipping audit of unchanged document: {} in collection: {}",
+            document.get("_id"),
+            event.getCollectionName());
+        return;
       }
+      final long revision = this.nextRevision(event.getCollectionName(), document, 1);
+      final AuditEvent auditEvent =
+          AuditEvent.ofSaveEvent(
+              event,
+              document,
+              revision,
+              this.getAuditUserName(),
+              this.auditMetaData.getVersionProperty(event.getCollectionName()),
+              hash);
+      final String auditCollectionName =
+          this.auditPartitions.route(event.getCollectionName(), auditEvent.getDatetime());
+      this.auditEventWriter.write(
+          this.auditCompressionCodec.compress(
+              this.auditDeltaCodec.encode(auditEvent, auditCollectionName)),
+          auditCollectionName);
+      this.auditContentHasher.record(auditEvent);
+      this.auditRollups.increment(auditEvent);
     } else {
       throw new IllegalStateException(
           "No active transaction while MongoDB Auditing. Try updating collection: '"
@@ -90,38 +127,35 @@ public class MongoAuditListener implements InitializingBean {
     }
   }
 
-  @EventListener(condition = "@auditMetaData.isPresent(#event.getCollectionName())")
-  public void onAfterDelete(final AfterDeleteEvent<?> event) {
+  @Override
+  public void onAfterDelete(final AfterDeleteEvent<Object> event) {
+    // Plain lookup in frozen audit metadata, as this is called for every collection
+    if (!this.auditMetaData.isPresent(event.getCollectionName())) {
+      return;
+    }
     if (log.isDebugEnabled()) {
       log.debug(
           String.format(
               "onAfterDelete: %s, %s",
               event.getSource(), serializeToJsonSafely(event.getDocument())));
     }
-    this.createAuditEntryOnAfterDelete(event, 0);
+    this.createAuditEntryOnAfterDelete(event);
   }
 
-  private AuditEvent createAuditEntryOnAfterDelete(
-      final AfterDeleteEvent<?> event, final int attempt) {
+  private void createAuditEntryOnAfterDelete(final AfterDeleteEvent<Object> event) {
     if (this.validateTransaction()) {
-      String auditCollectionName =
-          this.auditMetaData.getAuditCollection(event.getCollectionName()).get();
-      try {
-        Query query = new Query(Criteria.where("collection_name").is(event.getCollectionName()));
-        long revision = this.mongoOperations.count(query, auditCollectionName) + 1;
-        final AuditEvent auditEvent =
-            AuditEvent.ofDeleteEvent(event, revision, this.getAuditUserName());
-        return this.mongoOperations.insert(auditEvent, auditCollectionName);
-      } catch (final DuplicateKeyException exception) {
-        if (attempt > 2) { // Max three attempts
-          throw new IllegalStateException(
-              "Non recoverable Race condition in MongoDB Auditing, "
-                  + "while getting next revision number for collection: '"
-                  + auditCollectionName
-                  + "'");
-        }
-        return createAuditEntryOnAfterDelete(event, attempt + 1);
-      }
+      // A delete query with version, i.e. optimistic locking, has the version audited last
+      final long revision = this.nextRevision(event.getCollectionName(), event.getDocument(), 2);
+      final AuditEvent auditEvent =
+          AuditEvent.ofDeleteEvent(event, revision, this.getAuditUserName());
+      final String auditCollectionName =
+          this.auditPartitions.route(event.getCollectionName(), auditEvent.getDatetime());
+      this.auditEventWriter.write(
+          this.auditCompressionCodec.compress(
+              this.auditDeltaCodec.encode(auditEvent, auditCollectionName)),
+          auditCollectionName);
+      this.auditContentHasher.record(auditEvent);
+      this.auditRollups.increment(auditEvent);
     } else {
       throw new IllegalStateException(
           "No active transaction while MongoDB Auditing. Try updating collection: '"
@@ -130,6 +164,48 @@ public class MongoAuditListener implements InitializingBean {
     }
   }
 
+  /**
+   * Gets the revision of an audit event of given document. In DOCUMENT revision scheme it is the
+   * version of the document plus given increment. Without version, e.g. deleted by id, it is the
+   * latest audited revision of the document plus 1, which does not see revisions audited earlier in
+   * the same transaction, as those are written at commit.
+   */
+  private long nextRevision(
+      final String collectionName, final Document document, final int versionIncrement) {
+    if (this.mongoAuditProperties.getAuditing().getRevisionScheme()
+        == MongoAuditProperties.RevisionScheme.COLLECTION) {
+      return this.auditRevisionSequence.next(collectionName);
+    }
+    final Object version =
+        this.auditMetaData.getVersionProperty(collectionName).map(document::get).orElse(null);
+    if (version instanceof Number number) {
+      return number.longValue() + versionIncrement;
+    }
+    final Object documentId = document.get("_id");
+    if (Objects.isNull(documentId)) {
+      // Deleted by a query not on id, audited with a collection revision as the document is unknown
+      return this.auditRevisionSequence.next(collectionName);
+    }
+    for (final String auditCollectionName :
+        this.auditPartitions.getAuditCollections(collectionName, null, null).reversed()) {
+      final Query query =
+          new Query(
+                  Criteria.where("collection_name")
+                      .is(collectionName)
+                      .and("source._id")
+                      .is(documentId))
+              .with(Sort.by(Sort.Direction.DESC, "revision"))
+              .limit(1);
+      query.fields().include("revision").exclude("_id");
+      final Document latest =
+          this.mongoOperations.findOne(query, Document.class, auditCollectionName);
+      if (Objects.nonNull(latest)) {
+        return latest.get("revision", Number.class).longValue() + 1;
+      }
+    }
+    return 1;
+  }
+
   private boolean validateTransaction() {
     return this.mongoAuditProperties.getAuditing().isWithoutTransaction()
         || TransactionSynchronizationManager.isActualTransactionActive();
@@ -152,6 +228,15 @@ public class MongoAuditListener implements InitializingBean {
       throw new IllegalArgumentException(
           "At-least one of 'mongodb.auditing.prefix' or 'mongodb.auditing.suffix' properties must not be null or empty");
     }
+    if (this.auditDeltaCodec.isEnabled()
+        && this.mongoAuditProperties.getAuditing().getRevisionBlockSize() > 1) {
+      // Deltas are replayed in revision order, which revision blocks do not guarantee across nodes
+      throw new IllegalArgumentException(
+          "'mongodb.auditing.delta.enabled' can not be used with 'mongodb.auditing.revision-block-size' greater than 1");
+    }
+    if (this.auditRollups.isEnabled()) {
+      this.auditRollups.ensureCollection();
+    }
     MappingContext<?, ?> mappingContext = this.mongoOperations.getConverter().getMappingContext();
     mappingContext.getPersistentEntities().stream()
         .forEach(
@@ -167,6 +252,13 @@ public class MongoAuditListener implements InitializingBean {
                                       .getVersionProperty()
                                       .getName()
                                   : null;
+                          if (Objects.isNull(versionProperty)
+                              && this.mongoAuditProperties.getAuditing().getRevisionScheme()
+                                  == MongoAuditProperties.RevisionScheme.DOCUMENT) {
+                            throw new IllegalStateException(
+                                "'application.mongodb.auditing.revision-scheme' DOCUMENT requires a @Version property on audited entity: "
+                                    + entity.getType().getName());
+                          }
 
                           String auditCollectionName;
                           if (StringUtils.isNotBlank(auditable.name())) {
@@ -177,12 +269,48 @@ public class MongoAuditListener implements InitializingBean {
                                     + collectionName
                                     + this.mongoAuditProperties.getAuditing().getSuffix();
                           }
-                          this.createAuditCollectionIfDoesNotExist(auditCollectionName);
-
+                          final boolean partitioned =
+                              this.mongoAuditProperties.getAuditing().getPartition().isEnabled();
+                          final AuditProjection projection =
+                              AuditProjection.of(
+                                  this.getFieldNames(
+                                      (BasicMongoPersistentEntity<?>) entity,
+                                      auditable.includeFields()),
+                                  this.getFieldNames(
+                                      (BasicMongoPersistentEntity<?>) entity,
+                                      auditable.excludeFields()),
+                                  Objects.nonNull(versionProperty)
+                                      ? ((BasicMongoPersistentEntity<?>) entity)
+                                          .getVersionProperty()
+                                          .getFieldName()
+                                      : null);
                           this.auditMetaData.put(
                               collectionName,
-                              AuditMetaData.Metadata.of(auditCollectionName, versionProperty));
+                              AuditMetaData.Metadata.of(
+                                  auditCollectionName, versionProperty, partitioned, projection));
+                          if (partitioned) {
+                            this.auditPartitions.discover(collectionName);
+                          } else {
+                            this.createAuditCollectionIfDoesNotExist(auditCollectionName);
+                          }
                         }));
+    this.auditMetaData.freeze();
+  }
+
+  // Maps the leading property name of each path to its MongoDB field name
+  private List<String> getFieldNames(
+      final BasicMongoPersistentEntity<?> entity, final String[] paths) {
+    return Arrays.stream(paths)
+        .map(
+            path -> {
+              final int dot = path.indexOf('.');
+              final String name = dot < 0 ? path : path.substring(0, dot);
+              final MongoPersistentProperty property = entity.getPersistentProperty(name);
+              return Objects.isNull(property)
+                  ? path
+                  : property.getFieldName() + (dot < 0 ? "" : path.substring(dot));
+            })
+        .toList();
   }
 
   private Optional<Auditable> getAuditableAnnotation(final BasicMongoPersistentEntity<?> entity) {
@@ -216,25 +344,8 @@ public class MongoAuditListener implements InitializingBean {
     }
   }
 
-  // Create Audit collection and indexes if it does not exist
+  // Create Audit collection if it does not exist, and reconcile its indexes
   private void createAuditCollectionIfDoesNotExist(final String auditCollectionName) {
-    if (!this.mongoOperations.collectionExists(auditCollectionName)) {
-      log.info("Created Audit collection: " + auditCollectionName);
-      this.mongoOperations.createCollection(auditCollectionName);
-
-      Index indexDatetime = new Index().named("idx_datetime").on("datetime", Sort.Direction.ASC);
-      this.mongoOperations.indexOps(auditCollectionName).ensureIndex(indexDatetime);
-
-      Index indexActor = new Index().named("idx_actor").on("actor", Sort.Direction.ASC);
-      this.mongoOperations.indexOps(auditCollectionName).ensureIndex(indexActor);
-
-      Index indexUnqRevision =
-          new Index()
-              .named("idx_unq_revision")
-              .on("revision", Sort.Direction.ASC)
-              .on("collection_name", Sort.Direction.ASC)
-              .unique();
-      this.mongoOperations.indexOps(auditCollectionName).ensureIndex(indexUnqRevision);
-    }
+    this.auditIndexes.ensureCollection(auditCollectionName);
   }
 }
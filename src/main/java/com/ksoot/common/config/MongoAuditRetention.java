@@ -0,0 +1,183 @@
+package com.ksoot.common.config;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_LOCK;
+
+import com.ksoot.common.mongo.AuditMetaData;
+import com.ksoot.common.mongo.AuditPartitions;
+import com.ksoot.common.mongo.MongoAuditProperties;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Retention of monthly audit partitions. Partitions older than <code>retention-months</code> are
+ * streamed to a gzip compressed NDJSON file, one Extended JSON document per line, in the local
+ * archive directory and dropped only once the file is completely written.
+ *
+ * <p>Only one node runs the job at a time, holding a lock document for at most <code>
+ * retention-lock-duration</code>. Archive files are local to that node, so in a multi node
+ * deployment point <code>archive-directory</code> to a shared volume. Other nodes stop reading the
+ * dropped partitions once they refresh their partitions.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(
+    prefix = "application.mongodb.auditing.partition",
+    name = "enabled",
+    havingValue = "true")
+@Slf4j
+@RequiredArgsConstructor
+public class MongoAuditRetention {
+
+  private static final String ID = "_id";
+
+  private static final String LOCK_ID = "audit-retention";
+
+  private static final String LOCKED_UNTIL = "locked_until";
+
+  private static final String LOCKED_BY = "locked_by";
+
+  private static final JsonWriterSettings JSON_WRITER_SETTINGS =
+      JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+  private final MongoAuditProperties mongoAuditProperties;
+
+  private final MongoOperations mongoOperations;
+
+  private final AuditMetaData auditMetaData;
+
+  private final AuditPartitions auditPartitions;
+
+  private final String instanceId =
+      ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID();
+
+  @Scheduled(cron = "${application.mongodb.auditing.partition.retention-cron:0 0 2 * * *}")
+  public void archiveExpiredPartitions() {
+    final MongoAuditProperties.Partition partition =
+        this.mongoAuditProperties.getAuditing().getPartition();
+    if (partition.getRetentionMonths() == 0) {
+      return;
+    }
+    if (!this.lock(partition.getRetentionLockDuration())) {
+      log.debug("Audit retention is running on another node");
+      return;
+    }
+    try {
+      this.archiveExpiredPartitions(
+          YearMonth.now(ZoneOffset.UTC).minusMonths(partition.getRetentionMonths()),
+          Path.of(partition.getArchiveDirectory()));
+    } finally {
+      this.unlock();
+    }
+  }
+
+  private void archiveExpiredPartitions(
+      final YearMonth oldestRetained, final Path archiveDirectory) {
+    for (final String collectionName : this.auditMetaData.getCollectionNames()) {
+      if (!this.auditMetaData.isPartitioned(collectionName)) {
+        continue;
+      }
+      // Partitions created by other nodes too
+      this.auditPartitions.refresh(collectionName);
+      final String auditCollectionName =
+          this.auditMetaData.getAuditCollection(collectionName).get();
+      final List<YearMonth> expired =
+          List.copyOf(this.auditMetaData.getPartitions(collectionName).headSet(oldestRetained));
+      for (final YearMonth month : expired) {
+        final String partitionName = AuditMetaData.partitionName(auditCollectionName, month);
+        // Audit collection may be shared by multiple source collections, archived already
+        if (this.mongoOperations.collectionExists(partitionName)) {
+          this.archive(partitionName, archiveDirectory);
+          this.mongoOperations.dropCollection(partitionName);
+          log.info("Archived and dropped expired Audit partition: {}", partitionName);
+        }
+        this.auditMetaData.removePartition(collectionName, month);
+      }
+    }
+  }
+
+  // Inserted, or taken over once expired. Duplicate key if another node holds the lock
+  private boolean lock(final Duration duration) {
+    final Instant now = Instant.now();
+    try {
+      this.mongoOperations.upsert(
+          new Query(Criteria.where(ID).is(LOCK_ID).and(LOCKED_UNTIL).lte(Date.from(now))),
+          new Update()
+              .set(LOCKED_UNTIL, Date.from(now.plus(duration)))
+              .set(LOCKED_BY, this.instanceId),
+          COLLECTION_LOCK);
+      return true;
+    } catch (final DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  private void unlock() {
+    this.mongoOperations.updateFirst(
+        new Query(Criteria.where(ID).is(LOCK_ID).and(LOCKED_BY).is(this.instanceId)),
+        new Update().set(LOCKED_UNTIL, new Date()),
+        COLLECTION_LOCK);
+  }
+
+  private void archive(final String partitionName, final Path archiveDirectory) {
+    final Path archive = archiveDirectory.resolve(partitionName + ".ndjson.gz");
+    try {
+      Files.createDirectories(archiveDirectory);
+      // Written to a temporary file first, so a partial archive never replaces a complete one
+      final Path temporary = Files.createTempFile(archiveDirectory, partitionName, ".tmp");
+      long records = 0;
+      try (Writer writer =
+              new BufferedWriter(
+                  new OutputStreamWriter(
+                      new GZIPOutputStream(Files.newOutputStream(temporary)),
+                      StandardCharsets.UTF_8));
+          Stream<Document> documents =
+              this.mongoOperations.stream(new Query(), Document.class, partitionName)) {
+        for (final Document document : (Iterable<Document>) documents::iterator) {
+          writer.write(document.toJson(JSON_WRITER_SETTINGS));
+          writer.write('\n');
+          records++;
+        }
+      } catch (final IOException | RuntimeException e) {
+        Files.deleteIfExists(temporary);
+        throw e;
+      }
+      Files.move(
+          temporary, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      log.info(
+          "Archived {} records of Audit partition: {} to: {}", records, partitionName, archive);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Could not archive Audit partition: " + partitionName, e);
+    }
+  }
+}
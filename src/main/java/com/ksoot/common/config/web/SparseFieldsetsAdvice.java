@@ -0,0 +1,41 @@
+package com.ksoot.common.config.web;
+
+import static com.ksoot.common.util.rest.SparseFieldsets.PARAM_FIELDS;
+
+import com.ksoot.common.util.rest.SparseFieldsets;
+import java.util.Arrays;
+import java.util.Set;
+import org.apache.commons.lang3.ArrayUtils;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Serializes only the properties requested with the {@value SparseFieldsets#PARAM_FIELDS} request
+ * parameter, on any endpoint. Endpoints reading many records also declare the parameter, to read
+ * only the requested fields from the database.
+ */
+@RestControllerAdvice
+class SparseFieldsetsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+  @Override
+  protected void beforeBodyWriteInternal(
+      final MappingJacksonValue bodyContainer,
+      final MediaType contentType,
+      final MethodParameter returnType,
+      final ServerHttpRequest request,
+      final ServerHttpResponse response) {
+    if (request instanceof ServletServerHttpRequest servletRequest) {
+      final String[] values = servletRequest.getServletRequest().getParameterValues(PARAM_FIELDS);
+      if (ArrayUtils.isNotEmpty(values)) {
+        final Set<String> fields = SparseFieldsets.of(Arrays.asList(values));
+        bodyContainer.setFilters(SparseFieldsets.filters(fields));
+      }
+    }
+  }
+}
@@ -1,14 +1,18 @@
 package com.ksoot.common.config.web;
 
 import com.ksoot.common.config.GeneralAutoConfiguration;
+import com.ksoot.common.util.rest.SparseFieldsets;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import java.util.List;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.lang.Nullable;
@@ -80,6 +84,12 @@ public class WebConfigurer implements ServletContextInitializer, WebMvcConfigure
     }
   }
 
+  // Models filtered by sparse fieldsets are serialized whole, unless filtered for the request
+  @Bean
+  Jackson2ObjectMapperBuilderCustomizer sparseFieldsetsCustomizer() {
+    return builder -> builder.filters(SparseFieldsets.filters(Set.of()));
+  }
+
   // @Override
   // public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
   // configurer.defaultContentType(MediaType.APPLICATION_JSON);
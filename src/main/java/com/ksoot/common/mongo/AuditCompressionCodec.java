@@ -0,0 +1,160 @@
+package com.ksoot.common.mongo;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.Binary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compression of large audited documents. When enabled, an {@link AuditEvent#getSource()} whose
+ * BSON exceeds <code>threshold-bytes</code> is stored deflate compressed in a BinData field,
+ * leaving only <code>_id</code> and version property in <code>source</code>, so audit history of a
+ * document can still be looked up by <code>source._id</code>.
+ *
+ * <p>Decompression is transparent, every {@link AuditEvent} read through {@link
+ * org.springframework.data.mongodb.core.MongoOperations} gets its full source back, irrespective of
+ * whether compression is enabled now.
+ */
+@Component
+public class AuditCompressionCodec implements AfterConvertCallback<AuditEvent> {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final Codec<Document> documentCodec;
+
+  private final AuditMetaData auditMetaData;
+
+  private final boolean enabled;
+
+  private final int thresholdBytes;
+
+  private final int level;
+
+  @Autowired
+  AuditCompressionCodec(
+      final MongoDatabaseFactory mongoDatabaseFactory,
+      final AuditMetaData auditMetaData,
+      final MongoAuditProperties mongoAuditProperties) {
+    this(
+        mongoDatabaseFactory.getCodecRegistry(),
+        auditMetaData,
+        mongoAuditProperties.getAuditing().getCompression());
+  }
+
+  AuditCompressionCodec(
+      final CodecRegistry codecRegistry,
+      final AuditMetaData auditMetaData,
+      final MongoAuditProperties.Compression compression) {
+    this.documentCodec = codecRegistry.get(Document.class);
+    this.auditMetaData = auditMetaData;
+    this.enabled = compression.isEnabled();
+    this.thresholdBytes = compression.getThresholdBytes();
+    this.level = compression.getLevel();
+  }
+
+  /**
+   * Compresses the source of given audit event, if compression is enabled and source is larger than
+   * the threshold.
+   *
+   * @param auditEvent Audit event, full or delta
+   * @return Audit event to be stored
+   */
+  public AuditEvent compress(final AuditEvent auditEvent) {
+    if (!this.enabled) {
+      return auditEvent;
+    }
+    final byte[] bson = this.encode(auditEvent.getSource());
+    if (bson.length <= this.thresholdBytes) {
+      return auditEvent;
+    }
+    final byte[] deflated = this.deflate(bson);
+    if (deflated.length >= bson.length) {
+      // Incompressible, e.g. already compressed binary content
+      return auditEvent;
+    }
+    final Document stub = new Document("_id", auditEvent.getSource().get("_id"));
+    this.auditMetaData
+        .getVersionProperty(auditEvent.getCollectionName())
+        .filter(auditEvent.getSource()::containsKey)
+        .ifPresent(
+            versionProperty ->
+                stub.put(versionProperty, auditEvent.getSource().get(versionProperty)));
+    return auditEvent.asCompressed(stub, new Binary(deflated));
+  }
+
+  public AuditEvent decompress(final AuditEvent auditEvent) {
+    return auditEvent.isCompressed()
+        ? auditEvent.asDecompressed(
+            this.decode(this.inflate(auditEvent.getCompressedSource().getData())))
+        : auditEvent;
+  }
+
+  @Override
+  public AuditEvent onAfterConvert(
+      final AuditEvent entity, final Document document, final String collection) {
+    return this.decompress(entity);
+  }
+
+  byte[] encode(final Document document) {
+    final BasicOutputBuffer buffer = new BasicOutputBuffer();
+    this.documentCodec.encode(
+        new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+    return buffer.toByteArray();
+  }
+
+  Document decode(final byte[] bson) {
+    return this.documentCodec.decode(
+        new BsonBinaryReader(ByteBuffer.wrap(bson)), DecoderContext.builder().build());
+  }
+
+  byte[] deflate(final byte[] bytes) {
+    final Deflater deflater = new Deflater(this.level);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      final ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 4);
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      while (!deflater.finished()) {
+        output.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return output.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  byte[] inflate(final byte[] bytes) {
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes);
+      final ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length * 4);
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      while (!inflater.finished()) {
+        final int inflated = inflater.inflate(buffer);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalStateException("Truncated compressed audit source");
+        }
+        output.write(buffer, 0, inflated);
+      }
+      return output.toByteArray();
+    } catch (final DataFormatException e) {
+      throw new IllegalStateException("Corrupt compressed audit source", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
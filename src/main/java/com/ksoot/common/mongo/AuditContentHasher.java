@@ -0,0 +1,233 @@
+package com.ksoot.common.mongo;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Content hashing of audited documents. When enabled, every audit revision stores a SHA-256 hash of
+ * the audited document excluding its version property, and a save whose hash equals the hash of the
+ * latest revision of the same document is not audited at all, as nothing but the version changed.
+ *
+ * <p>Hashes of recently audited documents are cached with their version. A cached hash is trusted
+ * only for the version right after it, otherwise the latest revision is read from the audit
+ * collection, as the document may have been saved meanwhile through another node.
+ */
+@Component
+public class AuditContentHasher {
+
+  private static final String ID = "_id";
+
+  private static final String ALGORITHM = "SHA-256";
+
+  private final MongoOperations mongoOperations;
+
+  private final Codec<Document> documentCodec;
+
+  private final AuditMetaData auditMetaData;
+
+  private final boolean enabled;
+
+  // Hash of latest audited revision of recently audited documents, with the version having it
+  private final Map<String, LatestHash> latestHashes;
+
+  @Autowired
+  AuditContentHasher(
+      final MongoOperations mongoOperations,
+      final MongoDatabaseFactory mongoDatabaseFactory,
+      final AuditMetaData auditMetaData,
+      final MongoAuditProperties mongoAuditProperties) {
+    this(
+        mongoOperations,
+        mongoDatabaseFactory.getCodecRegistry(),
+        auditMetaData,
+        mongoAuditProperties.getAuditing().getDeduplication());
+  }
+
+  AuditContentHasher(
+      final MongoOperations mongoOperations,
+      final CodecRegistry codecRegistry,
+      final AuditMetaData auditMetaData,
+      final MongoAuditProperties.Deduplication deduplication) {
+    this.mongoOperations = mongoOperations;
+    this.documentCodec = codecRegistry.get(Document.class);
+    this.auditMetaData = auditMetaData;
+    this.enabled = deduplication.isEnabled();
+    final int cacheSize = deduplication.getCacheSize();
+    this.latestHashes =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(final Map.Entry<String, LatestHash> eldest) {
+                return this.size() > cacheSize;
+              }
+            });
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Computes the content hash of given document, excluding the version property of given
+   * collection.
+   *
+   * @param collectionName Source collection name
+   * @param document Audited document
+   * @return Hex encoded hash, null if hashing is not enabled
+   */
+  public String hash(final String collectionName, final Document document) {
+    if (!this.enabled) {
+      return null;
+    }
+    Document content = document;
+    final String versionProperty =
+        this.auditMetaData.getVersionProperty(collectionName).orElse(null);
+    if (Objects.nonNull(versionProperty) && document.containsKey(versionProperty)) {
+      content = new Document(document);
+      content.remove(versionProperty);
+    }
+    final BasicOutputBuffer buffer = new BasicOutputBuffer();
+    this.documentCodec.encode(
+        new BsonBinaryWriter(buffer), content, EncoderContext.builder().build());
+    try {
+      return HexFormat.of()
+          .formatHex(MessageDigest.getInstance(ALGORITHM).digest(buffer.toByteArray()));
+    } catch (final NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Whether given document has the same content as the latest audited revision of it.
+   *
+   * @param collectionName Source collection name
+   * @param document Audited document
+   * @param hash Content hash of given document
+   * @return true if the document is unchanged and need not be audited
+   */
+  public boolean isUnchanged(
+      final String collectionName, final Document document, final String hash) {
+    if (!this.enabled || Objects.isNull(hash) || Objects.isNull(document.get(ID))) {
+      return false;
+    }
+    final Long version = this.version(collectionName, document);
+    if (Objects.nonNull(version) && version == 0) {
+      // Just created, so it has no audit history to compare with
+      return false;
+    }
+    final String key = key(collectionName, document.get(ID));
+    final LatestHash cached = this.latestHashes.get(key);
+    final String latestHash =
+        Objects.nonNull(cached) && Objects.nonNull(version) && cached.version() == version - 1
+            ? cached.hash()
+            : this.loadLatestHash(collectionName, document.get(ID));
+    final boolean unchanged = hash.equals(latestHash);
+    if (unchanged && Objects.nonNull(version)) {
+      // Not audited, but this version has the content of the latest revision
+      this.latestHashes.put(key, new LatestHash(version, hash));
+      this.evictOnRollback(key);
+    }
+    return unchanged;
+  }
+
+  /**
+   * Records the hash of given audit event as the latest of its document, once the event is stored.
+   *
+   * @param auditEvent Audit event stored
+   */
+  public void record(final AuditEvent auditEvent) {
+    if (!this.enabled) {
+      return;
+    }
+    final Object documentId = auditEvent.getSource().get(ID);
+    if (Objects.isNull(documentId)) {
+      return;
+    }
+    final String key = key(auditEvent.getCollectionName(), documentId);
+    final Long version = this.version(auditEvent.getCollectionName(), auditEvent.getSource());
+    if (auditEvent.getType() == AuditEvent.Type.DELETED
+        || Objects.isNull(auditEvent.getHash())
+        || Objects.isNull(version)) {
+      this.latestHashes.remove(key);
+    } else {
+      this.latestHashes.put(key, new LatestHash(version, auditEvent.getHash()));
+      this.evictOnRollback(key);
+    }
+  }
+
+  private Long version(final String collectionName, final Document document) {
+    return this.auditMetaData
+        .getVersionProperty(collectionName)
+        .map(document::get)
+        .filter(Number.class::isInstance)
+        .map(version -> ((Number) version).longValue())
+        .orElse(null);
+  }
+
+  // Latest revision is looked up in the latest audit partition only, an older one costs an audit
+  private String loadLatestHash(final String collectionName, final Object documentId) {
+    final List<String> auditCollectionNames =
+        this.auditMetaData.getAuditCollections(collectionName, null, null);
+    if (auditCollectionNames.isEmpty()) {
+      return null;
+    }
+    final Query query =
+        new Query(
+                Criteria.where("collection_name")
+                    .is(collectionName)
+                    .and("source._id")
+                    .is(documentId))
+            .with(Sort.by(Sort.Direction.DESC, "revision"))
+            .limit(1);
+    query.fields().include("type", "hash");
+    final Document latest =
+        this.mongoOperations.findOne(query, Document.class, auditCollectionNames.getLast());
+    return Objects.nonNull(latest)
+            && !AuditEvent.Type.DELETED.name().equals(latest.getString("type"))
+        ? latest.getString("hash")
+        : null;
+  }
+
+  private static String key(final String collectionName, final Object documentId) {
+    return collectionName + ":" + documentId;
+  }
+
+  // Cached hash must not outlive a rolled back transaction
+  private void evictOnRollback(final String key) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+              if (status != STATUS_COMMITTED) {
+                latestHashes.remove(key);
+              }
+            }
+          });
+    }
+  }
+
+  private record LatestHash(long version, String hash) {}
+}
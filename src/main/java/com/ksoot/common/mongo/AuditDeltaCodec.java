@@ -0,0 +1,324 @@
+package com.ksoot.common.mongo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Delta encoding of audit revisions. When enabled, a revision stores only the top level fields
+ * changed since the previous revision of the same document, elements appended to array fields and
+ * the names of removed fields. Every <code>snapshotInterval</code> revisions a full snapshot is
+ * stored again, which bounds the number of revisions to replay while reading. A delta is stored
+ * only against the version right before the audited one, otherwise a full snapshot is stored.
+ *
+ * <p>The <code>_id</code> and version property are kept in every delta, so revisions of a document
+ * can always be looked up by <code>source._id</code>. Deltas never span audit collections, so each
+ * monthly audit partition can be read, archived or dropped on its own.
+ */
+@Component
+public class AuditDeltaCodec {
+
+  private static final String ID = "_id";
+
+  private final MongoOperations mongoOperations;
+
+  private final AuditMetaData auditMetaData;
+
+  private final boolean enabled;
+
+  private final int snapshotInterval;
+
+  // Latest version of recently audited documents, to diff against without reading audit history
+  private final Map<String, LatestVersion> latestVersions;
+
+  AuditDeltaCodec(
+      final MongoOperations mongoOperations,
+      final AuditMetaData auditMetaData,
+      final MongoAuditProperties mongoAuditProperties) {
+    this.mongoOperations = mongoOperations;
+    this.auditMetaData = auditMetaData;
+    final MongoAuditProperties.Delta delta = mongoAuditProperties.getAuditing().getDelta();
+    this.enabled = delta.isEnabled();
+    this.snapshotInterval = delta.getSnapshotInterval();
+    final int cacheSize = delta.getCacheSize();
+    this.latestVersions =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(final Map.Entry<String, LatestVersion> eldest) {
+                return this.size() > cacheSize;
+              }
+            });
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Converts given audit event to a delta against the previous revision of the same document, if
+   * delta encoding is enabled and a full snapshot is not due.
+   *
+   * @param auditEvent Audit event with full source document
+   * @param auditCollectionName Audit collection name
+   * @return Audit event to be stored
+   */
+  public AuditEvent encode(final AuditEvent auditEvent, final String auditCollectionName) {
+    if (!this.enabled) {
+      return auditEvent;
+    }
+    final Object documentId = auditEvent.getSource().get(ID);
+    if (Objects.isNull(documentId)) {
+      return auditEvent;
+    }
+    // Keyed by audit collection too, so every audit partition starts with a snapshot
+    final String key =
+        auditCollectionName + ":" + auditEvent.getCollectionName() + ":" + documentId;
+    if (auditEvent.getType() == AuditEvent.Type.DELETED) {
+      this.latestVersions.remove(key);
+      return auditEvent;
+    }
+
+    LatestVersion previous = null;
+    if (auditEvent.getType() != AuditEvent.Type.CREATED) {
+      previous = this.latestVersions.get(key);
+      if (Objects.isNull(previous)) {
+        previous =
+            this.loadLatestVersion(auditEvent.getCollectionName(), documentId, auditCollectionName);
+      }
+    }
+    this.evictOnRollback(key);
+    if (Objects.isNull(previous)
+        || !this.isPreviousVersion(previous.document(), auditEvent)
+        || previous.deltas() + 1 >= this.snapshotInterval) {
+      this.latestVersions.put(key, new LatestVersion(auditEvent.getSource(), 0));
+      return auditEvent;
+    } else {
+      this.latestVersions.put(
+          key, new LatestVersion(auditEvent.getSource(), previous.deltas() + 1));
+      return this.diff(previous.document(), auditEvent);
+    }
+  }
+
+  /**
+   * Replaces delta revisions in given audit events with full documents, reading the revisions
+   * required to rebuild them from given audit collection.
+   *
+   * @param auditEvents Audit events, as read from audit collection
+   * @param auditCollectionName Audit collection name
+   * @return Audit events with full source documents, in same order
+   */
+  public List<AuditEvent> decode(
+      final List<AuditEvent> auditEvents, final String auditCollectionName) {
+    if (auditEvents.stream().noneMatch(AuditEvent::isDelta)) {
+      return auditEvents;
+    }
+    final Map<String, List<AuditEvent>> deltasByDocument =
+        auditEvents.stream()
+            .filter(AuditEvent::isDelta)
+            .collect(
+                Collectors.groupingBy(
+                    auditEvent ->
+                        auditEvent.getCollectionName() + ":" + auditEvent.getSource().get(ID)));
+    final Map<String, NavigableMap<Long, Document>> versionsByDocument =
+        deltasByDocument.entrySet().stream()
+            .collect(
+                Collectors.toMap(
+                    Map.Entry::getKey,
+                    entry -> {
+                      final List<AuditEvent> deltas = entry.getValue();
+                      final AuditEvent first = deltas.get(0);
+                      return this.loadVersions(
+                          first.getCollectionName(),
+                          first.getSource().get(ID),
+                          auditCollectionName,
+                          deltas.stream().mapToLong(AuditEvent::getRevision).min().getAsLong(),
+                          deltas.stream().mapToLong(AuditEvent::getRevision).max().getAsLong());
+                    }));
+    return auditEvents.stream()
+        .map(
+            auditEvent -> {
+              if (!auditEvent.isDelta()) {
+                return auditEvent;
+              }
+              final Document source =
+                  versionsByDocument
+                      .get(auditEvent.getCollectionName() + ":" + auditEvent.getSource().get(ID))
+                      .get(auditEvent.getRevision());
+              // Incomplete history, e.g. snapshot removed. Return the delta as is
+              return Objects.nonNull(source) ? auditEvent.withSource(source) : auditEvent;
+            })
+        .toList();
+  }
+
+  // Cached or loaded version may be stale, e.g. written meanwhile by another node or still queued
+  // for asynchronous write. A delta against it would describe a wrong transition
+  private boolean isPreviousVersion(final Document previous, final AuditEvent auditEvent) {
+    return this.auditMetaData
+        .getVersionProperty(auditEvent.getCollectionName())
+        .map(
+            versionProperty ->
+                previous.get(versionProperty) instanceof Number previousVersion
+                    && auditEvent.getSource().get(versionProperty) instanceof Number version
+                    && previousVersion.longValue() == version.longValue() - 1)
+        .orElse(false);
+  }
+
+  private AuditEvent diff(final Document previous, final AuditEvent auditEvent) {
+    final Document current = auditEvent.getSource();
+    final Document changed = new Document(ID, current.get(ID));
+    this.auditMetaData
+        .getVersionProperty(auditEvent.getCollectionName())
+        .filter(current::containsKey)
+        .ifPresent(versionProperty -> changed.put(versionProperty, current.get(versionProperty)));
+    final Document appended = new Document();
+    for (final Map.Entry<String, Object> field : current.entrySet()) {
+      final String name = field.getKey();
+      final Object value = field.getValue();
+      if (changed.containsKey(name)) {
+        continue;
+      }
+      if (!previous.containsKey(name)) {
+        changed.put(name, value);
+      } else if (!Objects.equals(previous.get(name), value)) {
+        if (previous.get(name) instanceof List<?> previousElements
+            && value instanceof List<?> elements
+            && elements.size() > previousElements.size()
+            && elements.subList(0, previousElements.size()).equals(previousElements)) {
+          appended.put(
+              name, new ArrayList<>(elements.subList(previousElements.size(), elements.size())));
+        } else {
+          changed.put(name, value);
+        }
+      }
+    }
+    final List<String> unset =
+        previous.keySet().stream().filter(name -> !current.containsKey(name)).toList();
+    return auditEvent.asDelta(changed, unset, appended);
+  }
+
+  private static Document apply(final Document previous, final AuditEvent delta) {
+    final Document document = new Document(previous);
+    if (Objects.nonNull(delta.getUnset())) {
+      delta.getUnset().forEach(document::remove);
+    }
+    document.putAll(delta.getSource());
+    if (Objects.nonNull(delta.getAppended())) {
+      delta
+          .getAppended()
+          .forEach(
+              (name, elements) -> {
+                final List<Object> list = new ArrayList<>((List<?>) previous.get(name));
+                list.addAll((List<?>) elements);
+                document.put(name, list);
+              });
+    }
+    return document;
+  }
+
+  private LatestVersion loadLatestVersion(
+      final String collectionName, final Object documentId, final String auditCollectionName) {
+    final List<AuditEvent> history =
+        this.loadHistory(
+            collectionName, documentId, auditCollectionName, Long.MAX_VALUE, Long.MAX_VALUE);
+    if (history.isEmpty() || history.getLast().getType() == AuditEvent.Type.DELETED) {
+      return null;
+    }
+    final NavigableMap<Long, Document> versions = replay(history);
+    final int deltas = (int) history.stream().filter(AuditEvent::isDelta).count();
+    return new LatestVersion(versions.lastEntry().getValue(), deltas);
+  }
+
+  private NavigableMap<Long, Document> loadVersions(
+      final String collectionName,
+      final Object documentId,
+      final String auditCollectionName,
+      final long fromRevision,
+      final long tillRevision) {
+    return replay(
+        this.loadHistory(
+            collectionName, documentId, auditCollectionName, fromRevision, tillRevision));
+  }
+
+  // Latest full snapshot at or before fromRevision, followed by all revisions till tillRevision
+  private List<AuditEvent> loadHistory(
+      final String collectionName,
+      final Object documentId,
+      final String auditCollectionName,
+      final long fromRevision,
+      final long tillRevision) {
+    final Query snapshotQuery =
+        new Query(
+                documentCriteria(collectionName, documentId)
+                    .and("delta")
+                    .ne(true)
+                    .and("revision")
+                    .lte(fromRevision))
+            .with(Sort.by(Sort.Direction.DESC, "revision"))
+            .limit(1);
+    final AuditEvent snapshot =
+        this.mongoOperations.findOne(snapshotQuery, AuditEvent.class, auditCollectionName);
+    if (Objects.isNull(snapshot)) {
+      return List.of();
+    }
+    final Query deltasQuery =
+        new Query(
+                documentCriteria(collectionName, documentId)
+                    .and("revision")
+                    .gt(snapshot.getRevision())
+                    .lte(tillRevision))
+            .with(Sort.by(Sort.Direction.ASC, "revision"));
+    final List<AuditEvent> history = new ArrayList<>();
+    history.add(snapshot);
+    history.addAll(this.mongoOperations.find(deltasQuery, AuditEvent.class, auditCollectionName));
+    return history;
+  }
+
+  private static NavigableMap<Long, Document> replay(final List<AuditEvent> history) {
+    final NavigableMap<Long, Document> versions = new TreeMap<>();
+    Document current = null;
+    for (final AuditEvent auditEvent : history) {
+      current =
+          auditEvent.isDelta() && Objects.nonNull(current)
+              ? apply(current, auditEvent)
+              : auditEvent.getSource();
+      versions.put(auditEvent.getRevision(), current);
+    }
+    return versions;
+  }
+
+  private static Criteria documentCriteria(final String collectionName, final Object documentId) {
+    return Criteria.where("collection_name").is(collectionName).and("source._id").is(documentId);
+  }
+
+  // Cached version must not outlive a rolled back transaction
+  private void evictOnRollback(final String key) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+              if (status != STATUS_COMMITTED) {
+                latestVersions.remove(key);
+              }
+            }
+          });
+    }
+  }
+
+  private record LatestVersion(Document document, int deltas) {}
+}
@@ -1,5 +1,6 @@
 package com.ksoot.common.mongo;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.ksoot.common.util.DateTimeUtils;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -7,12 +8,14 @@ import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Positive;
 import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.bson.Document;
+import org.bson.types.Binary;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Immutable;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -54,6 +57,43 @@ public class AuditEvent {
   @Field(name = "source")
   private Document source;
 
+  /**
+   * Whether {@link #source} holds only the fields changed since the previous revision of the same
+   * document, instead of the full document.
+   */
+  @JsonIgnore
+  @Field(name = "delta")
+  private Boolean delta;
+
+  /** Fields removed since the previous revision, set only on delta revisions. */
+  @JsonIgnore
+  @Field(name = "unset")
+  private List<String> unset;
+
+  /**
+   * Elements appended to array fields since the previous revision, by field name. Set only on delta
+   * revisions.
+   */
+  @JsonIgnore
+  @Field(name = "appended")
+  private Document appended;
+
+  /**
+   * Deflate compressed BSON of {@link #source}, set only if source exceeded the compression
+   * threshold. {@link #source} then holds only <code>_id</code> and version property.
+   */
+  @JsonIgnore
+  @Field(name = "compressed_source")
+  private Binary compressedSource;
+
+  /**
+   * SHA-256 hash of the audited document excluding its version property, set only if audit
+   * deduplication is enabled. Computed on the full document, even if {@link #source} is a delta.
+   */
+  @JsonIgnore
+  @Field(name = "hash")
+  private String hash;
+
   public static AuditEvent of(
       final Type type,
       final Long timestamp,
@@ -68,14 +108,93 @@ public class AuditEvent {
         revision,
         type,
         collectionName,
-        source);
+        source,
+        null,
+        null,
+        null,
+        null,
+        null);
+  }
+
+  public boolean isDelta() {
+    return Boolean.TRUE.equals(this.delta);
+  }
+
+  AuditEvent asDelta(final Document source, final List<String> unset, final Document appended) {
+    return new AuditEvent(
+        this.id,
+        this.datetime,
+        this.actor,
+        this.revision,
+        this.type,
+        this.collectionName,
+        source,
+        true,
+        unset.isEmpty() ? null : unset,
+        appended.isEmpty() ? null : appended,
+        null,
+        this.hash);
+  }
+
+  AuditEvent withSource(final Document source) {
+    return new AuditEvent(
+        this.id,
+        this.datetime,
+        this.actor,
+        this.revision,
+        this.type,
+        this.collectionName,
+        source,
+        null,
+        null,
+        null,
+        null,
+        this.hash);
+  }
+
+  public boolean isCompressed() {
+    return Objects.nonNull(this.compressedSource);
+  }
+
+  AuditEvent asCompressed(final Document stub, final Binary compressedSource) {
+    return new AuditEvent(
+        this.id,
+        this.datetime,
+        this.actor,
+        this.revision,
+        this.type,
+        this.collectionName,
+        stub,
+        this.delta,
+        this.unset,
+        this.appended,
+        compressedSource,
+        this.hash);
+  }
+
+  AuditEvent asDecompressed(final Document source) {
+    return new AuditEvent(
+        this.id,
+        this.datetime,
+        this.actor,
+        this.revision,
+        this.type,
+        this.collectionName,
+        source,
+        this.delta,
+        this.unset,
+        this.appended,
+        null,
+        this.hash);
   }
 
   public static AuditEvent ofSaveEvent(
       final AfterSaveEvent<?> event,
+      final Document source,
       final Long revision,
       final String auditUserName,
-      final Optional<String> versionProperty) {
+      final Optional<String> versionProperty,
+      final String hash) {
     Type type = Type.UPDATED;
     try {
       Long version =
@@ -86,13 +205,19 @@ public class AuditEvent {
     } catch (final ClassCastException e) {
       // ignore
     }
-    return of(
-        type,
-        event.getTimestamp(),
+    return new AuditEvent(
+        null,
+        Instant.ofEpochMilli(event.getTimestamp()).atOffset(DateTimeUtils.SYSTEM_OFFSET_ID),
+        auditUserName,
         revision,
+        type,
         event.getCollectionName(),
-        event.getDocument(),
-        auditUserName);
+        source,
+        null,
+        null,
+        null,
+        null,
+        hash);
   }
 
   public static AuditEvent ofDeleteEvent(
@@ -0,0 +1,512 @@
+package com.ksoot.common.mongo;
+
+import com.mongodb.MongoBulkWriteException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.SessionSynchronization;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Asynchronous write path of audit events written outside of a transaction. Events are appended to
+ * a memory-mapped local journal and a bounded in-process queue, and a background virtual thread
+ * drains the queue with large unordered bulk inserts, so the audited write does not wait for the
+ * audit insert.
+ *
+ * <p>The journal header holds an epoch and the offset up to which events are stored in MongoDB.
+ * Events past that offset are replayed on startup by the background thread, ahead of the events
+ * queued since and retrying until MongoDB is reachable, so events of a process that died before
+ * draining them are not lost and startup does not wait for MongoDB. Every event is journaled with
+ * its <code>_id</code> assigned, so an event replayed after it was stored already is skipped as a
+ * duplicate key. Once the queue is drained the journal is rewound and its epoch bumped, which
+ * invalidates the records left in it. The journal file is locked while open, as a journal shared by
+ * two instances would be replayed twice and overwritten by both.
+ *
+ * <p>The journal is not forced to disk per event, it survives the process dying, not the machine.
+ * When the queue or the journal is full, or the queue is stopping, {@link #offer(Document, String)}
+ * returns false and the caller writes the event itself. Stopping waits for the queue to be drained,
+ * up to a timeout.
+ */
+@Slf4j
+@Component
+public class AuditEventQueue implements InitializingBean, DisposableBean {
+
+  private static final String METRIC_QUEUE_DEPTH = "mongodb.audit.queue.depth";
+
+  private static final String METRIC_QUEUE_LAG = "mongodb.audit.queue.lag";
+
+  private static final String METRIC_QUEUE_OVERFLOW = "mongodb.audit.queue.overflow";
+
+  private static final String METRIC_JOURNAL_REPLAYED = "mongodb.audit.journal.replayed";
+
+  private static final String JOURNAL_FILE_NAME = "audit.journal";
+
+  // Epoch and drained offset
+  private static final int HEADER_SIZE = Long.BYTES * 2;
+
+  // Epoch, length and checksum of the record
+  private static final int RECORD_HEADER_SIZE = Long.BYTES + Integer.BYTES * 2;
+
+  private static final String COLLECTION = "collection";
+
+  private static final String EVENT = "event";
+
+  private static final int DUPLICATE_KEY = 11000;
+
+  private static final long RETRY_BACKOFF_MILLIS = 1000;
+
+  private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  private final MongoTemplate mongoTemplate;
+
+  private final Codec<Document> documentCodec;
+
+  private final MeterRegistry meterRegistry;
+
+  private final boolean enabled;
+
+  private final boolean withoutTransaction;
+
+  private final int batchSize;
+
+  private final Path journalFile;
+
+  private final int journalSize;
+
+  private final BlockingQueue<Entry> queue;
+
+  private final Counter overflowCounter;
+
+  private final Counter replayedCounter;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private FileChannel journalChannel;
+
+  private FileLock journalLock;
+
+  private MappedByteBuffer journal;
+
+  // Events left in the journal by the previous process, replayed before draining the queue
+  private List<Entry> pending = List.of();
+
+  // Guarded by lock
+  private long epoch;
+
+  // Guarded by lock
+  private int writeOffset;
+
+  // Guarded by lock
+  private int drainedOffset;
+
+  private volatile boolean running;
+
+  // Guarded by lock, set once stopping so no event is journaled after the journal is closed
+  private boolean stopping;
+
+  private Thread writer;
+
+  @Autowired
+  AuditEventQueue(
+      final MongoDatabaseFactory mongoDatabaseFactory,
+      final MongoOperations mongoOperations,
+      final MongoAuditProperties mongoAuditProperties,
+      @Nullable final MeterRegistry meterRegistry) {
+    this(
+        nonTransactional(mongoDatabaseFactory, mongoOperations),
+        mongoDatabaseFactory.getCodecRegistry(),
+        mongoAuditProperties.getAuditing().getAsync(),
+        mongoAuditProperties.getAuditing().isWithoutTransaction(),
+        Objects.nonNull(meterRegistry) ? meterRegistry : Metrics.globalRegistry);
+  }
+
+  AuditEventQueue(
+      final MongoTemplate mongoTemplate,
+      final CodecRegistry codecRegistry,
+      final MongoAuditProperties.Async async,
+      final boolean withoutTransaction,
+      final MeterRegistry meterRegistry) {
+    this.mongoTemplate = mongoTemplate;
+    this.documentCodec = codecRegistry.get(Document.class);
+    this.meterRegistry = meterRegistry;
+    this.enabled = async.isEnabled();
+    this.withoutTransaction = withoutTransaction;
+    this.batchSize = async.getBatchSize();
+    this.journalFile =
+        Path.of(async.getJournalDirectory(), JOURNAL_FILE_NAME).toAbsolutePath().normalize();
+    this.journalSize = async.getJournalSizeBytes();
+    this.queue = new ArrayBlockingQueue<>(async.getQueueCapacity());
+    this.overflowCounter =
+        Counter.builder(METRIC_QUEUE_OVERFLOW)
+            .description("Number of audit events written synchronously as the queue was full")
+            .register(meterRegistry);
+    this.replayedCounter =
+        Counter.builder(METRIC_JOURNAL_REPLAYED)
+            .description("Number of audit events replayed from the journal on startup")
+            .register(meterRegistry);
+  }
+
+  // Drained on a background thread, never part of a caller's transaction
+  private static MongoTemplate nonTransactional(
+      final MongoDatabaseFactory mongoDatabaseFactory, final MongoOperations mongoOperations) {
+    final MongoTemplate mongoTemplate =
+        new MongoTemplate(mongoDatabaseFactory, mongoOperations.getConverter());
+    mongoTemplate.setSessionSynchronization(SessionSynchronization.NEVER);
+    return mongoTemplate;
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!this.enabled) {
+      return;
+    }
+    if (!this.withoutTransaction) {
+      log.warn(
+          "Asynchronous auditing only applies to audit events written outside of a transaction,"
+              + " but 'application.mongodb.auditing.without-transaction' is false");
+    }
+    this.open();
+    this.start();
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    if (!this.enabled || Objects.isNull(this.writer)) {
+      return;
+    }
+    this.lock.lock();
+    try {
+      this.stopping = true;
+    } finally {
+      this.lock.unlock();
+    }
+    // Writer drains the queue before it ends, interrupted only if it takes too long
+    this.running = false;
+    this.writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+    if (this.writer.isAlive()) {
+      this.writer.interrupt();
+      this.writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+    // Whatever is still queued is replayed from the journal on next startup
+    this.journal.force();
+    this.close();
+  }
+
+  /**
+   * Journals given audit event and queues it to be inserted in the background.
+   *
+   * @param document Audit event converted to a document
+   * @param auditCollectionName Audit collection to insert into
+   * @return Whether the event is queued, false if the queue or journal is full or stopping
+   */
+  public boolean offer(final Document document, final String auditCollectionName) {
+    if (Objects.isNull(document.get("_id"))) {
+      document.put("_id", new ObjectId());
+    }
+    final ByteBuffer record =
+        new RawBsonDocument(
+                new Document(COLLECTION, auditCollectionName).append(EVENT, document),
+                this.documentCodec)
+            .getByteBuffer()
+            .asNIO();
+    this.lock.lock();
+    try {
+      if (this.stopping) {
+        return false;
+      }
+      final int recordSize = RECORD_HEADER_SIZE + record.remaining();
+      if (this.queue.remainingCapacity() == 0 || this.writeOffset + recordSize > this.journalSize) {
+        this.overflowCounter.increment();
+        return false;
+      }
+      this.append(record);
+      this.queue.add(new Entry(auditCollectionName, document, this.writeOffset, System.nanoTime()));
+      return true;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Maps and locks the journal and reads the events not stored in MongoDB, to be replayed by {@link
+   * #replay()}. New events are journaled after them.
+   */
+  void open() {
+    try {
+      Files.createDirectories(this.journalFile.getParent());
+      this.journalChannel =
+          FileChannel.open(
+              this.journalFile,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      this.journalLock = this.journalChannel.tryLock();
+      if (Objects.isNull(this.journalLock)) {
+        this.journalChannel.close();
+        throw new IllegalStateException(
+            "Audit journal: "
+                + this.journalFile
+                + " is locked by another instance, configure a distinct"
+                + " 'application.mongodb.auditing.async.journal-directory' per instance");
+      }
+      this.journal = this.journalChannel.map(FileChannel.MapMode.READ_WRITE, 0, this.journalSize);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Could not open Audit journal: " + this.journalFile, e);
+    }
+    log.info("Opened Audit journal: {}", this.journalFile);
+    this.lock.lock();
+    try {
+      this.epoch = this.journal.getLong(0);
+      this.drainedOffset = Math.max(HEADER_SIZE, (int) this.journal.getLong(Long.BYTES));
+      this.pending = this.read(this.drainedOffset);
+      if (this.pending.isEmpty()) {
+        this.rewind();
+      } else {
+        this.writeOffset = this.pending.getLast().endOffset();
+      }
+    } finally {
+      this.lock.unlock();
+    }
+    Gauge.builder(METRIC_QUEUE_DEPTH, this.queue, BlockingQueue::size)
+        .description("Number of audit events waiting to be inserted")
+        .register(this.meterRegistry);
+    Gauge.builder(METRIC_QUEUE_LAG, this, AuditEventQueue::lagMillis)
+        .description("Milliseconds the oldest queued audit event has been waiting")
+        .baseUnit("milliseconds")
+        .register(this.meterRegistry);
+  }
+
+  /**
+   * Inserts the events read from the journal by {@link #open()}, retrying while running.
+   *
+   * @return Whether all events are stored, false if stopped before
+   */
+  boolean replay() {
+    final List<Entry> entries = this.pending;
+    for (int from = 0; from < entries.size(); ) {
+      final List<Entry> batch =
+          entries.subList(from, Math.min(from + this.batchSize, entries.size()));
+      try {
+        this.insert(batch);
+        this.markDrained(batch.getLast().endOffset());
+        from += batch.size();
+      } catch (final DataAccessException e) {
+        if (!this.running) {
+          log.error("Could not replay Audit events from journal: {}", this.journalFile, e);
+          return false;
+        }
+        log.error("Could not replay {} Audit events from journal, retrying", batch.size(), e);
+        try {
+          Thread.sleep(RETRY_BACKOFF_MILLIS);
+        } catch (final InterruptedException interrupted) {
+          return false;
+        }
+      }
+    }
+    if (!entries.isEmpty()) {
+      this.replayedCounter.increment(entries.size());
+      log.info("Replayed {} Audit events from journal: {}", entries.size(), this.journalFile);
+    }
+    this.pending = List.of();
+    return true;
+  }
+
+  /** Unlocks and closes the journal, events not stored in MongoDB are left in it. */
+  void close() {
+    try {
+      this.journalLock.release();
+      this.journalChannel.close();
+    } catch (final IOException e) {
+      log.warn("Could not close Audit journal: " + this.journalFile, e);
+    }
+  }
+
+  private void start() {
+    this.running = true;
+    this.writer =
+        Thread.ofVirtual()
+            .name("audit-event-writer")
+            .start(
+                () -> {
+                  if (this.replay()) {
+                    this.drain();
+                  }
+                });
+  }
+
+  private void drain() {
+    final List<Entry> batch = new ArrayList<>(this.batchSize);
+    while (this.running || !this.queue.isEmpty()) {
+      try {
+        if (batch.isEmpty()) {
+          final Entry first = this.queue.poll(1, TimeUnit.SECONDS);
+          if (Objects.isNull(first)) {
+            continue;
+          }
+          batch.add(first);
+          this.queue.drainTo(batch, this.batchSize - 1);
+        }
+        this.insert(batch);
+        this.markDrained(batch.getLast().endOffset());
+        batch.clear();
+      } catch (final InterruptedException e) {
+        if (!this.running) {
+          // Not drained in time while stopping, left in the journal, replayed on next startup
+          log.error("Stopped with {} Audit events not inserted", batch.size() + this.queue.size());
+          return;
+        }
+      } catch (final DataAccessException e) {
+        if (!this.running) {
+          // Left in the journal, replayed on next startup
+          log.error("Could not insert {} Audit events while stopping", batch.size(), e);
+          return;
+        }
+        log.error("Could not insert {} Audit events, retrying", batch.size(), e);
+        try {
+          Thread.sleep(RETRY_BACKOFF_MILLIS);
+        } catch (final InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+
+  private void insert(final List<Entry> entries) {
+    final Map<String, List<Document>> documents = new LinkedHashMap<>();
+    for (final Entry entry : entries) {
+      documents
+          .computeIfAbsent(entry.auditCollectionName(), key -> new ArrayList<>())
+          .add(entry.document());
+    }
+    documents.forEach(
+        (auditCollectionName, auditEvents) -> {
+          try {
+            this.mongoTemplate
+                .bulkOps(BulkOperations.BulkMode.UNORDERED, auditCollectionName)
+                .insert(auditEvents)
+                .execute();
+          } catch (final DataAccessException e) {
+            // Events replayed after they were stored already
+            if (!(e.getCause() instanceof MongoBulkWriteException bulkWriteException)
+                || bulkWriteException.getWriteErrors().stream()
+                    .anyMatch(error -> error.getCode() != DUPLICATE_KEY)
+                || Objects.nonNull(bulkWriteException.getWriteConcernError())) {
+              throw e;
+            }
+          }
+        });
+  }
+
+  private void markDrained(final int offset) {
+    this.lock.lock();
+    try {
+      this.drainedOffset = offset;
+      if (this.drainedOffset == this.writeOffset) {
+        this.rewind();
+      } else {
+        this.journal.putLong(Long.BYTES, this.drainedOffset);
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  // Guarded by lock, only when all journaled events are stored
+  private void rewind() {
+    this.epoch++;
+    this.writeOffset = HEADER_SIZE;
+    this.drainedOffset = HEADER_SIZE;
+    this.journal.putLong(0, this.epoch);
+    this.journal.putLong(Long.BYTES, this.drainedOffset);
+  }
+
+  // Guarded by lock
+  private void append(final ByteBuffer record) {
+    final CRC32C checksum = new CRC32C();
+    checksum.update(record.duplicate());
+    final int length = record.remaining();
+    this.journal.putLong(this.writeOffset, this.epoch);
+    this.journal.putInt(this.writeOffset + Long.BYTES, length);
+    this.journal.putInt(this.writeOffset + Long.BYTES + Integer.BYTES, (int) checksum.getValue());
+    this.journal.put(this.writeOffset + RECORD_HEADER_SIZE, record, record.position(), length);
+    this.writeOffset += RECORD_HEADER_SIZE + length;
+  }
+
+  // Reads records of current epoch from given offset, up to the first torn or stale one
+  private List<Entry> read(final int fromOffset) {
+    final List<Entry> entries = new ArrayList<>();
+    int offset = fromOffset;
+    while (offset + RECORD_HEADER_SIZE <= this.journalSize
+        && this.journal.getLong(offset) == this.epoch) {
+      final int length = this.journal.getInt(offset + Long.BYTES);
+      if (length <= 0 || offset + RECORD_HEADER_SIZE + length > this.journalSize) {
+        break;
+      }
+      final byte[] bytes = new byte[length];
+      this.journal.get(offset + RECORD_HEADER_SIZE, bytes);
+      final CRC32C checksum = new CRC32C();
+      checksum.update(bytes);
+      if ((int) checksum.getValue() != this.journal.getInt(offset + Long.BYTES + Integer.BYTES)) {
+        break;
+      }
+      offset += RECORD_HEADER_SIZE + length;
+      final Document record = new RawBsonDocument(bytes).decode(this.documentCodec);
+      entries.add(
+          new Entry(
+              record.getString(COLLECTION),
+              record.get(EVENT, Document.class),
+              offset,
+              System.nanoTime()));
+    }
+    return entries;
+  }
+
+  private double lagMillis() {
+    final Entry oldest = this.queue.peek();
+    return Objects.isNull(oldest)
+        ? 0
+        : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedAt());
+  }
+
+  private record Entry(
+      String auditCollectionName, Document document, int endOffset, long enqueuedAt) {}
+}
@@ -0,0 +1,140 @@
+package com.ksoot.common.mongo;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Writes {@link AuditEvent}s to audit collections. Inside a MongoDB transaction the events are
+ * buffered and flushed just before commit, with one <code>insertMany</code> per audit collection,
+ * so a transaction touching multiple documents costs one audit round trip per audit collection
+ * instead of one per document. Outside of a transaction events are inserted right away, or handed
+ * to {@link AuditEventQueue} to be inserted in the background when asynchronous auditing is
+ * enabled.
+ */
+@Slf4j
+@Component
+public class AuditEventWriter {
+
+  private static final String METRIC_FLUSH_BATCH_SIZE = "mongodb.audit.flush.batch.size";
+
+  private static final String METRIC_FLUSH_LATENCY = "mongodb.audit.flush.latency";
+
+  private static final String TAG_AUDIT_COLLECTION = "audit_collection";
+
+  private final MongoOperations mongoOperations;
+
+  private final MongoDatabaseFactory mongoDatabaseFactory;
+
+  private final AuditEventQueue auditEventQueue;
+
+  private final MeterRegistry meterRegistry;
+
+  AuditEventWriter(
+      final MongoOperations mongoOperations,
+      final MongoDatabaseFactory mongoDatabaseFactory,
+      final AuditEventQueue auditEventQueue,
+      @Nullable final MeterRegistry meterRegistry) {
+    this.mongoOperations = mongoOperations;
+    this.mongoDatabaseFactory = mongoDatabaseFactory;
+    this.auditEventQueue = auditEventQueue;
+    this.meterRegistry = Objects.nonNull(meterRegistry) ? meterRegistry : Metrics.globalRegistry;
+  }
+
+  public void write(final AuditEvent auditEvent, final String auditCollectionName) {
+    if (this.isMongoTransactionActive()) {
+      this.currentBuffer().add(auditEvent, auditCollectionName);
+    } else if (!this.auditEventQueue.isEnabled()
+        || !this.enqueue(auditEvent, auditCollectionName)) {
+      this.mongoOperations.insert(auditEvent, auditCollectionName);
+    }
+  }
+
+  private boolean enqueue(final AuditEvent auditEvent, final String auditCollectionName) {
+    final Document document = new Document();
+    this.mongoOperations.getConverter().write(auditEvent, document);
+    return this.auditEventQueue.offer(document, auditCollectionName);
+  }
+
+  // Only buffer when the active transaction is the one managed by MongoTransactionManager
+  private boolean isMongoTransactionActive() {
+    return TransactionSynchronizationManager.isSynchronizationActive()
+        && TransactionSynchronizationManager.isActualTransactionActive()
+        && TransactionSynchronizationManager.hasResource(this.mongoDatabaseFactory);
+  }
+
+  private AuditEventBuffer currentBuffer() {
+    AuditEventBuffer buffer =
+        (AuditEventBuffer) TransactionSynchronizationManager.getResource(this);
+    if (Objects.isNull(buffer)) {
+      buffer = new AuditEventBuffer();
+      TransactionSynchronizationManager.bindResource(this, buffer);
+      TransactionSynchronizationManager.registerSynchronization(buffer);
+    }
+    return buffer;
+  }
+
+  private void flush(final String auditCollectionName, final List<AuditEvent> auditEvents) {
+    Timer.builder(METRIC_FLUSH_LATENCY)
+        .description("Time taken to flush buffered audit events of a transaction")
+        .tag(TAG_AUDIT_COLLECTION, auditCollectionName)
+        .register(this.meterRegistry)
+        .record(() -> this.mongoOperations.insert(auditEvents, auditCollectionName));
+    DistributionSummary.builder(METRIC_FLUSH_BATCH_SIZE)
+        .description("Number of audit events written per flush")
+        .tag(TAG_AUDIT_COLLECTION, auditCollectionName)
+        .register(this.meterRegistry)
+        .record(auditEvents.size());
+    log.debug("Flushed {} audit events to collection: {}", auditEvents.size(), auditCollectionName);
+  }
+
+  // Audit events of one transaction, grouped by audit collection in order of arrival
+  private final class AuditEventBuffer implements TransactionSynchronization {
+
+    private final Map<String, List<AuditEvent>> auditEvents = new LinkedHashMap<>();
+
+    private void add(final AuditEvent auditEvent, final String auditCollectionName) {
+      this.auditEvents
+          .computeIfAbsent(auditCollectionName, key -> new ArrayList<>())
+          .add(auditEvent);
+    }
+
+    @Override
+    public void beforeCommit(final boolean readOnly) {
+      // Transaction session is still bound here, so the inserts commit or rollback with it
+      this.auditEvents.forEach(AuditEventWriter.this::flush);
+      this.auditEvents.clear();
+    }
+
+    // Unbound while suspended, so a nested REQUIRES_NEW transaction buffers, and commits, its own
+    @Override
+    public void suspend() {
+      TransactionSynchronizationManager.unbindResourceIfPossible(AuditEventWriter.this);
+    }
+
+    @Override
+    public void resume() {
+      TransactionSynchronizationManager.bindResource(AuditEventWriter.this, this);
+    }
+
+    @Override
+    public void afterCompletion(final int status) {
+      this.auditEvents.clear();
+      TransactionSynchronizationManager.unbindResourceIfPossible(AuditEventWriter.this);
+    }
+  }
+}
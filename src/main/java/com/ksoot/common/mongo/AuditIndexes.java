@@ -0,0 +1,198 @@
+package com.ksoot.common.mongo;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.SessionSynchronization;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indexes of audit collections, following the equality-sort-range rule for the audit history
+ * queries. Every query has an equality on <code>collection_name</code>, optionally on <code>type
+ * </code> and <code>actor</code>, is sorted on <code>(datetime, revision)</code>, scrolling on
+ * <code>(datetime, revision, _id)</code>, and may have a range on <code>datetime</code>. So
+ * equality fields lead and <code>datetime, revision, _id</code> trail, which serves the sort and
+ * the range from the same index without an in memory sort.
+ *
+ * <p>Queries filtering on both <code>type</code> and <code>actor</code> use the <code>actor</code>
+ * index and filter <code>type</code> while fetching, actor being far more selective than type.
+ *
+ * <p>Point in time lookups of a document have equalities on <code>collection_name</code> and <code>
+ * source._id</code>, a range on <code>datetime</code> and read the latest revision in it, so are
+ * served by <code>(collection_name, source._id, datetime, revision)</code> reading a single index
+ * entry.
+ *
+ * <p>Indexes are reconciled against existing audit collections as well, creating missing ones,
+ * recreating ones whose definition changed and dropping the ones superseded by these. Collections
+ * and indexes are created outside of any active transaction, as audit partitions may need to be
+ * created while auditing a transactional write.
+ */
+@Slf4j
+@Component
+public class AuditIndexes {
+
+  // Single field indexes created earlier, now covered by the compound indexes
+  private static final Set<String> OBSOLETE_INDEXES = Set.of("idx_datetime", "idx_actor");
+
+  private static final String IDX_UNQ_REVISION = "idx_unq_revision";
+
+  private static final String IDX_REVISION = "idx_revision";
+
+  private static final String IDX_DOCUMENT_REVISION = "idx_document_revision";
+
+  private static final String IDX_UNQ_DOCUMENT_REVISION = "idx_unq_document_revision";
+
+  private static final List<Index> INDEXES =
+      List.of(
+          new Index()
+              .named("idx_collection_datetime_revision")
+              .on("collection_name", Sort.Direction.ASC)
+              .on("datetime", Sort.Direction.ASC)
+              .on("revision", Sort.Direction.ASC)
+              .on("_id", Sort.Direction.ASC),
+          new Index()
+              .named("idx_collection_type_datetime_revision")
+              .on("collection_name", Sort.Direction.ASC)
+              .on("type", Sort.Direction.ASC)
+              .on("datetime", Sort.Direction.ASC)
+              .on("revision", Sort.Direction.ASC)
+              .on("_id", Sort.Direction.ASC),
+          new Index()
+              .named("idx_collection_actor_datetime_revision")
+              .on("collection_name", Sort.Direction.ASC)
+              .on("actor", Sort.Direction.ASC)
+              .on("datetime", Sort.Direction.ASC)
+              .on("revision", Sort.Direction.ASC)
+              .on("_id", Sort.Direction.ASC),
+          new Index()
+              .named("idx_document_datetime_revision")
+              .on("collection_name", Sort.Direction.ASC)
+              .on("source._id", Sort.Direction.ASC)
+              .on("datetime", Sort.Direction.ASC)
+              .on("revision", Sort.Direction.ASC));
+
+  private final MongoTemplate mongoTemplate;
+
+  private final List<Index> indexes;
+
+  private final Set<String> obsoleteIndexes;
+
+  AuditIndexes(
+      final MongoDatabaseFactory mongoDatabaseFactory,
+      final MongoOperations mongoOperations,
+      final MongoAuditProperties mongoAuditProperties) {
+    // Deliberately not bound to the current transaction's session
+    this.mongoTemplate = new MongoTemplate(mongoDatabaseFactory, mongoOperations.getConverter());
+    this.mongoTemplate.setSessionSynchronization(SessionSynchronization.NEVER);
+    final boolean revisionPerDocument =
+        mongoAuditProperties.getAuditing().getRevisionScheme()
+            == MongoAuditProperties.RevisionScheme.DOCUMENT;
+    final Index revisionIndex =
+        new Index()
+            .named(revisionPerDocument ? IDX_REVISION : IDX_UNQ_REVISION)
+            .on("revision", Sort.Direction.ASC)
+            .on("collection_name", Sort.Direction.ASC);
+    final Index documentRevisionIndex =
+        new Index()
+            .named(revisionPerDocument ? IDX_UNQ_DOCUMENT_REVISION : IDX_DOCUMENT_REVISION)
+            .on("collection_name", Sort.Direction.ASC)
+            .on("source._id", Sort.Direction.ASC)
+            .on("revision", Sort.Direction.ASC);
+    if (revisionPerDocument) {
+      documentRevisionIndex.unique();
+    } else {
+      revisionIndex.unique();
+    }
+    this.indexes =
+        Stream.concat(INDEXES.stream(), Stream.of(revisionIndex, documentRevisionIndex)).toList();
+    // Revision indexes of the other revision scheme
+    final Set<String> obsoleteIndexes = new HashSet<>(OBSOLETE_INDEXES);
+    obsoleteIndexes.addAll(
+        revisionPerDocument
+            ? List.of(IDX_UNQ_REVISION, IDX_DOCUMENT_REVISION)
+            : List.of(IDX_REVISION, IDX_UNQ_DOCUMENT_REVISION));
+    this.obsoleteIndexes = Set.copyOf(obsoleteIndexes);
+  }
+
+  /**
+   * Creates given audit collection if it does not exist, and reconciles its indexes.
+   *
+   * @param auditCollectionName Audit collection name
+   */
+  public void ensureCollection(final String auditCollectionName) {
+    if (!this.mongoTemplate.collectionExists(auditCollectionName)) {
+      try {
+        this.mongoTemplate.createCollection(auditCollectionName);
+        log.info("Created Audit collection: " + auditCollectionName);
+      } catch (final DataAccessException e) {
+        // Created concurrently by another node, NamespaceExists
+        if (!this.mongoTemplate.collectionExists(auditCollectionName)) {
+          throw e;
+        }
+      }
+    }
+    this.reconcile(auditCollectionName);
+  }
+
+  /**
+   * Brings indexes of given audit collection in line with the definitions here. Indexes not managed
+   * here, e.g. created manually, are left untouched.
+   *
+   * @param auditCollectionName Audit collection name
+   */
+  public void reconcile(final String auditCollectionName) {
+    final IndexOperations indexOperations = this.mongoTemplate.indexOps(auditCollectionName);
+    final Map<String, IndexInfo> existing =
+        indexOperations.getIndexInfo().stream()
+            .collect(Collectors.toMap(IndexInfo::getName, Function.identity()));
+
+    for (final String indexName : this.obsoleteIndexes) {
+      if (existing.containsKey(indexName)) {
+        indexOperations.dropIndex(indexName);
+        log.info(
+            "Dropped obsolete index: {} of Audit collection: {}", indexName, auditCollectionName);
+      }
+    }
+    for (final Index index : this.indexes) {
+      final String indexName = (String) index.getIndexOptions().get("name");
+      final IndexInfo indexInfo = existing.get(indexName);
+      if (Objects.nonNull(indexInfo) && matches(index, indexInfo)) {
+        continue;
+      }
+      if (Objects.nonNull(indexInfo)) {
+        indexOperations.dropIndex(indexName);
+        log.info(
+            "Dropped changed index: {} of Audit collection: {}", indexName, auditCollectionName);
+      }
+      indexOperations.ensureIndex(index);
+      log.info("Created index: {} on Audit collection: {}", indexName, auditCollectionName);
+    }
+  }
+
+  private static boolean matches(final Index index, final IndexInfo indexInfo) {
+    final Document keys = new Document();
+    indexInfo
+        .getIndexFields()
+        .forEach(
+            field ->
+                keys.put(field.getKey(), field.getDirection() == Sort.Direction.DESC ? -1 : 1));
+    // Key order matters for an index, Document equality ignores it
+    return List.copyOf(keys.entrySet()).equals(List.copyOf(index.getIndexKeys().entrySet()))
+        && indexInfo.isUnique() == index.getIndexOptions().containsKey("unique");
+  }
+}
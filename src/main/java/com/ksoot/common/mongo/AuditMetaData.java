@@ -1,45 +1,217 @@
 package com.ksoot.common.mongo;
 
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
-import lombok.AllArgsConstructor;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import org.bson.Document;
 import org.springframework.stereotype.Component;
-import org.springframework.util.ConcurrentReferenceHashMap;
 
+/**
+ * Audit metadata of audited source collections, by source collection name. Populated once at
+ * startup and then frozen, so the lookup done for every MongoDB lifecycle event is a plain read of
+ * an immutable map, and entries can never be lost.
+ */
 @Component
 public class AuditMetaData {
 
-  private final Map<String, Metadata> metadata;
+  // Partitions are monthly in UTC, so every node routes an audit event to the same partition
+  static final DateTimeFormatter PARTITION_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+  // Mutable only till frozen, safely published to all threads by the volatile write in freeze()
+  private volatile Map<String, Metadata> metadata;
+
+  private volatile boolean frozen;
 
   AuditMetaData() {
-    this.metadata = new ConcurrentReferenceHashMap<>();
+    this.metadata = new HashMap<>();
   }
 
-  public void put(final String collectionName, final Metadata metadata) {
+  public synchronized void put(final String collectionName, final Metadata metadata) {
+    if (this.frozen) {
+      throw new IllegalStateException(
+          "Audit metadata is frozen, can not add collection: " + collectionName);
+    }
     this.metadata.put(collectionName, metadata);
   }
 
+  /** Makes the audit metadata immutable, to be called once all audited collections are put. */
+  public synchronized void freeze() {
+    if (!this.frozen) {
+      this.metadata = Map.copyOf(this.metadata);
+      this.frozen = true;
+    }
+  }
+
+  public boolean isFrozen() {
+    return this.frozen;
+  }
+
+  /**
+   * Gets the audit collection name of given source collection. In case of partitioned auditing it
+   * is the name partition names are derived from, not a collection itself.
+   */
   public Optional<String> getAuditCollection(final String collectionName) {
     return this.metadata.containsKey(collectionName)
         ? Optional.of(this.metadata.get(collectionName).auditCollectionName)
         : Optional.empty();
   }
 
+  /**
+   * Gets the audit collection to store an audit event of given source collection at given datetime,
+   * i.e. the monthly partition in case of partitioned auditing.
+   */
+  public Optional<String> getAuditCollection(
+      final String collectionName, final OffsetDateTime datetime) {
+    return this.metadata.containsKey(collectionName)
+        ? Optional.of(this.metadata.get(collectionName).auditCollectionName(datetime))
+        : Optional.empty();
+  }
+
+  /**
+   * Gets the existing audit collections of given source collection overlapping given datetime
+   * range, in chronological order.
+   *
+   * @param collectionName Source collection name
+   * @param fromDateTime From datetime, inclusive. Null for no lower bound
+   * @param tillDateTime Till datetime, inclusive. Null for no upper bound
+   * @return Audit collection names, empty if no partition overlaps given range
+   */
+  public List<String> getAuditCollections(
+      final String collectionName,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime) {
+    final Metadata collectionMetadata = this.metadata.get(collectionName);
+    if (Objects.isNull(collectionMetadata)) {
+      return List.of();
+    }
+    if (!collectionMetadata.partitioned) {
+      return List.of(collectionMetadata.auditCollectionName);
+    }
+    NavigableSet<YearMonth> partitions = collectionMetadata.partitions;
+    if (Objects.nonNull(fromDateTime)) {
+      partitions = partitions.tailSet(partitionOf(fromDateTime), true);
+    }
+    if (Objects.nonNull(tillDateTime)) {
+      partitions = partitions.headSet(partitionOf(tillDateTime), true);
+    }
+    return partitions.stream()
+        .map(month -> partitionName(collectionMetadata.auditCollectionName, month))
+        .toList();
+  }
+
   public Optional<String> getVersionProperty(final String collectionName) {
     return this.metadata.containsKey(collectionName)
         ? Optional.ofNullable(this.metadata.get(collectionName).versionProperty)
         : Optional.empty();
   }
 
+  /**
+   * Projects given audited document of given source collection to the fields to audit.
+   *
+   * @return Projected copy of the document, or given document itself if all fields are audited
+   */
+  public Document project(final String collectionName, final Document document) {
+    final Metadata collectionMetadata = this.metadata.get(collectionName);
+    return Objects.nonNull(collectionMetadata)
+        ? collectionMetadata.projection.apply(document)
+        : document;
+  }
+
+  public Set<String> getCollectionNames() {
+    return Set.copyOf(this.metadata.keySet());
+  }
+
   public boolean isPresent(final String collectionName) {
     return this.metadata.containsKey(collectionName);
   }
 
-  @AllArgsConstructor(staticName = "of")
+  public boolean isPartitioned(final String collectionName) {
+    return this.metadata.containsKey(collectionName)
+        && this.metadata.get(collectionName).partitioned;
+  }
+
+  /** Gets the months of existing partitions of given source collection, in chronological order. */
+  public NavigableSet<YearMonth> getPartitions(final String collectionName) {
+    return this.metadata.containsKey(collectionName)
+        ? Collections.unmodifiableNavigableSet(this.metadata.get(collectionName).partitions)
+        : Collections.emptyNavigableSet();
+  }
+
+  public boolean hasPartition(final String collectionName, final YearMonth month) {
+    return this.metadata.containsKey(collectionName)
+        && this.metadata.get(collectionName).partitions.contains(month);
+  }
+
+  public void addPartition(final String collectionName, final YearMonth month) {
+    this.metadata.get(collectionName).partitions.add(month);
+  }
+
+  public void removePartition(final String collectionName, final YearMonth month) {
+    this.metadata.get(collectionName).partitions.remove(month);
+  }
+
+  public static YearMonth partitionOf(final OffsetDateTime datetime) {
+    return YearMonth.from(datetime.atZoneSameInstant(ZoneOffset.UTC));
+  }
+
+  public static String partitionName(final String auditCollectionName, final YearMonth month) {
+    return auditCollectionName + "_" + PARTITION_SUFFIX_FORMAT.format(month);
+  }
+
   public static class Metadata {
 
-    private String auditCollectionName;
+    private final String auditCollectionName;
+
+    private final String versionProperty;
+
+    private final boolean partitioned;
+
+    private final AuditProjection projection;
+
+    private final NavigableSet<YearMonth> partitions = new ConcurrentSkipListSet<>();
+
+    private Metadata(
+        final String auditCollectionName,
+        final String versionProperty,
+        final boolean partitioned,
+        final AuditProjection projection) {
+      this.auditCollectionName = auditCollectionName;
+      this.versionProperty = versionProperty;
+      this.partitioned = partitioned;
+      this.projection = projection;
+    }
+
+    public static Metadata of(final String auditCollectionName, final String versionProperty) {
+      return new Metadata(auditCollectionName, versionProperty, false, AuditProjection.NONE);
+    }
+
+    public static Metadata of(
+        final String auditCollectionName, final String versionProperty, final boolean partitioned) {
+      return new Metadata(auditCollectionName, versionProperty, partitioned, AuditProjection.NONE);
+    }
+
+    public static Metadata of(
+        final String auditCollectionName,
+        final String versionProperty,
+        final boolean partitioned,
+        final AuditProjection projection) {
+      return new Metadata(auditCollectionName, versionProperty, partitioned, projection);
+    }
 
-    private String versionProperty;
+    private String auditCollectionName(final OffsetDateTime datetime) {
+      return this.partitioned
+          ? partitionName(this.auditCollectionName, partitionOf(datetime))
+          : this.auditCollectionName;
+    }
   }
 }
@@ -0,0 +1,157 @@
+package com.ksoot.common.mongo;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.SessionSynchronization;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monthly partitions of audit collections. Keeps the partitions known to {@link AuditMetaData} in
+ * line with the database, creating the partition of a month on its first audit event, so the write
+ * path pays for it once a month only.
+ *
+ * <p>Partitions created or dropped by other nodes are picked up by reads, which list the audit
+ * collections again at most once per <code>refresh-interval</code>. Collections are listed outside
+ * of any active transaction, as listing collections is not allowed in a transaction and reads may
+ * be part of an audited transactional write.
+ */
+@Slf4j
+@Component
+public class AuditPartitions {
+
+  private final MongoTemplate mongoTemplate;
+
+  private final AuditMetaData auditMetaData;
+
+  private final AuditIndexes auditIndexes;
+
+  private final long refreshIntervalNanos;
+
+  // Last time partitions of each source collection were listed from the database
+  private final Map<String, Long> refreshedAt = new ConcurrentHashMap<>();
+
+  AuditPartitions(
+      final MongoDatabaseFactory mongoDatabaseFactory,
+      final MongoOperations mongoOperations,
+      final AuditMetaData auditMetaData,
+      final AuditIndexes auditIndexes,
+      final MongoAuditProperties mongoAuditProperties) {
+    // Deliberately not bound to the current transaction's session
+    this.mongoTemplate = new MongoTemplate(mongoDatabaseFactory, mongoOperations.getConverter());
+    this.mongoTemplate.setSessionSynchronization(SessionSynchronization.NEVER);
+    this.auditMetaData = auditMetaData;
+    this.auditIndexes = auditIndexes;
+    this.refreshIntervalNanos =
+        mongoAuditProperties.getAuditing().getPartition().getRefreshInterval().toNanos();
+  }
+
+  /**
+   * Gets the existing audit collections of given source collection overlapping given datetime
+   * range, in chronological order, including partitions created or dropped by other nodes since the
+   * last refresh.
+   *
+   * @see AuditMetaData#getAuditCollections(String, OffsetDateTime, OffsetDateTime)
+   */
+  public List<String> getAuditCollections(
+      final String collectionName,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime) {
+    if (this.auditMetaData.isPartitioned(collectionName)) {
+      this.refreshIfDue(collectionName);
+    }
+    return this.auditMetaData.getAuditCollections(collectionName, fromDateTime, tillDateTime);
+  }
+
+  /**
+   * Gets the audit collection to store an audit event of given source collection at given datetime,
+   * creating the partition if it does not exist yet.
+   *
+   * @param collectionName Source collection name
+   * @param datetime Audit event datetime
+   * @return Audit collection name
+   */
+  public String route(final String collectionName, final OffsetDateTime datetime) {
+    final String auditCollectionName =
+        this.auditMetaData.getAuditCollection(collectionName, datetime).get();
+    if (this.auditMetaData.isPartitioned(collectionName)) {
+      final YearMonth month = AuditMetaData.partitionOf(datetime);
+      if (!this.auditMetaData.hasPartition(collectionName, month)) {
+        this.auditIndexes.ensureCollection(auditCollectionName);
+        this.auditMetaData.addPartition(collectionName, month);
+      }
+    }
+    return auditCollectionName;
+  }
+
+  /**
+   * Registers the existing partitions of given source collection in {@link AuditMetaData},
+   * reconciling their indexes, and ensures the partition of current month exists.
+   *
+   * @param collectionName Source collection name, must be partitioned
+   */
+  public void discover(final String collectionName) {
+    this.listPartitions(collectionName)
+        .forEach(
+            (month, partitionName) -> {
+              this.auditIndexes.reconcile(partitionName);
+              this.auditMetaData.addPartition(collectionName, month);
+            });
+    this.refreshedAt.put(collectionName, System.nanoTime());
+    this.route(collectionName, OffsetDateTime.now(ZoneOffset.UTC));
+    log.info(
+        "Audit partitions of collection: {} are: {}",
+        collectionName,
+        this.auditMetaData.getPartitions(collectionName));
+  }
+
+  /**
+   * Replaces the partitions of given source collection known to {@link AuditMetaData} with the ones
+   * existing in the database, e.g. created or dropped by other nodes.
+   *
+   * @param collectionName Source collection name, must be partitioned
+   */
+  public void refresh(final String collectionName) {
+    final Map<YearMonth, String> existing = this.listPartitions(collectionName);
+    existing.keySet().forEach(month -> this.auditMetaData.addPartition(collectionName, month));
+    for (final YearMonth month : List.copyOf(this.auditMetaData.getPartitions(collectionName))) {
+      if (!existing.containsKey(month)) {
+        this.auditMetaData.removePartition(collectionName, month);
+      }
+    }
+    this.refreshedAt.put(collectionName, System.nanoTime());
+  }
+
+  private void refreshIfDue(final String collectionName) {
+    final Long refreshed = this.refreshedAt.get(collectionName);
+    if (Objects.isNull(refreshed) || System.nanoTime() - refreshed >= this.refreshIntervalNanos) {
+      this.refresh(collectionName);
+    }
+  }
+
+  private Map<YearMonth, String> listPartitions(final String collectionName) {
+    final String auditCollectionName = this.auditMetaData.getAuditCollection(collectionName).get();
+    final Pattern partitionPattern =
+        Pattern.compile(Pattern.quote(auditCollectionName) + "_(\\d{4}_\\d{2})");
+    final Map<YearMonth, String> partitions = new TreeMap<>();
+    for (final String name : this.mongoTemplate.getCollectionNames()) {
+      final Matcher matcher = partitionPattern.matcher(name);
+      if (matcher.matches()) {
+        partitions.put(
+            YearMonth.parse(matcher.group(1), AuditMetaData.PARTITION_SUFFIX_FORMAT), name);
+      }
+    }
+    return partitions;
+  }
+}
@@ -0,0 +1,129 @@
+package com.ksoot.common.mongo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.bson.Document;
+
+/**
+ * Fields of an audited document to store in audit events, as given by {@link
+ * Auditable#includeFields()} or {@link Auditable#excludeFields()}. Built once per audited
+ * collection at startup as a tree of field paths, so projecting a document is a walk over its
+ * fields.
+ *
+ * <p><code>_id</code> and the version property are always audited, as audit history lookups and
+ * revision numbering depend on them.
+ */
+public final class AuditProjection {
+
+  public static final AuditProjection NONE = new AuditProjection(null, false);
+
+  private static final String ID = "_id";
+
+  // Field name to nested fields, an empty map for a whole field
+  private final Map<String, Map<String, ?>> fields;
+
+  private final boolean inclusive;
+
+  private AuditProjection(final Map<String, Map<String, ?>> fields, final boolean inclusive) {
+    this.fields = fields;
+    this.inclusive = inclusive;
+  }
+
+  /**
+   * Creates projection of given MongoDB field paths, dot separated for nested fields.
+   *
+   * @param includeFields Fields to audit, all others are not audited
+   * @param excludeFields Fields not to audit, all others are audited
+   * @param versionProperty Version field name, null if none
+   * @return Projection, {@link #NONE} if no fields given
+   */
+  public static AuditProjection of(
+      final List<String> includeFields,
+      final List<String> excludeFields,
+      final String versionProperty) {
+    if (!includeFields.isEmpty() && !excludeFields.isEmpty()) {
+      throw new IllegalArgumentException(
+          "Only one of includeFields or excludeFields can be given, got: "
+              + includeFields
+              + " and "
+              + excludeFields);
+    }
+    if (includeFields.isEmpty() && excludeFields.isEmpty()) {
+      return NONE;
+    }
+    final boolean inclusive = !includeFields.isEmpty();
+    final Map<String, Map<String, ?>> fields = new HashMap<>();
+    for (final String path : inclusive ? includeFields : excludeFields) {
+      final String[] names = path.split("\\.");
+      if (!inclusive && (names[0].equals(ID) || names[0].equals(versionProperty))) {
+        throw new IllegalArgumentException("Field can not be excluded from audit: " + path);
+      }
+      add(fields, names, 0);
+    }
+    if (inclusive) {
+      fields.put(ID, Map.of());
+      if (Objects.nonNull(versionProperty)) {
+        fields.put(versionProperty, Map.of());
+      }
+    }
+    return new AuditProjection(fields, inclusive);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void add(
+      final Map<String, Map<String, ?>> fields, final String[] names, final int index) {
+    final Map<String, ?> existing = fields.get(names[index]);
+    if (Objects.nonNull(existing) && existing.isEmpty()) {
+      // Whole field given already
+      return;
+    }
+    if (index == names.length - 1) {
+      fields.put(names[index], Map.of());
+      return;
+    }
+    final Map<String, Map<String, ?>> nested =
+        Objects.nonNull(existing) ? (Map<String, Map<String, ?>>) existing : new HashMap<>();
+    fields.put(names[index], nested);
+    add(nested, names, index + 1);
+  }
+
+  public boolean isNone() {
+    return Objects.isNull(this.fields);
+  }
+
+  /**
+   * Projects given audited document, which is left as is.
+   *
+   * @param document Audited document
+   * @return Projected copy of the document, or given document itself if there is no projection
+   */
+  public Document apply(final Document document) {
+    return this.isNone() ? document : this.project(document, this.fields);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Document project(final Document document, final Map<String, Map<String, ?>> fields) {
+    final Document projected = new Document();
+    for (final Map.Entry<String, Object> field : document.entrySet()) {
+      final Map<String, Map<String, ?>> nested =
+          (Map<String, Map<String, ?>>) fields.get(field.getKey());
+      if (Objects.isNull(nested)) {
+        if (!this.inclusive) {
+          projected.put(field.getKey(), field.getValue());
+        }
+      } else if (nested.isEmpty()) {
+        if (this.inclusive) {
+          projected.put(field.getKey(), field.getValue());
+        }
+      } else if (field.getValue() instanceof Document nestedDocument) {
+        projected.put(field.getKey(), this.project(nestedDocument, nested));
+      } else if (!this.inclusive) {
+        // Not a document, nested fields to exclude do not exist
+        projected.put(field.getKey(), field.getValue());
+      }
+    }
+    return projected;
+  }
+}
@@ -0,0 +1,120 @@
+package com.ksoot.common.mongo;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_AUDIT_REVISION_SEQUENCE;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Revision number store for MongoDB Auditing. Keeps one counter document per audited collection and
+ * allocates revisions with an atomic <code>$inc</code> findAndModify, so the cost of getting the
+ * next revision does not depend on the size of the audit history.
+ *
+ * <p>Counters are updated outside of any active transaction, same as database sequences. A rolled
+ * back audit write leaves a gap in revision numbers, but concurrent writers never conflict on the
+ * counter document.
+ */
+@Component
+public class AuditRevisionSequence {
+
+  private static final String SEQUENCE_FIELD = "seq";
+
+  private final MongoDatabaseFactory mongoDatabaseFactory;
+
+  private final int blockSize;
+
+  private final Map<String, RevisionBlock> blocks;
+
+  AuditRevisionSequence(
+      final MongoDatabaseFactory mongoDatabaseFactory,
+      final MongoAuditProperties mongoAuditProperties) {
+    this.mongoDatabaseFactory = mongoDatabaseFactory;
+    this.blockSize = Math.max(1, mongoAuditProperties.getAuditing().getRevisionBlockSize());
+    this.blocks = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Gets the next revision for given source collection.
+   *
+   * @param collectionName Source collection name
+   * @return next revision number, starting from 1
+   */
+  public long next(final String collectionName) {
+    if (this.blockSize == 1) {
+      return this.increment(collectionName, 1);
+    }
+    return this.blocks.computeIfAbsent(collectionName, RevisionBlock::new).next();
+  }
+
+  /**
+   * Raises the counter of given source collection to at least given revision. Never lowers it, so
+   * it is safe to call on a live system.
+   *
+   * @param collectionName Source collection name
+   * @param revision Highest revision already used
+   */
+  public void seed(final String collectionName, final long revision) {
+    this.sequences()
+        .updateOne(
+            Filters.eq("_id", collectionName),
+            Updates.max(SEQUENCE_FIELD, revision),
+            new UpdateOptions().upsert(true));
+  }
+
+  private long increment(final String collectionName, final int count) {
+    final Document sequence =
+        this.sequences()
+            .findOneAndUpdate(
+                Filters.eq("_id", collectionName),
+                Updates.inc(SEQUENCE_FIELD, (long) count),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+    return Objects.requireNonNull(sequence).get(SEQUENCE_FIELD, Number.class).longValue();
+  }
+
+  private MongoCollection<Document> sequences() {
+    // Deliberately not bound to the current transaction's session
+    return this.mongoDatabaseFactory
+        .getMongoDatabase()
+        .getCollection(COLLECTION_AUDIT_REVISION_SEQUENCE);
+  }
+
+  // Range of revisions reserved by this node, handed out locally till exhausted
+  private final class RevisionBlock {
+
+    private final String collectionName;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long next = 1;
+
+    private long last = 0;
+
+    private RevisionBlock(final String collectionName) {
+      this.collectionName = collectionName;
+    }
+
+    private long next() {
+      this.lock.lock();
+      try {
+        if (this.next > this.last) {
+          this.last = increment(this.collectionName, blockSize);
+          this.next = this.last - blockSize + 1;
+        }
+        return this.next++;
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+}
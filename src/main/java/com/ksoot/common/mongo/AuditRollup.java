@@ -0,0 +1,34 @@
+package com.ksoot.common.mongo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.OffsetDateTime;
+
+/**
+ * Count of audit events of a source collection, type and actor in an hourly or daily bucket.
+ *
+ * @param bucket Start of the bucket, in UTC
+ */
+public record AuditRollup(
+    @Schema(description = "Source MongoDB Collection name", example = "states")
+        String collectionName,
+    @Schema(description = "Audit Event type", example = "UPDATED") AuditEvent.Type type,
+    @Schema(description = "Audit Username", example = "SYSTEM") String actor,
+    @Schema(description = "Start of the bucket, in UTC", example = "2023-12-20T13:00:00Z")
+        OffsetDateTime bucket,
+    @Schema(description = "Number of Audit Events in the bucket", example = "42") long count) {
+
+  public enum Granularity {
+    HOUR(AuditRollups.HOUR),
+    DAY(AuditRollups.DAY);
+
+    private final String field;
+
+    Granularity(final String field) {
+      this.field = field;
+    }
+
+    public String getField() {
+      return this.field;
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package com.ksoot.common.mongo;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.SessionSynchronization;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hourly counts of audit events per source collection, type and actor, maintained incrementally on
+ * the audit write path, so audit analytics read a few rollup documents instead of the audit events.
+ * Daily counts are summed from the hourly ones while reading.
+ *
+ * <p>Counts of a transaction are summed in memory and applied with one unordered bulk upsert after
+ * it commits, outside of it. Incrementing the same hourly bucket from concurrent transactions would
+ * otherwise make them fail with write conflicts. So counts of a transaction whose node dies right
+ * after commit are lost, acceptable for analytics.
+ */
+@Slf4j
+@Component
+public class AuditRollups {
+
+  public static final String COLLECTION_NAME = "collection_name";
+
+  public static final String TYPE = "type";
+
+  public static final String ACTOR = "actor";
+
+  public static final String HOUR = "hour";
+
+  public static final String DAY = "day";
+
+  public static final String COUNT = "count";
+
+  private final MongoTemplate mongoTemplate;
+
+  private final boolean enabled;
+
+  private final String rollupCollectionName;
+
+  AuditRollups(
+      final MongoDatabaseFactory mongoDatabaseFactory,
+      final MongoOperations mongoOperations,
+      final MongoAuditProperties mongoAuditProperties) {
+    // Deliberately not bound to the current transaction's session
+    this.mongoTemplate = new MongoTemplate(mongoDatabaseFactory, mongoOperations.getConverter());
+    this.mongoTemplate.setSessionSynchronization(SessionSynchronization.NEVER);
+    final MongoAuditProperties.Rollup rollup = mongoAuditProperties.getAuditing().getRollup();
+    this.enabled = rollup.isEnabled();
+    this.rollupCollectionName = rollup.getCollectionName();
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public String getRollupCollectionName() {
+    return this.rollupCollectionName;
+  }
+
+  /** Creates the rollup collection if it does not exist, with its unique bucket index. */
+  public void ensureCollection() {
+    if (!this.mongoTemplate.collectionExists(this.rollupCollectionName)) {
+      try {
+        this.mongoTemplate.createCollection(this.rollupCollectionName);
+        log.info("Created Audit rollup collection: " + this.rollupCollectionName);
+      } catch (final DataAccessException e) {
+        // Created concurrently by another node, NamespaceExists
+        if (!this.mongoTemplate.collectionExists(this.rollupCollectionName)) {
+          throw e;
+        }
+      }
+    }
+    // Leading hour serves range queries with or without other filters, unique for upserts
+    this.mongoTemplate
+        .indexOps(this.rollupCollectionName)
+        .ensureIndex(
+            new Index()
+                .named("idx_unq_hour_collection_type_actor")
+                .on(HOUR, Sort.Direction.ASC)
+                .on(COLLECTION_NAME, Sort.Direction.ASC)
+                .on(TYPE, Sort.Direction.ASC)
+                .on(ACTOR, Sort.Direction.ASC)
+                .unique());
+  }
+
+  /**
+   * Counts given audit event in its hourly bucket, once the current transaction commits or right
+   * away outside of a transaction.
+   *
+   * @param auditEvent Audit event stored
+   */
+  public void increment(final AuditEvent auditEvent) {
+    if (!this.enabled) {
+      return;
+    }
+    final Bucket bucket =
+        new Bucket(
+            auditEvent.getCollectionName(),
+            auditEvent.getType(),
+            auditEvent.getActor(),
+            hourOf(auditEvent.getDatetime()));
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      this.currentCounts().add(bucket);
+    } else {
+      try {
+        this.flush(Map.of(bucket, 1L));
+      } catch (final DataAccessException e) {
+        // Audited write is saved already, losing a count must not fail it
+        log.error("Could not update Audit rollup: " + bucket, e);
+      }
+    }
+  }
+
+  public static Date hourOf(final OffsetDateTime datetime) {
+    return Date.from(datetime.toInstant().truncatedTo(ChronoUnit.HOURS));
+  }
+
+  public static Date dayOf(final Instant instant) {
+    return Date.from(instant.truncatedTo(ChronoUnit.DAYS));
+  }
+
+  private BucketCounts currentCounts() {
+    BucketCounts counts = (BucketCounts) TransactionSynchronizationManager.getResource(this);
+    if (Objects.isNull(counts)) {
+      counts = new BucketCounts();
+      TransactionSynchronizationManager.bindResource(this, counts);
+      TransactionSynchronizationManager.registerSynchronization(counts);
+    }
+    return counts;
+  }
+
+  private void flush(final Map<Bucket, Long> counts) {
+    final BulkOperations bulkOperations =
+        this.mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, this.rollupCollectionName);
+    counts.forEach(
+        (bucket, count) ->
+            bulkOperations.upsert(
+                new Query(
+                    Criteria.where(HOUR)
+                        .is(bucket.hour())
+                        .and(COLLECTION_NAME)
+                        .is(bucket.collectionName())
+                        .and(TYPE)
+                        .is(bucket.type().name())
+                        .and(ACTOR)
+                        .is(bucket.actor())),
+                new Update().inc(COUNT, count).setOnInsert(DAY, dayOf(bucket.hour().toInstant()))));
+    bulkOperations.execute();
+  }
+
+  private record Bucket(String collectionName, AuditEvent.Type type, String actor, Date hour) {}
+
+  // Counts of one transaction by bucket, applied after commit
+  private final class BucketCounts implements TransactionSynchronization {
+
+    private final Map<Bucket, Long> counts = new LinkedHashMap<>();
+
+    private void add(final Bucket bucket) {
+      this.counts.merge(bucket, 1L, Long::sum);
+    }
+
+    @Override
+    public void suspend() {
+      TransactionSynchronizationManager.unbindResourceIfPossible(AuditRollups.this);
+    }
+
+    @Override
+    public void resume() {
+      TransactionSynchronizationManager.bindResource(AuditRollups.this, this);
+    }
+
+    @Override
+    public void afterCommit() {
+      try {
+        AuditRollups.this.flush(this.counts);
+      } catch (final DataAccessException e) {
+        // Transaction is committed already, losing a few counts must not fail it
+        log.error("Could not update Audit rollups: " + this.counts, e);
+      }
+    }
+
+    @Override
+    public void afterCompletion(final int status) {
+      this.counts.clear();
+      TransactionSynchronizationManager.unbindResourceIfPossible(AuditRollups.this);
+    }
+  }
+}
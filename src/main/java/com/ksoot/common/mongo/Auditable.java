@@ -12,7 +12,16 @@ public @interface Auditable {
 
   String name() default "";
 
-  String[] include() default {};
+  /**
+   * Only these fields are audited, besides <code>_id</code> and version. Property or MongoDB field
+   * names, dot separated for fields of embedded documents. Can not be given with {@link
+   * #excludeFields()}.
+   */
+  String[] includeFields() default {};
 
-  String[] exclude() default {};
+  /**
+   * These fields are not audited, e.g. large reference arrays. Property or MongoDB field names, dot
+   * separated for fields of embedded documents. Can not be given with {@link #includeFields()}.
+   */
+  String[] excludeFields() default {};
 }
@@ -1,11 +1,21 @@
 package com.ksoot.common.mongo;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.stream.Stream;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -47,5 +57,214 @@ public class MongoAuditProperties {
 
     /** Default: "", Audit collection name suffix. */
     private String suffix = "_aud";
+
+    /**
+     * Default: 1, Number of revisions reserved from the revision sequence per round trip. Values
+     * greater than 1 let each node hand out revisions from a locally cached range, at the cost of
+     * gaps in revision numbers across restarts and revisions not strictly ordered across nodes.
+     */
+    @Positive private int revisionBlockSize = 1;
+
+    /**
+     * Default: COLLECTION, How revisions are numbered. COLLECTION numbers revisions of all
+     * documents of a collection from one counter. DOCUMENT numbers revisions of each document on
+     * its own, derived from its version property, so concurrent writers never share a counter.
+     */
+    private RevisionScheme revisionScheme = RevisionScheme.COLLECTION;
+
+    /**
+     * Default: 1000, Maximum number of document versions rebuilt for point in time lookups to
+     * cache. Revisions never change, so cached versions are never stale.
+     */
+    @Positive private int asOfCacheSize = 1000;
+
+    /**
+     * Default: 1000, Number of audit events fetched per cursor round trip and rebuilt from deltas
+     * together while exporting audit history. Bounds the memory held by an export.
+     */
+    @Positive private int exportBatchSize = 1000;
+
+    private Delta delta = new Delta();
+
+    private Partition partition = new Partition();
+
+    private Compression compression = new Compression();
+
+    private Deduplication deduplication = new Deduplication();
+
+    private Rollup rollup = new Rollup();
+
+    private Async async = new Async();
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @ToString
+  @Valid
+  public class Delta {
+
+    /**
+     * Default: false, Whether or not to store only the fields changed since the previous revision
+     * of a document, instead of the full document on every revision.
+     */
+    private boolean enabled = false;
+
+    /** Default: 10, Number of revisions of a document after which a full snapshot is stored. */
+    @Positive private int snapshotInterval = 10;
+
+    /** Default: 10000, Maximum number of documents whose latest version is cached for diffing. */
+    @Positive private int cacheSize = 10000;
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @ToString
+  @Valid
+  public class Partition {
+
+    /**
+     * Default: false, Whether or not to store audit events in monthly audit collections, e.g.
+     * <code>states_aud_2026_10</code>, instead of one audit collection growing forever.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Default: 0, Number of past monthly partitions to keep besides the current one. Older ones are
+     * archived and dropped. 0 keeps all partitions.
+     */
+    @PositiveOrZero private int retentionMonths = 0;
+
+    /**
+     * Default: audit-archive, Local directory where expired partitions are archived as gzip
+     * compressed NDJSON files before being dropped.
+     */
+    private String archiveDirectory = "audit-archive";
+
+    /** Default: 0 0 2 * * *, Cron expression of the retention job. */
+    private String retentionCron = "0 0 2 * * *";
+
+    /**
+     * Default: PT1H, Duration for which a node holds the retention lock, so only one node runs the
+     * retention job. Must exceed the time taken to archive expired partitions.
+     */
+    @NotNull private Duration retentionLockDuration = Duration.ofHours(1);
+
+    /**
+     * Default: PT1M, Maximum time reads take to see partitions created or dropped by other nodes.
+     */
+    @NotNull private Duration refreshInterval = Duration.ofMinutes(1);
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @ToString
+  @Valid
+  public class Compression {
+
+    /**
+     * Default: false, Whether or not to store large audited documents as deflate compressed BSON.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Default: 16384, Size in bytes of the BSON of an audited document above which it is
+     * compressed. Smaller documents gain little and are stored as is.
+     */
+    @Positive private int thresholdBytes = 16384;
+
+    /** Default: 6, Deflate compression level, from 1 fastest to 9 smallest. */
+    @Min(1)
+    @Max(9)
+    private int level = 6;
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @ToString
+  @Valid
+  public class Deduplication {
+
+    /**
+     * Default: false, Whether or not to skip auditing a save that changed nothing but the version
+     * property of a document, detected by comparing content hashes with the latest revision.
+     */
+    private boolean enabled = false;
+
+    /** Default: 10000, Maximum number of documents whose latest content hash is cached. */
+    @Positive private int cacheSize = 10000;
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @ToString
+  @Valid
+  public class Rollup {
+
+    /**
+     * Default: false, Whether or not to maintain hourly counts of audit events per source
+     * collection, type and actor for audit analytics.
+     */
+    private boolean enabled = false;
+
+    /** Default: audit_rollups, Collection to store hourly counts in. */
+    @NotEmpty private String collectionName = "audit_rollups";
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @ToString
+  @Valid
+  public class Async {
+
+    /**
+     * Default: false, Whether or not to insert audit events written outside of a transaction in the
+     * background, journaled locally so they are replayed on startup if the process dies before.
+     */
+    private boolean enabled = false;
+
+    /** Default: 10000, Maximum number of audit events waiting to be inserted. */
+    @Positive private int queueCapacity = 10000;
+
+    /** Default: 1000, Maximum number of audit events inserted per bulk insert. */
+    @Positive private int batchSize = 1000;
+
+    /**
+     * Default: <code>${java.io.tmpdir}/audit-journal/${hostname}</code>, Local directory of the
+     * memory-mapped audit journal. Must not be shared by application instances, an instance fails
+     * to start on a journal locked by another one.
+     */
+    @NotEmpty
+    private String journalDirectory =
+        Path.of(System.getProperty("java.io.tmpdir"), "audit-journal", hostName()).toString();
+
+    /**
+     * Default: 67108864, Size in bytes of the audit journal. Bounds the size of the audit events
+     * waiting to be inserted, beyond which audit events are inserted synchronously.
+     */
+    @Positive private int journalSizeBytes = 64 * 1024 * 1024;
+  }
+
+  // From the environment, as resolving the local host name may wait on DNS
+  private static String hostName() {
+    return Stream.of(System.getenv("HOSTNAME"), System.getenv("COMPUTERNAME"))
+        .filter(StringUtils::isNotBlank)
+        .findFirst()
+        .orElse("localhost");
+  }
+
+  public enum RevisionScheme {
+    /** Revisions unique per collection, allocated by {@link AuditRevisionSequence}. */
+    COLLECTION,
+    /**
+     * Revisions unique per document, version property + 1. Revision alone no longer orders audit
+     * events of different documents, and audited entities must have a version property.
+     */
+    DOCUMENT
   }
 }
@@ -3,4 +3,10 @@ package com.ksoot.common.mongo;
 public final class MongoSchema {
   public static final String COLLECTION_STATE = "states";
   public static final String COLLECTION_CITY = "cities";
+  public static final String COLLECTION_AUDIT_REVISION_SEQUENCE = "audit_revision_sequences";
+  public static final String COLLECTION_CATALOG_VERSION = "catalog_versions";
+  public static final String COLLECTION_LOCK = "locks";
+
+  // Case insensitive, queries sorting by name must use it to be served by name indexes
+  public static final String COLLATION_CASE_INSENSITIVE = "{ 'locale' : 'en', 'strength' : 2 }";
 }
@@ -0,0 +1,77 @@
+package com.ksoot.common.util.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import lombok.experimental.UtilityClass;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+/**
+ * Opaque, URL safe encoding of a {@link KeysetScrollPosition} having numeric keys, such as epoch
+ * millis and revision numbers, or plain string keys such as hex ObjectIds. E.g. <code>
+ * {datetime=1703060833000, revision=42}</code> is passed to clients as <code>
+ * ZGF0ZXRpbWU9MTcwMzA2MDgzMzAwMCZyZXZpc2lvbj00Mg</code>. Values decode to <code>Long</code> if they
+ * fit one, to <code>String</code> otherwise.
+ */
+@UtilityClass
+public class ContinuationToken {
+
+  private static final String KEYS_SEPARATOR = "&";
+
+  private static final String VALUE_SEPARATOR = "=";
+
+  public static String encode(final KeysetScrollPosition position) {
+    final StringBuilder token = new StringBuilder();
+    position
+        .getKeys()
+        .forEach(
+            (key, value) -> {
+              if (!token.isEmpty()) {
+                token.append(KEYS_SEPARATOR);
+              }
+              token
+                  .append(key)
+                  .append(VALUE_SEPARATOR)
+                  .append(value instanceof Number number ? number.longValue() : value);
+            });
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes given continuation token into a forward keyset position.
+   *
+   * @param token Continuation token, as returned by {@link #encode(KeysetScrollPosition)}
+   * @return Decoded position, or empty if token is malformed
+   */
+  public static Optional<KeysetScrollPosition> decode(final String token) {
+    try {
+      final String decoded =
+          new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      final Map<String, Object> keys = new LinkedHashMap<>();
+      for (final String pair : StringUtils.split(decoded, KEYS_SEPARATOR)) {
+        final String[] keyValue = StringUtils.split(pair, VALUE_SEPARATOR);
+        if (keyValue.length != 2) {
+          return Optional.empty();
+        }
+        keys.put(keyValue[0], value(keyValue[1]));
+      }
+      return keys.isEmpty() ? Optional.empty() : Optional.of(ScrollPosition.forward(keys));
+    } catch (final IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static Object value(final String value) {
+    try {
+      return Long.parseLong(value);
+    } catch (final NumberFormatException e) {
+      return value;
+    }
+  }
+}
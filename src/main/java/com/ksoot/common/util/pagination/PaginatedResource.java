@@ -5,8 +5,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Objects;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 public class PaginatedResource<T> implements Iterable<T> {
 
@@ -26,6 +29,18 @@ public class PaginatedResource<T> implements Iterable<T> {
     this.metadata = PaginationData.of(pageable, totalRecords);
   }
 
+  public PaginatedResource(
+      final Window<T> window, final int pageSize, final Long totalRecords, final Sort sort) {
+    this.content = window.getContent();
+    this.metadata =
+        PaginationData.of(
+            pageSize,
+            window.size(),
+            window.hasNext() ? (KeysetScrollPosition) window.positionAt(window.size() - 1) : null,
+            totalRecords,
+            sort);
+  }
+
   @JsonProperty("page")
   public PaginationData getMetadata() {
     return this.metadata;
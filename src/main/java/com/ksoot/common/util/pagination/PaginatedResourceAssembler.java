@@ -9,6 +9,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.data.web.HateoasPageableHandlerMethodArgumentResolver;
 import org.springframework.hateoas.IanaLinkRelations;
@@ -22,9 +24,12 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 public class PaginatedResourceAssembler {
 
+  public static final String CONTINUATION_TOKEN_PARAM = "continuationToken";
+
   public static final String PAGE_MUST_NOT_BE_NULL = "Page must not be null!";
   public static final String PAGE_CONTENT_MUST_NOT_BE_NULL = "Page Content must not be null!";
   public static final String PAGEABLE_MUST_NOT_BE_NULL = "Pageable must not be null!";
+  public static final String WINDOW_MUST_NOT_BE_NULL = "Window must not be null!";
   public static final String PAGE_TRANSFORMER_MUST_NOT_BE_NULL =
       "'pageTransformer' must not be null!";
   private static final boolean FORCE_FIRST_AND_LAST_RELS = false;
@@ -100,6 +105,49 @@ public class PaginatedResourceAssembler {
     return paginatedResource;
   }
 
+  /**
+   * Use in case of continuation token based pagination in non reactive web application. The <code>
+   * next</code> link is the current request with {@value #CONTINUATION_TOKEN_PARAM} query parameter
+   * set to the position of last element of given window, <code>first</code> link is the current
+   * request without it.
+   *
+   * @param <T> Class of the content of window
+   * @param window Window of records, positions must be {@link
+   *     org.springframework.data.domain.KeysetScrollPosition}s
+   * @param pageSize Requested page size
+   * @param totalRecords Total number of records if requested, otherwise null
+   * @param sort Sort applied to the window
+   * @return PaginatedResource
+   */
+  public static <T> PaginatedResource<T> assemble(
+      final Window<T> window,
+      final int pageSize,
+      @Nullable final Long totalRecords,
+      final Sort sort) {
+    Assert.notNull(window, WINDOW_MUST_NOT_BE_NULL);
+
+    final PaginatedResource<T> paginatedResource =
+        new PaginatedResource<>(window, pageSize, totalRecords, sort);
+    final PaginationData metadata = paginatedResource.getMetadata();
+    final UriComponentsBuilder current = ServletUriComponentsBuilder.fromCurrentRequest();
+    metadata.add(Link.of(current.build().toString(), IanaLinkRelations.SELF));
+    if (metadata.hasNext()) {
+      metadata.add(
+          Link.of(
+              current
+                  .cloneBuilder()
+                  .replaceQueryParam(CONTINUATION_TOKEN_PARAM, metadata.getContinuationToken())
+                  .build()
+                  .toString(),
+              IanaLinkRelations.NEXT));
+    }
+    metadata.add(
+        Link.of(
+            current.cloneBuilder().replaceQueryParam(CONTINUATION_TOKEN_PARAM).build().toString(),
+            IanaLinkRelations.FIRST));
+    return paginatedResource;
+  }
+
   private static <T> PaginatedResource<T> assemble(final Page<T> page, final UriTemplate base) {
 
     Assert.notNull(page, PAGE_MUST_NOT_BE_NULL);
@@ -1,12 +1,14 @@
 package com.ksoot.common.util.pagination;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.hateoas.RepresentationModel;
@@ -28,16 +30,39 @@ public class PaginationData extends RepresentationModel<PaginationData> {
   @JsonIgnore
   private Sort sort;
 
-  @Schema(description = "Total number of pages available, matching given filters", example = "35")
+  @Schema(
+      description =
+          "Total number of pages available, matching given filters. "
+              + "Absent in continuation token pagination unless total count is requested",
+      example = "35")
   @Setter(value = AccessLevel.NONE)
-  private int totalPages;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Integer totalPages;
 
   @Schema(
-      description = "Total number of records available, matching given filters",
-      required = true,
+      description =
+          "Total number of records available, matching given filters. "
+              + "Absent in continuation token pagination unless total count is requested",
       example = "145")
   @Setter(value = AccessLevel.NONE)
-  private long totalRecords;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Long totalRecords;
+
+  @Schema(
+      description =
+          "Token to get the next page in continuation token pagination, absent on last page",
+      example = "ZGF0ZXRpbWU9MTcwMzA2MDgzMzAwMCZyZXZpc2lvbj00Mg")
+  @Setter(value = AccessLevel.NONE)
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String continuationToken;
+
+  @Setter(value = AccessLevel.NONE)
+  @JsonIgnore
+  private boolean keyset;
+
+  @Setter(value = AccessLevel.NONE)
+  @JsonIgnore
+  private int records;
 
   private PaginationData(
       final int currentPage, final int pageSize, final long totalRecords, final Sort sort) {
@@ -59,6 +84,36 @@ public class PaginationData extends RepresentationModel<PaginationData> {
         pageable.getSort());
   }
 
+  /**
+   * Creates pagination data of a continuation token based page, where current page is always
+   * reported as 0 as pages are not addressable by number.
+   *
+   * @param pageSize Page size
+   * @param records Number of records in this page
+   * @param nextPosition Position to continue from, null if this is last page
+   * @param totalRecords Total number of records if requested, otherwise null
+   * @param sort Sort applied to the page
+   * @return PaginationData
+   */
+  public static PaginationData of(
+      final int pageSize,
+      final int records,
+      final KeysetScrollPosition nextPosition,
+      final Long totalRecords,
+      final Sort sort) {
+    final PaginationData paginationData =
+        new PaginationData(0, pageSize, totalRecords == null ? 0 : totalRecords, sort);
+    if (totalRecords == null) {
+      paginationData.totalRecords = null;
+      paginationData.totalPages = null;
+    }
+    paginationData.continuationToken =
+        nextPosition == null ? null : ContinuationToken.encode(nextPosition);
+    paginationData.keyset = true;
+    paginationData.records = records;
+    return paginationData;
+  }
+
   @Schema(description = "Is this page first", example = "true")
   @JsonProperty("isFirst")
   public boolean isFirst() {
@@ -74,13 +129,14 @@ public class PaginationData extends RepresentationModel<PaginationData> {
   @Schema(description = "Does next page exists", example = "true")
   @JsonProperty("hasNext")
   public boolean hasNext() {
-    return getCurrentPage() + 1 < getTotalPages();
+    return this.keyset ? this.continuationToken != null : getCurrentPage() + 1 < getTotalPages();
   }
 
   @Schema(description = "Does previous page exists", example = "false")
   @JsonProperty("hasPrevious")
   public boolean hasPrevious() {
-    return getCurrentPage() > 0;
+    // Continuation tokens only move forward
+    return !this.keyset && getCurrentPage() > 0;
   }
 
   public int queryFirstResult() {
@@ -95,6 +151,11 @@ public class PaginationData extends RepresentationModel<PaginationData> {
   @JsonProperty("header")
   @Override
   public String toString() {
+    if (this.keyset) {
+      return this.totalRecords == null
+          ? String.format("Page of %d records", this.records)
+          : String.format("Page of %d, out of %d records", this.records, this.totalRecords);
+    }
     return String.format(
         "Page %s of %d", this.totalRecords == 0 ? 0 : this.currentPage + 1, this.totalPages);
   }
@@ -0,0 +1,92 @@
+package com.ksoot.common.util.rest;
+
+import static com.ksoot.common.CommonConstants.HEADER_EXPAND;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Strong entity tags derived from versions, e.g. <code>"6558c30160463a1fee00c7dc-3"</code> for
+ * version 3 of a resource, and conditional responses answering a matching <code>If-None-Match
+ * </code> with 304 Not Modified without building the body. Representations vary by the {@value
+ * com.ksoot.common.CommonConstants#HEADER_EXPAND} header, so expanded relations must be part of the
+ * tag.
+ */
+@UtilityClass
+public class ETags {
+
+  private static final String SEPARATOR = "-";
+
+  /**
+   * Builds an entity tag of given parts, in given order. Collections, e.g. expanded relations, are
+   * joined with a comma. Null and empty parts are skipped.
+   */
+  public static String of(final Object... parts) {
+    return Stream.of(parts)
+        .filter(Objects::nonNull)
+        .map(part -> part instanceof Collection<?> values ? join(values) : part.toString())
+        .filter(part -> !part.isEmpty())
+        .collect(Collectors.joining(SEPARATOR, "\"", "\""));
+  }
+
+  /**
+   * Responds 304 Not Modified if the request's <code>If-None-Match</code> matches given entity tag,
+   * without getting the body. Otherwise responds 200 with the body and entity tag. Headers are set
+   * on the returned response only, unlike {@link WebRequest#checkNotModified(String)} which sets
+   * them on the underlying response too, duplicating them.
+   */
+  public static <T> ResponseEntity<T> ok(
+      final WebRequest request, final String eTag, final Supplier<T> body) {
+    return ok(request, eTag, () -> true, body);
+  }
+
+  /**
+   * As {@link #ok(WebRequest, String, Supplier)}, for responses built without reading the resource
+   * first. <code>If-None-Match: *</code> matches only if given check tells the resource exists, so
+   * a missing resource is answered by the body, e.g. with 404 Not Found.
+   */
+  public static <T> ResponseEntity<T> ok(
+      final WebRequest request,
+      final String eTag,
+      final BooleanSupplier exists,
+      final Supplier<T> body) {
+    if (isNotModified(request, eTag, exists)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(eTag)
+          .varyBy(HEADER_EXPAND)
+          .build();
+    }
+    return ResponseEntity.ok().eTag(eTag).varyBy(HEADER_EXPAND).body(body.get());
+  }
+
+  // Weak comparison, as If-None-Match requires
+  private static boolean isNotModified(
+      final WebRequest request, final String eTag, final BooleanSupplier exists) {
+    final String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+    if (Objects.isNull(ifNoneMatch)) {
+      return false;
+    }
+    final ETag current = ETag.create(eTag);
+    return Stream.of(ifNoneMatch)
+        .map(ETag::parse)
+        .flatMap(List::stream)
+        .anyMatch(
+            requested ->
+                requested.isWildcard() ? exists.getAsBoolean() : requested.compare(current, false));
+  }
+
+  private static String join(final Collection<?> values) {
+    return values.stream().map(String::valueOf).collect(Collectors.joining(","));
+  }
+}
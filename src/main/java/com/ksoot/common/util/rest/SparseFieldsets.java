@@ -0,0 +1,60 @@
+package com.ksoot.common.util.rest;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import lombok.experimental.UtilityClass;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.Nullable;
+
+/**
+ * Sparse fieldsets, properties of a response model requested by the client with the {@value
+ * #PARAM_FIELDS} request parameter, e.g. <code>fields=code,name</code>. Only response models
+ * annotated with <code>@JsonFilter(SparseFieldsets.FILTER)</code> are filtered, with the same
+ * fields at every nesting level.
+ */
+@UtilityClass
+public class SparseFieldsets {
+
+  public static final String PARAM_FIELDS = "fields";
+
+  public static final String FILTER = "sparseFieldset";
+
+  public static final String PARAM_FIELDS_DESCRIPTION =
+      "Comma separated properties to return, e.g. <code>code,name</code>. All by default";
+
+  /**
+   * Parses requested fields, each value may be comma separated.
+   *
+   * @return Requested fields in request order, empty if all fields are requested
+   */
+  public static Set<String> of(@Nullable final Collection<String> values) {
+    if (Objects.isNull(values) || values.isEmpty()) {
+      return Collections.emptySet();
+    }
+    final Set<String> fields = new LinkedHashSet<>();
+    for (final String value : values) {
+      for (final String field : StringUtils.split(value, ',')) {
+        if (StringUtils.isNotBlank(field)) {
+          fields.add(field.trim());
+        }
+      }
+    }
+    return Collections.unmodifiableSet(fields);
+  }
+
+  /** Filters serializing given fields only, or all fields if none given. */
+  public static FilterProvider filters(final Set<String> fields) {
+    return new SimpleFilterProvider()
+        .addFilter(
+            FILTER,
+            fields.isEmpty()
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(fields));
+  }
+}
@@ -11,6 +11,14 @@ public enum SampleErrorTypes implements ErrorType {
       "audit.collection.not.found",
       "Audit collection not found for Source collection: {0}",
       HttpStatus.BAD_REQUEST),
+  AUDIT_ROLLUPS_NOT_ENABLED(
+      "audit.rollups.not.enabled",
+      "Audit rollups are not enabled, set 'application.mongodb.auditing.rollup.enabled' to true",
+      HttpStatus.BAD_REQUEST),
+  INVALID_CONTINUATION_TOKEN(
+      "invalid.continuation.token",
+      "Invalid continuation token: {0}, use the one returned in previous page",
+      HttpStatus.BAD_REQUEST),
   INVALID_CITY_EXPAND_HEADER(
       "invalid.city.expand.header",
       "Invalid Header "
@@ -9,8 +9,13 @@ import com.ksoot.domain.model.dto.CityVM;
 import com.ksoot.domain.model.dto.EmployeeVM;
 import com.ksoot.domain.model.dto.StateVM;
 import com.ksoot.problem.core.Problems;
+import jakarta.persistence.Tuple;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 import org.apache.commons.collections4.CollectionUtils;
@@ -27,7 +32,8 @@ public interface SampleMappers {
 
   SampleMappers INSTANCE = Mappers.getMapper(SampleMappers.class);
 
-  Sort SORT_BY_NAME = Sort.by(Sort.Order.asc("name").ignoreCase());
+  // Case insensitive by collation, MongoDB rejects ignore case sort orders
+  Sort SORT_BY_NAME = Sort.by(Sort.Order.asc("name"));
 
   Comparator<State> STATE_BY_NAME_COMPARATOR =
       Comparator.comparing(state -> state.getName().toLowerCase());
@@ -46,6 +52,19 @@ public interface SampleMappers {
 
   EmployeeVM toEmployeeVM(final Employee employee);
 
+  // Tuple of selected attributes only, aliased by attribute name
+  default EmployeeVM tupleToEmployeeVM(final Tuple tuple) {
+    final Map<String, Object> values = new HashMap<>();
+    tuple.getElements().forEach(element -> values.put(element.getAlias(), tuple.get(element)));
+    final LocalDate dob = (LocalDate) values.get("dob");
+    return EmployeeVM.builder()
+        .id((Long) values.get("id"))
+        .code((String) values.get("code"))
+        .name((String) values.get("name"))
+        .dob(Objects.nonNull(dob) ? DateTimeFormatter.ISO_LOCAL_DATE.format(dob) : null)
+        .build();
+  }
+
   // ---------- State, City and Area ----------
   default StateVM toStateViewModel(final State state, final String expand) {
     if (StringUtils.isEmpty(expand)) {
@@ -0,0 +1,55 @@
+package com.ksoot.domain.migration;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLATION_CASE_INSENSITIVE;
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_CITY;
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_STATE;
+
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Collation;
+
+/**
+ * Creates case insensitive indexes on state and city names, and on cities by state and name, so
+ * lists paged by name are sorted and skipped through by MongoDB on the index. Queries must use the
+ * same {@link com.ksoot.common.mongo.MongoSchema#COLLATION_CASE_INSENSITIVE collation} for the
+ * indexes to be used.
+ */
+@ChangeUnit(id = "create-location-name-indexes", order = "004")
+public class CreateLocationNameIndexes {
+
+  private static final String IDX_NAME = "idx_name_ci";
+
+  private static final String IDX_STATE_NAME = "idx_state_name_ci";
+
+  @Execution
+  public void execution(final MongoTemplate mongoTemplate) {
+    final Collation collation = Collation.parse(COLLATION_CASE_INSENSITIVE);
+    mongoTemplate
+        .indexOps(COLLECTION_STATE)
+        .ensureIndex(
+            new Index().named(IDX_NAME).on("name", Sort.Direction.ASC).collation(collation));
+    mongoTemplate
+        .indexOps(COLLECTION_CITY)
+        .ensureIndex(
+            new Index().named(IDX_NAME).on("name", Sort.Direction.ASC).collation(collation));
+    mongoTemplate
+        .indexOps(COLLECTION_CITY)
+        .ensureIndex(
+            new Index()
+                .named(IDX_STATE_NAME)
+                .on("state", Sort.Direction.ASC)
+                .on("name", Sort.Direction.ASC)
+                .collation(collation));
+  }
+
+  @RollbackExecution
+  public void rollbackExecution(final MongoTemplate mongoTemplate) {
+    mongoTemplate.indexOps(COLLECTION_STATE).dropIndex(IDX_NAME);
+    mongoTemplate.indexOps(COLLECTION_CITY).dropIndex(IDX_NAME);
+    mongoTemplate.indexOps(COLLECTION_CITY).dropIndex(IDX_STATE_NAME);
+  }
+}
@@ -118,11 +118,7 @@ public class InitMongoDB {
               .flatMap(
                   e -> {
                     if (CollectionUtils.isNotEmpty(e.getValue())) {
-                      final List<City> cities = cityRepository.saveAll(e.getValue());
-                      final State state = e.getKey();
-                      state.addCities(cities);
-                      stateRepository.save(state);
-                      return cities.stream();
+                      return cityRepository.saveAll(e.getValue()).stream();
                     } else {
                       System.out.println("cities null for state: " + e.getValue());
                       return Stream.empty();
@@ -0,0 +1,40 @@
+package com.ksoot.domain.migration;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_STATE;
+
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Removes the <code>cities</code> arrays from states, as cities of a state are looked up through
+ * the indexed <code>cities.state</code> and the arrays are not maintained anymore.
+ */
+@Slf4j
+@ChangeUnit(id = "remove-state-cities", order = "003")
+public class RemoveStateCities {
+
+  private static final String CITIES = "cities";
+
+  @Execution
+  public void execution(final MongoTemplate mongoTemplate) {
+    final long modified =
+        mongoTemplate
+            .updateMulti(
+                new Query(Criteria.where(CITIES).exists(true)),
+                new Update().unset(CITIES),
+                COLLECTION_STATE)
+            .getModifiedCount();
+    log.info("Removed cities from {} states", modified);
+  }
+
+  @RollbackExecution
+  public void rollbackExecution() {
+    // Nothing to rollback, cities of a state are derived from cities.state
+  }
+}
@@ -0,0 +1,60 @@
+package com.ksoot.domain.migration;
+
+import com.ksoot.common.mongo.AuditMetaData;
+import com.ksoot.common.mongo.AuditRevisionSequence;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Seeds the audit revision counters from the highest revision already present in each audit
+ * collection, so revisions allocated by {@link AuditRevisionSequence} continue after the ones
+ * created earlier by counting audit records.
+ */
+@Slf4j
+@ChangeUnit(id = "seed-audit-revision-sequences", order = "002")
+public class SeedAuditRevisionSequences {
+
+  @Execution
+  public void execution(
+      final MongoTemplate mongoTemplate,
+      final AuditMetaData auditMetaData,
+      final AuditRevisionSequence auditRevisionSequence) {
+    for (final String collectionName : auditMetaData.getCollectionNames()) {
+      final Query query =
+          new Query(Criteria.where("collection_name").is(collectionName))
+              .with(Sort.by(Sort.Direction.DESC, "revision"))
+              .limit(1);
+      query.fields().include("revision");
+      // All audit partitions, in case of partitioned auditing
+      final long revision =
+          auditMetaData.getAuditCollections(collectionName, null, null).stream()
+              .map(
+                  auditCollectionName ->
+                      mongoTemplate.findOne(query, Document.class, auditCollectionName))
+              .filter(Objects::nonNull)
+              .mapToLong(latest -> latest.get("revision", Number.class).longValue())
+              .max()
+              .orElse(0);
+      if (revision > 0) {
+        auditRevisionSequence.seed(collectionName, revision);
+        log.info(
+            "Seeded audit revision sequence of collection: {} with revision: {}",
+            collectionName,
+            revision);
+      }
+    }
+  }
+
+  @RollbackExecution
+  public void rollbackExecution() {
+    // Nothing to rollback, seeding only ever raises the counters
+  }
+}
@@ -54,6 +54,14 @@ public class City extends AbstractEntity {
   @Setter
   private String name;
 
+  /**
+   * Copies this city referencing given state, so the lazily referenced state of this city is not
+   * loaded.
+   */
+  public City copy(final State state) {
+    return new City(this.id, this.version, state, this.code, this.name);
+  }
+
   public Pair<String, String> listItem() {
     return ImmutablePair.of(this.code, this.name);
   }
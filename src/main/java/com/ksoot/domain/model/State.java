@@ -9,9 +9,7 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,6 +20,7 @@ import lombok.ToString;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.data.annotation.PersistenceCreator;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.annotation.TypeAlias;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -53,7 +52,10 @@ public class State extends AbstractEntity {
 
   @NotNull @Setter private Boolean isUT;
 
-  @DocumentReference(lazy = true, sort = "{ 'name' : 1 }")
+  // Not stored on state, looked up through the indexed cities.state. Set when joined already
+  @ReadOnlyProperty
+  @DocumentReference(lazy = true, lookup = "{ 'state' : ?#{#self._id} }", sort = "{ 'name' : 1 }")
+  @Setter
   private List<City> cities;
 
   @PersistenceCreator
@@ -62,42 +64,17 @@ public class State extends AbstractEntity {
       final Long version,
       final String code,
       final String name,
-      final Boolean isUT,
-      final List<City> cities) {
+      final Boolean isUT) {
     super(id, version);
     this.code = code;
     this.name = name;
     this.isUT = isUT;
-    this.cities = cities;
-    this.initCitiesIfNull();
   }
 
   public static State of(final String code, final String name, final Boolean isUT) {
     return new State(code, name, isUT, null);
   }
 
-  public void addCity(final City city) {
-    this.initCitiesIfNull();
-    this.cities.add(city);
-  }
-
-  public void removeCity(final City city) {
-    if (Objects.nonNull(this.cities)) {
-      this.cities.remove(city);
-    }
-  }
-
-  public void addCities(final List<City> cities) {
-    this.initCitiesIfNull();
-    this.cities.addAll(cities);
-  }
-
-  private void initCitiesIfNull() {
-    if (Objects.isNull(this.cities)) {
-      this.cities = new ArrayList<>();
-    }
-  }
-
   public Pair<String, String> listItem() {
     return ImmutablePair.of(this.code, this.name);
   }
@@ -0,0 +1,39 @@
+package com.ksoot.domain.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CityBatchResultVM(
+    @Schema(
+            description = "City Id, of the created or requested City",
+            example = "6558c30160463a1fee00c7dc")
+        String id,
+    @Schema(description = "City or District code", example = "79") String code,
+    @Schema(description = "Result of the batch item", example = "CREATED") Status status,
+    @Schema(description = "Reason the batch item is not applied", nullable = true) String message) {
+
+  public enum Status {
+    CREATED,
+    UPDATED,
+    NOT_FOUND,
+    REJECTED
+  }
+
+  public static CityBatchResultVM created(final String id, final String code) {
+    return new CityBatchResultVM(id, code, Status.CREATED, null);
+  }
+
+  public static CityBatchResultVM updated(final String id, final String code) {
+    return new CityBatchResultVM(id, code, Status.UPDATED, null);
+  }
+
+  public static CityBatchResultVM notFound(final String id) {
+    return new CityBatchResultVM(id, null, Status.NOT_FOUND, null);
+  }
+
+  public static CityBatchResultVM rejected(
+      final String id, final String code, final String message) {
+    return new CityBatchResultVM(id, code, Status.REJECTED, message);
+  }
+}
@@ -1,9 +1,12 @@
 package com.ksoot.domain.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.ksoot.common.util.rest.SparseFieldsets;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 
 @Builder
+@JsonFilter(SparseFieldsets.FILTER)
 public record EmployeeVM(
     @Schema(description = "Internal record id", example = "1") Long id,
     @Schema(
@@ -1,10 +1,13 @@
 package com.ksoot.domain.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.ksoot.common.util.rest.SparseFieldsets;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.util.List;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
+@JsonFilter(SparseFieldsets.FILTER)
 public record StateVM(
     @Schema(description = "Internal record id", example = "6558c30160463a1fee00c7dc") String id,
     @Schema(description = "Two char State code like HR for Haryana", example = "HR") String code,
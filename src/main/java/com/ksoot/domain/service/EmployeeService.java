@@ -5,8 +5,10 @@ import com.ksoot.domain.model.Employee;
 import com.ksoot.domain.model.dto.EmployeeCreationRQ;
 import com.ksoot.domain.model.dto.EmployeeUpdationRQ;
 import com.ksoot.problem.core.Problems;
+import jakarta.persistence.Tuple;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -42,6 +44,11 @@ public class EmployeeService {
     return this.employeeRepository.findAll();
   }
 
+  @Transactional(readOnly = true)
+  public List<Tuple> getAllEmployees(final Set<String> fields) {
+    return this.employeeRepository.findAllTuples(fields);
+  }
+
   @Transactional
   public Employee updateEmployee(final Long id, final EmployeeUpdationRQ request) {
     final Employee employee = this.employeeRepository.findById(id).orElseThrow(Problems::notFound);
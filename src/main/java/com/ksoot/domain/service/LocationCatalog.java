@@ -0,0 +1,416 @@
+package com.ksoot.domain.service;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_CATALOG_VERSION;
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_CITY;
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_STATE;
+import static com.ksoot.domain.mapper.SampleMappers.CITY_BY_NAME_COMPARATOR;
+
+import com.ksoot.adapter.repository.StateRepositoryCustomImpl;
+import com.ksoot.domain.model.City;
+import com.ksoot.domain.model.State;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.SessionSynchronization;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through in-memory catalog of all states and cities, served from an immutable snapshot with
+ * states and cities indexed by code and sorted by name, loaded with one aggregation. Names and
+ * codes are indexed by prefix too, for suggestions. States and cities in the snapshot reference
+ * each other directly, so expanding them never loads lazy references from MongoDB. They must not be
+ * modified.
+ *
+ * <p>Saving or deleting a state or city drops the snapshot once its transaction commits, and bumps
+ * a catalog version document, which every node reads at most once per poll interval while serving
+ * from its snapshot. So other nodes serve a stale catalog for at most the poll interval. Writes not
+ * raising MongoDB lifecycle events, e.g. updates by query, must call {@link #invalidate()}. A
+ * version bump failing after its transaction committed is retried on every poll until it succeeds,
+ * and a poll failing to read the version keeps serving the current snapshot.
+ *
+ * <p>Snapshots are loaded outside of any transaction of the caller, so uncommitted changes never
+ * make it into a snapshot.
+ */
+@Slf4j
+@Component
+public class LocationCatalog extends AbstractMongoEventListener<Object> {
+
+  private static final String METRIC_LOOKUPS = "location.catalog.lookups";
+
+  private static final String METRIC_REFRESH = "location.catalog.refresh";
+
+  private static final String CATALOG_ID = "locations";
+
+  private static final String VERSION = "version";
+
+  private static final String ALGORITHM = "SHA-256";
+
+  // Hex digits of the content hash in the snapshot version
+  private static final int CONTENT_HASH_LENGTH = 16;
+
+  private static final int VERSION_BUMP_ATTEMPTS = 3;
+
+  private static final long VERSION_BUMP_BACKOFF_MILLIS = 100;
+
+  private final MongoTemplate mongoTemplate;
+
+  private final long pollIntervalNanos;
+
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+  // Incremented on every invalidation, so a snapshot loaded meanwhile is not kept
+  private final AtomicLong generation = new AtomicLong();
+
+  private final ReentrantLock refreshLock = new ReentrantLock();
+
+  // Set when a version bump failed, retried on every poll until it succeeds
+  private final AtomicBoolean versionBumpPending = new AtomicBoolean();
+
+  private final Counter hits;
+
+  private final Counter misses;
+
+  private final Timer refreshes;
+
+  private volatile long polledAt;
+
+  LocationCatalog(
+      final MongoDatabaseFactory mongoDatabaseFactory,
+      final MongoOperations mongoOperations,
+      @Value("${application.location-catalog.poll-interval:PT5S}") final Duration pollInterval,
+      @Nullable final MeterRegistry meterRegistry) {
+    this.mongoTemplate = new MongoTemplate(mongoDatabaseFactory, mongoOperations.getConverter());
+    this.mongoTemplate.setSessionSynchronization(SessionSynchronization.NEVER);
+    this.pollIntervalNanos = pollInterval.toNanos();
+    final MeterRegistry registry =
+        Objects.nonNull(meterRegistry) ? meterRegistry : Metrics.globalRegistry;
+    this.hits =
+        Counter.builder(METRIC_LOOKUPS)
+            .description("Location catalog lookups, by whether served from the current snapshot")
+            .tag("result", "hit")
+            .register(registry);
+    this.misses =
+        Counter.builder(METRIC_LOOKUPS)
+            .description("Location catalog lookups, by whether served from the current snapshot")
+            .tag("result", "miss")
+            .register(registry);
+    this.refreshes =
+        Timer.builder(METRIC_REFRESH)
+            .description("Time taken to load a location catalog snapshot")
+            .register(registry);
+  }
+
+  public List<State> getAllStates() {
+    return this.snapshot().states();
+  }
+
+  public Optional<State> getStateById(final String id) {
+    return Optional.ofNullable(this.snapshot().statesById().get(id));
+  }
+
+  public Optional<State> getStateByCode(final String code) {
+    return Optional.ofNullable(this.snapshot().statesByCode().get(code));
+  }
+
+  public List<City> getAllCities() {
+    return this.snapshot().cities();
+  }
+
+  public Optional<City> getCityById(final String id) {
+    return Optional.ofNullable(this.snapshot().citiesById().get(id));
+  }
+
+  public Optional<City> getCityByCode(final String code) {
+    return Optional.ofNullable(this.snapshot().citiesByCode().get(code));
+  }
+
+  public List<City> getCitiesByStateId(final String stateId) {
+    return this.snapshot().citiesByStateId().getOrDefault(stateId, List.of());
+  }
+
+  /** Gets states with name or code starting with given prefix, case and accent insensitively. */
+  public List<State> suggestStates(final String prefix, final int limit) {
+    return this.snapshot().stateSuggestions().find(prefix, limit);
+  }
+
+  /** Gets cities with name or code starting with given prefix, case and accent insensitively. */
+  public List<City> suggestCities(final String prefix, final int limit) {
+    return this.snapshot().citySuggestions().find(prefix, limit);
+  }
+
+  /** Gets the number of cities of given state, without querying the cities of the state. */
+  public int getCityCount(final String stateId) {
+    return this.getCitiesByStateId(stateId).size();
+  }
+
+  /**
+   * Gets the version of the current snapshot, the catalog version changed by every committed change
+   * of states or cities on any node, with a hash of the ids and versions of the states and cities
+   * in the snapshot. So snapshots of different content never share a version, even if loaded at the
+   * same catalog version. Serves as a version of all states and cities, e.g. for entity tags.
+   */
+  public String getVersion() {
+    return this.snapshot().tag();
+  }
+
+  /**
+   * Drops the current snapshot on this node once the current transaction commits, or right away
+   * outside of a transaction, and bumps the catalog version so other nodes drop theirs too.
+   */
+  public void invalidate() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      if (!TransactionSynchronizationManager.hasResource(this)) {
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new Invalidation());
+      }
+    } else {
+      this.invalidateNow();
+    }
+  }
+
+  @Override
+  public void onAfterSave(final AfterSaveEvent<Object> event) {
+    if (isCatalogCollection(event.getCollectionName())) {
+      this.invalidate();
+    }
+  }
+
+  @Override
+  public void onAfterDelete(final AfterDeleteEvent<Object> event) {
+    if (isCatalogCollection(event.getCollectionName())) {
+      this.invalidate();
+    }
+  }
+
+  private static boolean isCatalogCollection(final String collectionName) {
+    return COLLECTION_STATE.equals(collectionName) || COLLECTION_CITY.equals(collectionName);
+  }
+
+  private void invalidateNow() {
+    try {
+      // Version first, so a snapshot loaded after dropping this one is not dropped again on poll
+      this.bumpVersion(VERSION_BUMP_ATTEMPTS);
+    } finally {
+      this.generation.incrementAndGet();
+      this.snapshot.set(null);
+    }
+  }
+
+  // Retried given number of attempts, then left pending for the next poll and rethrown
+  private void bumpVersion(final int attempts) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        this.mongoTemplate.upsert(
+            new Query(Criteria.where("_id").is(CATALOG_ID)),
+            new Update().inc(VERSION, 1L),
+            COLLECTION_CATALOG_VERSION);
+        this.versionBumpPending.set(false);
+        return;
+      } catch (final DataAccessException e) {
+        if (attempt == attempts) {
+          this.versionBumpPending.set(true);
+          throw e;
+        }
+        log.warn("Could not bump location catalog version, attempt: {}, retrying", attempt, e);
+        try {
+          Thread.sleep(VERSION_BUMP_BACKOFF_MILLIS * attempt);
+        } catch (final InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          this.versionBumpPending.set(true);
+          throw e;
+        }
+      }
+    }
+  }
+
+  private Snapshot snapshot() {
+    Snapshot current = this.snapshot.get();
+    if (Objects.nonNull(current) && this.isCurrent(current)) {
+      this.hits.increment();
+      return current;
+    }
+    this.misses.increment();
+    // Lock, not synchronized, to not pin virtual threads while loading
+    this.refreshLock.lock();
+    try {
+      current = this.snapshot.get();
+      if (Objects.nonNull(current) && this.isCurrent(current)) {
+        return current;
+      }
+      return this.refresh();
+    } finally {
+      this.refreshLock.unlock();
+    }
+  }
+
+  private boolean isCurrent(final Snapshot current) {
+    final long now = System.nanoTime();
+    if (now - this.polledAt < this.pollIntervalNanos) {
+      return true;
+    }
+    this.polledAt = now;
+    try {
+      if (this.versionBumpPending.get()) {
+        this.bumpVersion(1);
+      }
+      return this.readVersion() == current.version();
+    } catch (final DataAccessException e) {
+      // Serving the snapshot beats failing the lookup, polled again after the poll interval
+      log.warn("Could not poll location catalog version, serving version: {}", current.tag(), e);
+      return true;
+    }
+  }
+
+  private Snapshot refresh() {
+    final long loadedGeneration = this.generation.get();
+    final Snapshot loaded = this.refreshes.record(() -> this.load(this.readVersion()));
+    this.polledAt = System.nanoTime();
+    this.snapshot.set(loaded);
+    if (this.generation.get() != loadedGeneration) {
+      // Invalidated while loading, the loaded snapshot may miss the change
+      this.snapshot.compareAndSet(loaded, null);
+    }
+    log.debug(
+        "Loaded location catalog version: {} with {} states and {} cities",
+        loaded.version(),
+        loaded.states().size(),
+        loaded.cities().size());
+    return loaded;
+  }
+
+  private long readVersion() {
+    final Query query = new Query(Criteria.where("_id").is(CATALOG_ID));
+    query.fields().include(VERSION);
+    final Document version =
+        this.mongoTemplate.findOne(query, Document.class, COLLECTION_CATALOG_VERSION);
+    return Objects.nonNull(version) ? version.get(VERSION, Number.class).longValue() : 0;
+  }
+
+  private Snapshot load(final long version) {
+    // One aggregation, states and cities of each state sorted by name
+    final List<State> states =
+        StateRepositoryCustomImpl.findWithCities(this.mongoTemplate, new Criteria());
+    final Map<String, State> statesById = new HashMap<>();
+    final Map<String, State> statesByCode = new HashMap<>();
+    final Map<String, City> citiesById = new HashMap<>();
+    final Map<String, City> citiesByCode = new HashMap<>();
+    final Map<String, List<City>> citiesByStateId = new HashMap<>();
+    final List<City> cities = new ArrayList<>();
+    final MessageDigest contentDigest = contentDigest();
+    for (final State state : states) {
+      statesById.put(state.getId(), state);
+      statesByCode.put(state.getCode(), state);
+      citiesByStateId.put(state.getId(), List.copyOf(state.getCities()));
+      update(contentDigest, state.getId(), state.getVersion());
+      for (final City city : state.getCities()) {
+        citiesById.put(city.getId(), city);
+        citiesByCode.put(city.getCode(), city);
+        cities.add(city);
+        update(contentDigest, city.getId(), city.getVersion());
+      }
+    }
+    cities.sort(CITY_BY_NAME_COMPARATOR);
+    final String contentHash =
+        HexFormat.of().formatHex(contentDigest.digest()).substring(0, CONTENT_HASH_LENGTH);
+    return new Snapshot(
+        version,
+        version + "-" + contentHash,
+        List.copyOf(states),
+        Map.copyOf(statesById),
+        Map.copyOf(statesByCode),
+        List.copyOf(cities),
+        Map.copyOf(citiesById),
+        Map.copyOf(citiesByCode),
+        Map.copyOf(citiesByStateId),
+        PrefixIndex.of(states, state -> PrefixIndex.nameTerms(state.getName(), state.getCode())),
+        PrefixIndex.of(cities, city -> PrefixIndex.nameTerms(city.getName(), city.getCode())));
+  }
+
+  private static MessageDigest contentDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (final NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void update(final MessageDigest digest, final String id, final Long version) {
+    digest.update((id + ":" + version + ";").getBytes(StandardCharsets.UTF_8));
+  }
+
+  private record Snapshot(
+      long version,
+      String tag,
+      List<State> states,
+      Map<String, State> statesById,
+      Map<String, State> statesByCode,
+      List<City> cities,
+      Map<String, City> citiesById,
+      Map<String, City> citiesByCode,
+      Map<String, List<City>> citiesByStateId,
+      PrefixIndex<State> stateSuggestions,
+      PrefixIndex<City> citySuggestions) {}
+
+  // Invalidates the catalog once, after the transaction changing it commits
+  private final class Invalidation implements TransactionSynchronization {
+
+    @Override
+    public void suspend() {
+      TransactionSynchronizationManager.unbindResourceIfPossible(LocationCatalog.this);
+    }
+
+    @Override
+    public void resume() {
+      TransactionSynchronizationManager.bindResource(LocationCatalog.this, Boolean.TRUE);
+    }
+
+    @Override
+    public void afterCommit() {
+      try {
+        LocationCatalog.this.invalidateNow();
+      } catch (final DataAccessException e) {
+        // Transaction is committed already, not failing it. Other nodes catch up once the version
+        // bump, left pending, succeeds on a later poll of this node
+        log.error("Could not bump location catalog version, retrying on next poll", e);
+      }
+    }
+
+    @Override
+    public void afterCompletion(final int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(LocationCatalog.this);
+    }
+  }
+}
@@ -2,11 +2,16 @@ package com.ksoot.domain.service;
 
 import com.ksoot.domain.model.City;
 import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.CityBatchResultVM;
 import com.ksoot.domain.model.dto.CityCreationRQ;
 import com.ksoot.domain.model.dto.CityUpdationRQ;
 import com.ksoot.domain.model.dto.StateCreationRQ;
 import com.ksoot.domain.model.dto.StateUpdationRQ;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 public interface LocationService {
 
@@ -16,10 +21,19 @@ public interface LocationService {
 
   State getStateById(String id);
 
+  State getStateWithCitiesById(String id);
+
+  /** Whether a state of given id exists in the location catalog, without reading the state. */
+  boolean isCatalogedState(String id);
+
   State getStateByCode(String code);
 
   List<State> getAllStates();
 
+  List<State> suggestStates(String prefix, int limit);
+
+  Page<State> getStatesPage(Set<String> fields, Pageable pageRequest);
+
   State updateState(String id, StateUpdationRQ request);
 
   void deleteState(String id);
@@ -29,15 +43,32 @@ public interface LocationService {
 
   City createCity(String stateId, CityCreationRQ request);
 
+  List<CityBatchResultVM> createCities(String stateId, List<CityCreationRQ> requests);
+
   City getCityById(String id);
 
   City getCityByCode(String code);
 
+  /** Whether a city of given id exists in the location catalog, without reading the city. */
+  boolean isCatalogedCity(String id);
+
   List<City> findAllCitiesByStateId(String stateId);
 
+  Page<City> getCitiesPageByStateId(String stateId, Set<String> fields, Pageable pageRequest);
+
+  int getCityCount(String stateId);
+
   List<City> getAllCities();
 
+  List<City> suggestCities(String prefix, int limit);
+
+  Page<City> getCitiesPage(Set<String> fields, Pageable pageRequest);
+
   City updateCity(String id, CityUpdationRQ request);
 
+  List<CityBatchResultVM> updateCities(Map<String, CityUpdationRQ> requests);
+
   void deleteCity(String id);
+
+  String getCatalogVersion();
 }
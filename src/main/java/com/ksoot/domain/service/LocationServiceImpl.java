@@ -1,21 +1,32 @@
 package com.ksoot.domain.service;
 
-import static com.ksoot.domain.mapper.SampleMappers.CITY_BY_NAME_COMPARATOR;
-import static com.ksoot.domain.mapper.SampleMappers.STATE_BY_NAME_COMPARATOR;
+import static com.ksoot.domain.mapper.SampleMappers.SORT_BY_NAME;
 
 import com.ksoot.adapter.repository.CityRepository;
 import com.ksoot.adapter.repository.StateRepository;
 import com.ksoot.domain.model.City;
 import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.CityBatchResultVM;
 import com.ksoot.domain.model.dto.CityCreationRQ;
 import com.ksoot.domain.model.dto.CityUpdationRQ;
 import com.ksoot.domain.model.dto.StateCreationRQ;
 import com.ksoot.domain.model.dto.StateUpdationRQ;
 import com.ksoot.problem.core.Problems;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,10 +34,14 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class LocationServiceImpl implements LocationService {
 
+  private static final int MAX_SUGGESTIONS = 50;
+
   private final StateRepository stateRepository;
 
   private final CityRepository cityRepository;
 
+  private final LocationCatalog locationCatalog;
+
   @Transactional(readOnly = true)
   public Boolean doesStateExists(final String code) {
     return this.stateRepository.existsByCode(code);
@@ -47,15 +62,30 @@ public class LocationServiceImpl implements LocationService {
   }
 
   @Transactional(readOnly = true)
+  @Override
+  public State getStateWithCitiesById(final String id) {
+    return this.stateRepository.findByIdWithCities(id).orElseThrow(Problems::notFound);
+  }
+
   @Override
   public State getStateByCode(final String code) {
-    return this.stateRepository.findByCode(code).orElseThrow(Problems::notFound);
+    return this.locationCatalog.getStateByCode(code).orElseThrow(Problems::notFound);
   }
 
-  @Transactional(readOnly = true)
   @Override
   public List<State> getAllStates() {
-    return this.stateRepository.findAll().stream().sorted(STATE_BY_NAME_COMPARATOR).toList();
+    return this.locationCatalog.getAllStates();
+  }
+
+  @Override
+  public List<State> suggestStates(final String prefix, final int limit) {
+    return this.locationCatalog.suggestStates(prefix, Math.min(limit, MAX_SUGGESTIONS));
+  }
+
+  @Transactional(readOnly = true)
+  @Override
+  public Page<State> getStatesPage(final Set<String> fields, final Pageable pageRequest) {
+    return this.stateRepository.findPage(fields, sortedByName(pageRequest));
   }
 
   @Transactional
@@ -89,11 +119,42 @@ public class LocationServiceImpl implements LocationService {
   @Override
   public City createCity(final String stateId, final CityCreationRQ request) {
     final State state = this.stateRepository.findById(stateId).orElseThrow(Problems::notFound);
-    City city = City.builder().state(state).code(request.code()).name(request.name()).build();
-    city = this.cityRepository.save(city);
-    state.addCity(city);
-    this.stateRepository.save(state);
-    return city;
+    final City city = City.builder().state(state).code(request.code()).name(request.name()).build();
+    return this.cityRepository.save(city);
+  }
+
+  @Transactional
+  @Override
+  public List<CityBatchResultVM> createCities(
+      final String stateId, final List<CityCreationRQ> requests) {
+    final State state = this.getStateById(stateId);
+    final Set<String> existingCodes =
+        this.cityRepository
+            .findAllByCodeIn(requests.stream().map(CityCreationRQ::code).toList())
+            .stream()
+            .map(City::getCode)
+            .collect(Collectors.toSet());
+    final Set<String> batchCodes = new HashSet<>();
+    final List<CityBatchResultVM> results = new ArrayList<>(requests.size());
+    final List<City> cities = new ArrayList<>();
+    final List<Integer> positions = new ArrayList<>();
+    for (final CityCreationRQ request : requests) {
+      if (existingCodes.contains(request.code())) {
+        results.add(CityBatchResultVM.rejected(null, request.code(), "City code already exists"));
+      } else if (!batchCodes.add(request.code())) {
+        results.add(
+            CityBatchResultVM.rejected(null, request.code(), "City code repeated in batch"));
+      } else {
+        positions.add(results.size());
+        results.add(null);
+        cities.add(City.builder().state(state).code(request.code()).name(request.name()).build());
+      }
+    }
+    final List<String> ids = this.cityRepository.bulkInsert(cities);
+    for (int i = 0; i < ids.size(); i++) {
+      results.set(positions.get(i), CityBatchResultVM.created(ids.get(i), cities.get(i).getCode()));
+    }
+    return results;
   }
 
   @Transactional(readOnly = true)
@@ -102,24 +163,55 @@ public class LocationServiceImpl implements LocationService {
     return this.cityRepository.findById(id).orElseThrow(Problems::notFound);
   }
 
-  @Transactional(readOnly = true)
   @Override
   public City getCityByCode(final String code) {
-    return this.cityRepository.findByCode(code).orElseThrow(Problems::notFound);
+    return this.locationCatalog.getCityByCode(code).orElseThrow(Problems::notFound);
   }
 
-  @Transactional(readOnly = true)
   @Override
   public List<City> findAllCitiesByStateId(final String stateId) {
-    return this.cityRepository.findAllByStateId(stateId).stream()
-        .sorted(CITY_BY_NAME_COMPARATOR)
-        .toList();
+    return this.locationCatalog.getCitiesByStateId(stateId);
   }
 
   @Transactional(readOnly = true)
+  @Override
+  public Page<City> getCitiesPageByStateId(
+      final String stateId, final Set<String> fields, final Pageable pageRequest) {
+    if (!ObjectId.isValid(stateId)) {
+      return Page.empty(pageRequest);
+    }
+    return this.cityRepository.findPage(stateId, fields, sortedByName(pageRequest));
+  }
+
+  @Override
+  public boolean isCatalogedState(final String id) {
+    return this.locationCatalog.getStateById(id).isPresent();
+  }
+
+  @Override
+  public boolean isCatalogedCity(final String id) {
+    return this.locationCatalog.getCityById(id).isPresent();
+  }
+
+  @Override
+  public int getCityCount(final String stateId) {
+    return this.locationCatalog.getCityCount(stateId);
+  }
+
   @Override
   public List<City> getAllCities() {
-    return this.cityRepository.findAll().stream().sorted(CITY_BY_NAME_COMPARATOR).toList();
+    return this.locationCatalog.getAllCities();
+  }
+
+  @Override
+  public List<City> suggestCities(final String prefix, final int limit) {
+    return this.locationCatalog.suggestCities(prefix, Math.min(limit, MAX_SUGGESTIONS));
+  }
+
+  @Transactional(readOnly = true)
+  @Override
+  public Page<City> getCitiesPage(final Set<String> fields, final Pageable pageRequest) {
+    return this.cityRepository.findPage(null, fields, sortedByName(pageRequest));
   }
 
   @Transactional
@@ -131,27 +223,92 @@ public class LocationServiceImpl implements LocationService {
     Optional.ofNullable(request.name()).ifPresent(city::setName);
     if (StringUtils.isNotBlank(request.stateId())
         && !city.getState().getId().equals(request.stateId())) {
-      State oldState = city.getState();
-
-      State newState = this.getStateById(request.stateId());
-      city.setState(newState);
-
-      oldState.removeCity(city);
-      newState.addCity(city);
-      this.stateRepository.save(oldState);
-      this.stateRepository.save(newState);
+      city.setState(this.getStateById(request.stateId()));
     }
     this.cityRepository.save(city);
     return city;
   }
 
+  @Transactional
+  @Override
+  public List<CityBatchResultVM> updateCities(final Map<String, CityUpdationRQ> requests) {
+    final Map<String, City> cities =
+        this.cityRepository
+            .findAllById(requests.keySet().stream().filter(ObjectId::isValid).toList())
+            .stream()
+            .collect(Collectors.toMap(City::getId, Function.identity()));
+    final Map<String, State> states =
+        this.stateRepository
+            .findAllById(
+                requests.values().stream()
+                    .map(CityUpdationRQ::stateId)
+                    .filter(stateId -> StringUtils.isNotBlank(stateId) && ObjectId.isValid(stateId))
+                    .distinct()
+                    .toList())
+            .stream()
+            .collect(Collectors.toMap(State::getId, Function.identity()));
+    final Map<String, String> cityIdsByCode =
+        this.cityRepository
+            .findAllByCodeIn(
+                requests.values().stream()
+                    .map(CityUpdationRQ::code)
+                    .filter(StringUtils::isNotBlank)
+                    .distinct()
+                    .toList())
+            .stream()
+            .collect(Collectors.toMap(City::getCode, City::getId));
+    final Set<String> batchCodes = new HashSet<>();
+    final List<CityBatchResultVM> results = new ArrayList<>(requests.size());
+    final List<City> updated = new ArrayList<>();
+    final List<Integer> positions = new ArrayList<>();
+    for (final Map.Entry<String, CityUpdationRQ> entry : requests.entrySet()) {
+      final String id = entry.getKey();
+      final CityUpdationRQ request = entry.getValue();
+      final City city = cities.get(id);
+      if (Objects.isNull(city)) {
+        results.add(CityBatchResultVM.notFound(id));
+      } else if (request.isEmpty()) {
+        results.add(CityBatchResultVM.rejected(id, city.getCode(), "Nothing to update"));
+      } else if (StringUtils.isNotBlank(request.stateId())
+          && !states.containsKey(request.stateId())) {
+        results.add(CityBatchResultVM.rejected(id, city.getCode(), "State not found"));
+      } else if (StringUtils.isNotBlank(request.code())
+          && !request.code().equals(city.getCode())
+          && (cityIdsByCode.containsKey(request.code()) || !batchCodes.add(request.code()))) {
+        results.add(CityBatchResultVM.rejected(id, request.code(), "City code already exists"));
+      } else {
+        Optional.ofNullable(request.code()).ifPresent(city::setCode);
+        Optional.ofNullable(request.name()).ifPresent(city::setName);
+        if (StringUtils.isNotBlank(request.stateId())) {
+          city.setState(states.get(request.stateId()));
+        }
+        positions.add(results.size());
+        results.add(null);
+        updated.add(city);
+      }
+    }
+    this.cityRepository.bulkReplace(updated);
+    for (int i = 0; i < updated.size(); i++) {
+      final City city = updated.get(i);
+      results.set(positions.get(i), CityBatchResultVM.updated(city.getId(), city.getCode()));
+    }
+    return results;
+  }
+
   @Transactional
   @Override
   public void deleteCity(final String id) {
-    final City city = this.getCityById(id);
-    final State state = city.getState();
-    state.removeCity(city);
-    this.stateRepository.save(state);
+    this.getCityById(id);
     this.cityRepository.deleteById(id);
   }
+
+  @Override
+  public String getCatalogVersion() {
+    return this.locationCatalog.getVersion();
+  }
+
+  // Sorted in MongoDB by name, case insensitive by collation so served by the name indexes
+  private static Pageable sortedByName(final Pageable pageRequest) {
+    return PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize(), SORT_BY_NAME);
+  }
 }
@@ -1,20 +1,40 @@
 package com.ksoot.domain.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ksoot.adapter.repository.MongoAuditHistoryRepository;
 import com.ksoot.common.mongo.AuditEvent;
+import com.ksoot.common.mongo.AuditRollup;
+import com.ksoot.problem.core.Problems;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
 public class MongoAuditHistoryService {
 
+  private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+  private static final String CSV_HEADER =
+      "datetime,revision,type,actor,collection_name,document_id,source";
+
   private final MongoAuditHistoryRepository mongoAuditHistoryRepository;
 
+  private final ObjectMapper objectMapper;
+
   public Page<AuditEvent> getAuditHistory(
       final String collectionName,
       final AuditEvent.Type type,
@@ -26,4 +46,164 @@ public class MongoAuditHistoryService {
     return this.mongoAuditHistoryRepository.getAuditHistory(
         collectionName, type, revisions, actor, fromDateTime, tillDateTime, pageRequest);
   }
+
+  public Window<AuditEvent> scrollAuditHistory(
+      final String collectionName,
+      final AuditEvent.Type type,
+      final List<Long> revisions,
+      final String actor,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime,
+      final String continuationToken,
+      final int size,
+      final Sort.Direction direction) {
+    return this.mongoAuditHistoryRepository.scrollAuditHistory(
+        collectionName,
+        type,
+        revisions,
+        actor,
+        fromDateTime,
+        tillDateTime,
+        continuationToken,
+        size,
+        direction);
+  }
+
+  public long countAuditHistory(
+      final String collectionName,
+      final AuditEvent.Type type,
+      final List<Long> revisions,
+      final String actor,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime) {
+    return this.mongoAuditHistoryRepository.countAuditHistory(
+        collectionName, type, revisions, actor, fromDateTime, tillDateTime);
+  }
+
+  public Page<AuditEvent> getDocumentAuditHistory(
+      final String collectionName,
+      final String documentId,
+      final Long fromRevision,
+      final Long tillRevision,
+      final Sort.Direction direction,
+      final Pageable pageRequest) {
+    return this.mongoAuditHistoryRepository.getDocumentAuditHistory(
+        collectionName, documentId, fromRevision, tillRevision, direction, pageRequest);
+  }
+
+  public AuditEvent getAuditEventAsOf(
+      final String collectionName, final String documentId, final OffsetDateTime datetime) {
+    return this.mongoAuditHistoryRepository
+        .getAuditEventAsOf(collectionName, documentId, datetime)
+        .orElseThrow(Problems::notFound);
+  }
+
+  public List<AuditRollup> getAuditRollups(
+      final String collectionName,
+      final AuditEvent.Type type,
+      final String actor,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime,
+      final AuditRollup.Granularity granularity) {
+    return this.mongoAuditHistoryRepository.getAuditRollups(
+        collectionName, type, actor, fromDateTime, tillDateTime, granularity);
+  }
+
+  /**
+   * Gets the audit history to export, without reading it yet. Invalid filters fail here, before
+   * anything is written to the response.
+   */
+  public Stream<AuditEvent> streamAuditHistory(
+      final String collectionName,
+      final AuditEvent.Type type,
+      final String actor,
+      final OffsetDateTime fromDateTime,
+      final OffsetDateTime tillDateTime) {
+    return this.mongoAuditHistoryRepository.streamAuditHistory(
+        collectionName, type, actor, fromDateTime, tillDateTime);
+  }
+
+  /**
+   * Writes given audit history in given format, one audit event per line, and closes the stream.
+   *
+   * @param auditEvents Audit events, as returned by {@link #streamAuditHistory}
+   * @param format Export format
+   * @param outputStream Output stream, flushed but not closed
+   */
+  public void writeAuditHistory(
+      final Stream<AuditEvent> auditEvents,
+      final ExportFormat format,
+      final OutputStream outputStream)
+      throws IOException {
+    final Writer writer =
+        new BufferedWriter(
+            new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+    try (auditEvents) {
+      if (format == ExportFormat.CSV) {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+      }
+      // Pushed with forEach, as pulling through an iterator buffers each flat mapped partition
+      auditEvents.forEach(
+          auditEvent -> {
+            try {
+              writer.write(
+                  format == ExportFormat.CSV
+                      ? this.toCsv(auditEvent)
+                      : this.objectMapper.writeValueAsString(auditEvent));
+              writer.write('\n');
+            } catch (final IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    }
+    writer.flush();
+  }
+
+  private String toCsv(final AuditEvent auditEvent) throws IOException {
+    return String.join(
+        ",",
+        auditEvent.getDatetime().toString(),
+        String.valueOf(auditEvent.getRevision()),
+        auditEvent.getType().name(),
+        csvField(auditEvent.getActor()),
+        csvField(auditEvent.getCollectionName()),
+        csvField(String.valueOf(auditEvent.getSource().get("_id"))),
+        csvField(this.objectMapper.writeValueAsString(auditEvent.getSource())));
+  }
+
+  // RFC 4180, fields with separators, quotes or line breaks are quoted with quotes doubled
+  private static String csvField(final String value) {
+    if (value.indexOf(',') < 0
+        && value.indexOf('"') < 0
+        && value.indexOf('\n') < 0
+        && value.indexOf('\r') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+
+    private final String extension;
+
+    ExportFormat(final String contentType, final String extension) {
+      this.contentType = contentType;
+      this.extension = extension;
+    }
+
+    public String getContentType() {
+      return this.contentType;
+    }
+
+    public String getExtension() {
+      return this.extension;
+    }
+  }
 }
@@ -0,0 +1,105 @@
+package com.ksoot.domain.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix index, a sorted array of normalized terms searched by binary search. Terms are
+ * case and accent insensitive, so <code>new d</code> finds <code>New Delhi</code>.
+ *
+ * @param <T> Type of indexed items
+ */
+final class PrefixIndex<T> {
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+  private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+  private final String[] terms;
+
+  private final List<T> items;
+
+  private PrefixIndex(final String[] terms, final List<T> items) {
+    this.terms = terms;
+    this.items = items;
+  }
+
+  /**
+   * Indexes given items by their terms, items with equal terms are found in given order.
+   *
+   * @param termsOf Terms to find an item by, e.g. its name and code
+   */
+  static <T> PrefixIndex<T> of(
+      final Collection<T> items, final Function<T, Collection<String>> termsOf) {
+    final List<Map.Entry<String, T>> entries = new ArrayList<>();
+    for (final T item : items) {
+      for (final String term : termsOf.apply(item)) {
+        final String normalized = normalize(term);
+        if (!normalized.isEmpty()) {
+          entries.add(Map.entry(normalized, item));
+        }
+      }
+    }
+    // Stable, so equal terms keep the order of items
+    entries.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+    return new PrefixIndex<>(
+        entries.stream().map(Map.Entry::getKey).toArray(String[]::new),
+        entries.stream().map(Map.Entry::getValue).toList());
+  }
+
+  /** Terms of a name, the name and the name from each of its later words, with given codes. */
+  static List<String> nameTerms(final String name, final String... codes) {
+    final List<String> terms = new ArrayList<>(List.of(codes));
+    terms.add(name);
+    final String[] words = WHITESPACES.split(name.trim());
+    for (int i = 1; i < words.length; i++) {
+      terms.add(String.join(" ", List.of(words).subList(i, words.length)));
+    }
+    return terms;
+  }
+
+  /** Finds up to given number of distinct items having a term starting with given prefix. */
+  List<T> find(final String prefix, final int limit) {
+    final String normalized = normalize(prefix);
+    if (normalized.isEmpty() || limit < 1) {
+      return List.of();
+    }
+    final Set<T> found = new LinkedHashSet<>();
+    for (int i = this.lowerBound(normalized);
+        i < this.terms.length && this.terms[i].startsWith(normalized) && found.size() < limit;
+        i++) {
+      found.add(this.items.get(i));
+    }
+    return List.copyOf(found);
+  }
+
+  // Index of the first term not less than given key
+  private int lowerBound(final String key) {
+    int low = 0;
+    int high = this.terms.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.terms[mid].compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  static String normalize(final String text) {
+    final String stripped =
+        DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+    return WHITESPACES.matcher(stripped.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,30 @@
+package com.ksoot;
+
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Skipped when Docker is not available. MongoDBContainer runs as a single node replica set, so
+// transactions are supported
+@Testcontainers(disabledWithoutDocker = true)
+@DataMongoTest(
+    properties = {
+      "application.mongodb.auditing.enabled=true",
+      "application.mongodb.entity-base-packages=com.ksoot.domain.model"
+    })
+@ContextConfiguration(classes = MongoDBTestConfiguration.class)
+public abstract class AbstractMongoDBTest {
+
+  @Container
+  protected static final MongoDBContainer MONGO_DB_CONTAINER = new MongoDBContainer("mongo:7.0");
+
+  @DynamicPropertySource
+  static void mongoDBProperties(final DynamicPropertyRegistry registry) {
+    registry.add("spring.data.mongodb.uri", MONGO_DB_CONTAINER::getReplicaSetUrl);
+    registry.add("spring.data.mongodb.database", () -> "sample_test_db");
+  }
+}
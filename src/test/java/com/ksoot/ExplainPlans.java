@@ -0,0 +1,45 @@
+package com.ksoot;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+public class ExplainPlans {
+
+  private ExplainPlans() {}
+
+  /**
+   * Explains a find command and returns the stages of its winning plan, with the names of the
+   * indexes each stage scans.
+   */
+  public static Map<String, Set<String>> winningPlanStages(
+      final MongoTemplate mongoTemplate, final Document find) {
+    final Document explain =
+        mongoTemplate
+            .getDb()
+            .runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+    final Map<String, Set<String>> stages = new HashMap<>();
+    collectStages(explain.get("queryPlanner", Document.class).get("winningPlan"), stages);
+    return stages;
+  }
+
+  // Stages are nested under inputStage, inputStages or queryPlan depending on server version
+  private static void collectStages(final Object plan, final Map<String, Set<String>> stages) {
+    if (plan instanceof Document document) {
+      if (document.containsKey("stage")) {
+        final Set<String> indexNames =
+            stages.computeIfAbsent(document.getString("stage"), stage -> new HashSet<>());
+        if (document.containsKey("indexName")) {
+          indexNames.add(document.getString("indexName"));
+        }
+      }
+      document.values().forEach(value -> collectStages(value, stages));
+    } else if (plan instanceof List<?> list) {
+      list.forEach(element -> collectStages(element, stages));
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.ksoot;
+
+import com.ksoot.adapter.repository.StateRepository;
+import com.ksoot.common.config.MongoAuditListener;
+import com.ksoot.common.config.MongoDBConfig;
+import com.ksoot.common.mongo.AuditCompressionCodec;
+import com.ksoot.common.mongo.AuditContentHasher;
+import com.ksoot.common.mongo.AuditDeltaCodec;
+import com.ksoot.common.mongo.AuditEventQueue;
+import com.ksoot.common.mongo.AuditEventWriter;
+import com.ksoot.common.mongo.AuditIndexes;
+import com.ksoot.common.mongo.AuditMetaData;
+import com.ksoot.common.mongo.AuditPartitions;
+import com.ksoot.common.mongo.AuditRevisionSequence;
+import com.ksoot.common.mongo.AuditRollups;
+import com.ksoot.domain.service.LocationCatalog;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+@Configuration
+@EnableMongoRepositories(basePackageClasses = StateRepository.class)
+@Import({
+  MongoDBConfig.class,
+  AuditMetaData.class,
+  AuditRevisionSequence.class,
+  AuditEventQueue.class,
+  AuditEventWriter.class,
+  AuditDeltaCodec.class,
+  AuditCompressionCodec.class,
+  AuditContentHasher.class,
+  AuditIndexes.class,
+  AuditPartitions.class,
+  AuditRollups.class,
+  MongoAuditListener.class,
+  LocationCatalog.class
+})
+public class MongoDBTestConfiguration {}
@@ -0,0 +1,107 @@
+package com.ksoot.adapter.controller;
+
+import static com.ksoot.common.CommonConstants.HEADER_EXPAND;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.ksoot.common.util.rest.ETags;
+import com.ksoot.domain.service.LocationService;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.server.ResponseStatusException;
+
+class LocationControllerTest {
+
+  private static final String STATE_ID = "6558c30160463a1fee00c7dc";
+
+  private static final String CITY_COUNT_PATH = "/v1/location/states/" + STATE_ID + "/cities/count";
+
+  private static final String CITY_ID = "6558c30160463a1fee00c7dd";
+
+  private static final String MISSING_CITY_ID = "6558c30160463a1fee00c7de";
+
+  private static final String CATALOG_VERSION = "7-0123456789abcdef";
+
+  private LocationService locationService;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    this.locationService = mock(LocationService.class);
+    when(this.locationService.getCatalogVersion()).thenReturn(CATALOG_VERSION);
+    when(this.locationService.getCityCount(STATE_ID)).thenReturn(3);
+    this.mockMvc =
+        MockMvcBuilders.standaloneSetup(new LocationController(this.locationService)).build();
+  }
+
+  @Test
+  @DisplayName("Test conditional GET responds with a single entity tag, 304 if not modified")
+  void testGetCityCountByStateId_ETag() throws Exception {
+    final String eTag = ETags.of(CATALOG_VERSION);
+
+    final MockHttpServletResponse modified =
+        this.mockMvc
+            .perform(
+                get(CITY_COUNT_PATH).header(HttpHeaders.IF_NONE_MATCH, "\"6-fedcba9876543210\""))
+            .andReturn()
+            .getResponse();
+    final MockHttpServletResponse notModified =
+        this.mockMvc
+            .perform(get(CITY_COUNT_PATH).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andReturn()
+            .getResponse();
+
+    assertAll(
+        "Verify conditional responses",
+        () -> assertEquals(HttpStatus.OK.value(), modified.getStatus()),
+        () -> assertEquals("3", modified.getContentAsString()),
+        () -> assertEquals(List.of(eTag), modified.getHeaders(HttpHeaders.ETAG)),
+        () -> assertEquals(HttpStatus.NOT_MODIFIED.value(), notModified.getStatus()),
+        () -> assertEquals("", notModified.getContentAsString()),
+        () -> assertEquals(List.of(eTag), notModified.getHeaders(HttpHeaders.ETAG)),
+        () -> verify(this.locationService, times(1)).getCityCount(STATE_ID));
+  }
+
+  @Test
+  @DisplayName("Test conditional GET of any entity tag is not modified only if the resource exists")
+  void testGetCityById_WildcardETag() throws Exception {
+    when(this.locationService.isCatalogedCity(CITY_ID)).thenReturn(true);
+    when(this.locationService.getCityById(MISSING_CITY_ID))
+        .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+    final MockHttpServletResponse existing =
+        this.mockMvc
+            .perform(
+                get("/v1/location/cities/" + CITY_ID)
+                    .header(HEADER_EXPAND, "state")
+                    .header(HttpHeaders.IF_NONE_MATCH, "*"))
+            .andReturn()
+            .getResponse();
+    final MockHttpServletResponse missing =
+        this.mockMvc
+            .perform(
+                get("/v1/location/cities/" + MISSING_CITY_ID)
+                    .header(HEADER_EXPAND, "state")
+                    .header(HttpHeaders.IF_NONE_MATCH, "*"))
+            .andReturn()
+            .getResponse();
+
+    assertAll(
+        "Verify wildcard conditional responses",
+        () -> assertEquals(HttpStatus.NOT_MODIFIED.value(), existing.getStatus()),
+        () -> assertEquals(HttpStatus.NOT_FOUND.value(), missing.getStatus()));
+  }
+}
@@ -0,0 +1,188 @@
+package com.ksoot.adapter.repository;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLATION_CASE_INSENSITIVE;
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_CITY;
+import static com.ksoot.domain.model.dto.CityBatchResultVM.Status.NOT_FOUND;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.ExplainPlans;
+import com.ksoot.domain.migration.CreateLocationNameIndexes;
+import com.ksoot.domain.model.City;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.CityBatchResultVM;
+import com.ksoot.domain.model.dto.CityCreationRQ;
+import com.ksoot.domain.model.dto.CityUpdationRQ;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.ksoot.domain.service.LocationService;
+import com.ksoot.domain.service.LocationServiceImpl;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@Import(LocationServiceImpl.class)
+class CityRepositoryTest extends AbstractMongoDBTest {
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private MongoTemplate mongoTemplate;
+
+  @Test
+  @DisplayName("Test cities of a state are paged by name case insensitively, with requested fields")
+  void testGetCitiesPageByStateId() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("PG").name("Paged State").isUT(false).build());
+    final State other =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("PO").name("Other State").isUT(false).build());
+    for (final String name : List.of("gamma", "Beta", "alpha", "Delta")) {
+      this.locationService.createCity(
+          state.getId(), CityCreationRQ.builder().code("P" + name.charAt(0)).name(name).build());
+    }
+    this.locationService.createCity(
+        other.getId(), CityCreationRQ.builder().code("PX").name("Aardvark").build());
+
+    final Page<City> first =
+        this.locationService.getCitiesPageByStateId(state.getId(), Set.of(), PageRequest.of(0, 3));
+    final Page<City> second =
+        this.locationService.getCitiesPageByStateId(state.getId(), Set.of(), PageRequest.of(1, 3));
+    final Page<City> codes =
+        this.locationService.getCitiesPageByStateId(
+            state.getId(), Set.of("code"), PageRequest.of(0, 3));
+
+    assertAll(
+        "Verify cities page",
+        () -> assertEquals(4, first.getTotalElements()),
+        () ->
+            assertEquals(
+                List.of("alpha", "Beta", "Delta"),
+                first.getContent().stream().map(City::getName).toList()),
+        () ->
+            assertEquals(
+                List.of("gamma"), second.getContent().stream().map(City::getName).toList()),
+        () ->
+            assertEquals(
+                List.of("Pa", "PB", "PD"), codes.getContent().stream().map(City::getCode).toList()),
+        () ->
+            codes
+                .getContent()
+                .forEach(
+                    city -> assertNull(city.getName(), "Expected only requested fields read")));
+  }
+
+  @Test
+  @DisplayName("Test cities are created and updated in bulk, with a result per city")
+  void testBatchCreateAndUpdateCities() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("BT").name("Batch State").isUT(false).build());
+    final State other =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("BO").name("Batch Other").isUT(false).build());
+    this.locationService.createCity(
+        state.getId(), CityCreationRQ.builder().code("B0").name("Existing").build());
+
+    final List<CityBatchResultVM> created =
+        this.locationService.createCities(
+            state.getId(),
+            List.of(
+                CityCreationRQ.builder().code("B1").name("First").build(),
+                CityCreationRQ.builder().code("B0").name("Duplicate").build(),
+                CityCreationRQ.builder().code("B2").name("Second").build(),
+                CityCreationRQ.builder().code("B2").name("Repeated").build()));
+    final String firstId = created.get(0).id();
+    final String secondId = created.get(2).id();
+
+    final List<CityBatchResultVM> updated =
+        this.locationService.updateCities(
+            Map.of(
+                firstId,
+                CityUpdationRQ.builder().name("First Updated").stateId(other.getId()).build(),
+                secondId,
+                CityUpdationRQ.builder().code("B0").build(),
+                new ObjectId().toHexString(),
+                CityUpdationRQ.builder().name("Missing").build()));
+    final Map<String, CityBatchResultVM.Status> updateStatuses =
+        updated.stream()
+            .collect(Collectors.toMap(CityBatchResultVM::id, CityBatchResultVM::status));
+    final City first = this.locationService.getCityById(firstId);
+
+    assertAll(
+        "Verify batch results",
+        () ->
+            assertEquals(
+                List.of(
+                    CityBatchResultVM.Status.CREATED,
+                    CityBatchResultVM.Status.REJECTED,
+                    CityBatchResultVM.Status.CREATED,
+                    CityBatchResultVM.Status.REJECTED),
+                created.stream().map(CityBatchResultVM::status).toList()),
+        () -> assertEquals("B2", this.locationService.getCityById(secondId).getCode()),
+        () -> assertEquals(CityBatchResultVM.Status.UPDATED, updateStatuses.get(firstId)),
+        () -> assertEquals(CityBatchResultVM.Status.REJECTED, updateStatuses.get(secondId)),
+        () -> assertEquals(1, updateStatuses.values().stream().filter(NOT_FOUND::equals).count()),
+        () -> assertEquals("First Updated", first.getName()),
+        () -> assertEquals(other.getId(), first.getState().getId()),
+        () -> assertEquals(1L, first.getVersion()));
+  }
+
+  @Test
+  @DisplayName("Test requested fields not being City properties are ignored")
+  void testGetCitiesPage_UnknownFields() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("UF").name("Fields State").isUT(false).build());
+    final City city =
+        this.locationService.createCity(
+            state.getId(), CityCreationRQ.builder().code("UF1").name("Fields City").build());
+
+    final Page<City> page =
+        this.locationService.getCitiesPageByStateId(
+            state.getId(), Set.of("$", "name.$", "code", "unknown"), PageRequest.of(0, 3));
+
+    assertAll(
+        "Verify cities page of unknown fields",
+        () -> assertEquals(List.of(city.getId()), page.map(City::getId).getContent()),
+        () -> assertEquals("UF1", page.getContent().getFirst().getCode()),
+        () -> assertNull(page.getContent().getFirst().getName()));
+  }
+
+  @Test
+  @DisplayName("Test cities of a state page query is served by the state name index")
+  void testGetCitiesPageByStateId_IndexScan() {
+    // Mongock is disabled in tests
+    new CreateLocationNameIndexes().execution(this.mongoTemplate);
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("IN").name("Indexed State").isUT(false).build());
+
+    final Map<String, Set<String>> stages =
+        ExplainPlans.winningPlanStages(
+            this.mongoTemplate,
+            new Document("find", COLLECTION_CITY)
+                .append("filter", new Document("state", new ObjectId(state.getId())))
+                .append("sort", new Document("name", 1))
+                .append("collation", Document.parse(COLLATION_CASE_INSENSITIVE))
+                .append("skip", 10)
+                .append("limit", 10));
+
+    assertAll(
+        "Verify cities of a state page query plan",
+        () -> assertEquals(Set.of("idx_state_name_ci"), stages.get("IXSCAN")),
+        () -> assertFalse(stages.containsKey("SORT"), "Expected no in memory sort"));
+  }
+}
@@ -0,0 +1,202 @@
+package com.ksoot.adapter.repository;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.common.mongo.AuditEvent;
+import com.ksoot.common.util.pagination.ContinuationToken;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.ksoot.domain.model.dto.StateUpdationRQ;
+import com.ksoot.domain.service.LocationService;
+import com.ksoot.domain.service.LocationServiceImpl;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+@Import({LocationServiceImpl.class, MongoAuditHistoryRepository.class})
+class MongoAuditHistoryRepositoryTest extends AbstractMongoDBTest {
+
+  private static final int PAGE_SIZE = 7;
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private MongoAuditHistoryRepository mongoAuditHistoryRepository;
+
+  @Test
+  @DisplayName("Test scrolling Audit History with continuation tokens visits every record once")
+  void testScrollAuditHistory_AllRecordsInOrder() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("KS").name("Keyset State").isUT(false).build());
+    for (int i = 1; i <= 30; i++) {
+      this.locationService.updateState(
+          state.getId(), StateUpdationRQ.builder().isUT(i % 2 == 1).build());
+    }
+
+    final List<Long> scrolled = new ArrayList<>();
+    String continuationToken = null;
+    int pages = 0;
+    Window<AuditEvent> window;
+    do {
+      pages++;
+      window =
+          this.mongoAuditHistoryRepository.scrollAuditHistory(
+              "states",
+              null,
+              null,
+              null,
+              null,
+              null,
+              continuationToken,
+              PAGE_SIZE,
+              Sort.Direction.ASC);
+      window.forEach(auditEvent -> scrolled.add(auditEvent.getRevision()));
+      continuationToken =
+          window.hasNext()
+              ? ContinuationToken.encode(
+                  (KeysetScrollPosition) window.positionAt(window.size() - 1))
+              : null;
+    } while (window.hasNext());
+
+    final int expectedPages = pages;
+    final List<Long> paged =
+        this.mongoAuditHistoryRepository
+            .getAuditHistory(
+                "states",
+                null,
+                null,
+                null,
+                null,
+                null,
+                PageRequest.of(0, 100, Sort.by("datetime", "revision")))
+            .map(AuditEvent::getRevision)
+            .getContent();
+
+    assertAll(
+        "Verify scrolled Audit History",
+        () -> assertEquals(paged, scrolled, "Expected same records as offset pagination"),
+        () -> assertEquals(31, scrolled.size(), "Expected one record per write"),
+        () -> assertEquals(5, expectedPages, "Expected pages of 7 records"),
+        () ->
+            assertEquals(
+                paged.size(),
+                this.mongoAuditHistoryRepository.countAuditHistory(
+                    "states", null, null, null, null, null),
+                "Expected total count of all records"));
+  }
+
+  @Test
+  @DisplayName("Test scrolling Audit History with malformed continuation token fails")
+  void testScrollAuditHistory_InvalidToken() {
+    assertThrows(
+        RuntimeException.class,
+        () ->
+            this.mongoAuditHistoryRepository.scrollAuditHistory(
+                "states", null, null, null, null, null, "not-a-token", 5, Sort.Direction.ASC));
+  }
+
+  @Test
+  @DisplayName("Test document as of a datetime is the latest revision at or before it")
+  void testGetAuditEventAsOf() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("AO").name("As Of State").isUT(false).build());
+    for (final String name : List.of("As Of One", "As Of Two", "As Of Three")) {
+      this.locationService.updateState(state.getId(), StateUpdationRQ.builder().name(name).build());
+    }
+    final List<AuditEvent> history =
+        this.mongoAuditHistoryRepository
+            .getAuditHistory(
+                "states",
+                null,
+                null,
+                null,
+                null,
+                null,
+                PageRequest.of(0, 1000, Sort.by("datetime", "revision")))
+            .filter(
+                auditEvent -> state.getId().equals(auditEvent.getSource().get("_id").toString()))
+            .toList();
+
+    final List<Runnable> assertions = new ArrayList<>();
+    for (final AuditEvent revision : history) {
+      final AuditEvent expected =
+          history.stream()
+              .filter(auditEvent -> !auditEvent.getDatetime().isAfter(revision.getDatetime()))
+              .reduce((first, second) -> second)
+              .get();
+      // Looked up twice, second time served from cache
+      for (int i = 0; i < 2; i++) {
+        final AuditEvent asOf =
+            this.mongoAuditHistoryRepository
+                .getAuditEventAsOf("states", state.getId(), revision.getDatetime())
+                .get();
+        assertions.add(
+            () -> {
+              assertEquals(expected.getRevision(), asOf.getRevision());
+              assertEquals(expected.getSource(), asOf.getSource());
+            });
+      }
+    }
+    final Optional<AuditEvent> beforeCreation =
+        this.mongoAuditHistoryRepository.getAuditEventAsOf(
+            "states", state.getId(), history.getFirst().getDatetime().minusSeconds(1));
+
+    assertAll(
+        "Verify document as of datetime",
+        () -> assertEquals(4, history.size(), "Expected one revision per write"),
+        () -> assertions.forEach(Runnable::run),
+        () -> assertFalse(beforeCreation.isPresent(), "Expected no document before creation"),
+        () ->
+            assertEquals(
+                "As Of Three",
+                this.mongoAuditHistoryRepository
+                    .getAuditEventAsOf("states", state.getId(), OffsetDateTime.now())
+                    .get()
+                    .getSource()
+                    .getString("name")));
+  }
+
+  @Test
+  @DisplayName("Test streaming Audit History returns same records as paging, in order")
+  void testStreamAuditHistory() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("SX").name("Stream State").isUT(false).build());
+    for (int i = 1; i <= 10; i++) {
+      this.locationService.updateState(
+          state.getId(), StateUpdationRQ.builder().isUT(i % 2 == 1).build());
+    }
+    final List<Long> paged =
+        this.mongoAuditHistoryRepository
+            .getAuditHistory(
+                "states",
+                null,
+                null,
+                null,
+                null,
+                null,
+                PageRequest.of(0, 1000, Sort.by("datetime", "revision")))
+            .map(AuditEvent::getRevision)
+            .getContent();
+
+    try (Stream<AuditEvent> streamed =
+        this.mongoAuditHistoryRepository.streamAuditHistory("states", null, null, null, null)) {
+      assertEquals(paged, streamed.map(AuditEvent::getRevision).toList());
+    }
+  }
+}
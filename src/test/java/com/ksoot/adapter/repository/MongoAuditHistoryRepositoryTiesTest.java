@@ -0,0 +1,79 @@
+package com.ksoot.adapter.repository;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.common.mongo.AuditEvent;
+import com.ksoot.common.mongo.AuditMetaData;
+import com.ksoot.common.util.pagination.ContinuationToken;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+@Import(MongoAuditHistoryRepository.class)
+@TestPropertySource(properties = "application.mongodb.auditing.revision-scheme=DOCUMENT")
+class MongoAuditHistoryRepositoryTiesTest extends AbstractMongoDBTest {
+
+  private static final OffsetDateTime DATETIME =
+      OffsetDateTime.of(2001, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  @Autowired private MongoAuditHistoryRepository mongoAuditHistoryRepository;
+
+  @Autowired private AuditMetaData auditMetaData;
+
+  @Autowired private MongoTemplate mongoTemplate;
+
+  @Test
+  @DisplayName(
+      "Test scrolling revisions of the same datetime and revision visits every record once")
+  void testScrollAuditHistory_Ties() {
+    final String auditCollectionName = this.auditMetaData.getAuditCollection("states").get();
+    final List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      final AuditEvent auditEvent =
+          AuditEvent.of(
+              AuditEvent.Type.CREATED,
+              DATETIME.toInstant().toEpochMilli(),
+              1L,
+              "states",
+              new Document("_id", new ObjectId()).append("version", 0L),
+              "test");
+      ids.add(this.mongoTemplate.insert(auditEvent, auditCollectionName).getId());
+    }
+
+    for (final Sort.Direction direction : Sort.Direction.values()) {
+      final List<String> scrolled = new ArrayList<>();
+      String continuationToken = null;
+      Window<AuditEvent> window;
+      do {
+        window =
+            this.mongoAuditHistoryRepository.scrollAuditHistory(
+                "states", null, null, null, DATETIME, DATETIME, continuationToken, 2, direction);
+        window.forEach(auditEvent -> scrolled.add(auditEvent.getId()));
+        continuationToken =
+            window.hasNext()
+                ? ContinuationToken.encode(
+                    (KeysetScrollPosition) window.positionAt(window.size() - 1))
+                : null;
+      } while (window.hasNext());
+
+      final List<String> expected = direction.isAscending() ? ids : ids.reversed();
+      assertAll(
+          "Verify scrolled ties in " + direction + " order",
+          () -> assertEquals(expected, scrolled, "Expected every tied record once, by _id"));
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.ksoot.adapter.repository;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_STATE;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.domain.model.City;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.CityCreationRQ;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.ksoot.domain.service.LocationService;
+import com.ksoot.domain.service.LocationServiceImpl;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@Import(LocationServiceImpl.class)
+class StateRepositoryTest extends AbstractMongoDBTest {
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private StateRepository stateRepository;
+
+  @Autowired private MongoTemplate mongoTemplate;
+
+  @Test
+  @DisplayName("Test state is read with its cities joined and sorted by name")
+  void testFindByIdWithCities() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("LK").name("Lookup State").isUT(false).build());
+    this.locationService.createCity(
+        state.getId(), CityCreationRQ.builder().code("LK2").name("Zeta").build());
+    this.locationService.createCity(
+        state.getId(), CityCreationRQ.builder().code("LK1").name("alpha").build());
+
+    final State joined = this.stateRepository.findByIdWithCities(state.getId()).orElseThrow();
+
+    assertAll(
+        "Verify state with cities",
+        () -> assertEquals("LK", joined.getCode()),
+        () ->
+            assertEquals(
+                List.of("alpha", "Zeta"), joined.getCities().stream().map(City::getName).toList()),
+        () -> joined.getCities().forEach(city -> assertSame(joined, city.getState())),
+        () ->
+            assertTrue(
+                this.stateRepository.findByIdWithCities("not-an-object-id").isEmpty(),
+                "Expected no state for invalid id"));
+  }
+
+  @Test
+  @DisplayName("Test cities of a state are looked up, not stored on the state")
+  void testCitiesLookedUp() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("RL").name("Reverse Lookup").isUT(false).build());
+    final City city =
+        this.locationService.createCity(
+            state.getId(), CityCreationRQ.builder().code("RL1").name("Lookup City").build());
+
+    final Document stored =
+        this.mongoTemplate.findById(new ObjectId(state.getId()), Document.class, COLLECTION_STATE);
+    final State read = this.stateRepository.findById(state.getId()).orElseThrow();
+
+    assertAll(
+        "Verify cities looked up",
+        () -> assertFalse(stored.containsKey("cities"), "Expected no cities stored on state"),
+        () ->
+            assertEquals(
+                List.of(city.getCode()), read.getCities().stream().map(City::getCode).toList()),
+        () -> assertEquals(1, this.locationService.getCityCount(state.getId())));
+  }
+}
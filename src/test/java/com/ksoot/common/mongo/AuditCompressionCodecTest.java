@@ -0,0 +1,141 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mongodb.MongoClientSettings;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+class AuditCompressionCodecTest {
+
+  // Bytes to process per measurement, so large documents do not take forever
+  private static final int MEASURED_BYTES = 2_000_000;
+
+  private AuditMetaData auditMetaData;
+
+  @BeforeEach
+  void setUp() {
+    this.auditMetaData = new AuditMetaData();
+    this.auditMetaData.put("states", AuditMetaData.Metadata.of("states_aud", "version"));
+  }
+
+  @Test
+  @DisplayName("Test large audit source is compressed and restored as is")
+  void testCompress_RoundTrip() {
+    final AuditCompressionCodec codec = this.codec(1024, 6);
+    final Document source = state(500);
+    final AuditEvent auditEvent =
+        AuditEvent.of(AuditEvent.Type.UPDATED, 0L, 1L, "states", source, "SYSTEM");
+
+    final AuditEvent compressed = codec.compress(auditEvent);
+    final AuditEvent decompressed = codec.decompress(compressed);
+
+    assertAll(
+        "Verify compression",
+        () -> assertTrue(compressed.isCompressed(), "Expected source to be compressed"),
+        () ->
+            assertEquals(
+                new Document("_id", source.get("_id")).append("version", 7L),
+                compressed.getSource(),
+                "Expected only _id and version left in source"),
+        () -> assertFalse(decompressed.isCompressed()),
+        () -> assertEquals(source, decompressed.getSource(), "Expected source restored"));
+  }
+
+  @Test
+  @DisplayName("Test audit source below threshold is stored as is")
+  void testCompress_BelowThreshold() {
+    final AuditCompressionCodec codec = this.codec(1024 * 1024, 6);
+    final AuditEvent auditEvent =
+        AuditEvent.of(AuditEvent.Type.UPDATED, 0L, 1L, "states", state(500), "SYSTEM");
+
+    assertFalse(codec.compress(auditEvent).isCompressed());
+  }
+
+  @Test
+  @Tag("benchmark")
+  @DisplayName("Benchmark compression ratio and CPU cost of State audit sources")
+  void benchmarkCompression() {
+    final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    log.info(
+        String.format(
+            "%8s %6s %10s %10s %8s %12s %12s",
+            "cities", "level", "bson", "deflated", "ratio", "encode(us)", "decode(us)"));
+    for (final int cities : List.of(10, 100, 1_000, 5_000)) {
+      for (final int level : List.of(1, 6, 9)) {
+        final AuditCompressionCodec codec = this.codec(1, level);
+        final AuditEvent auditEvent =
+            AuditEvent.of(AuditEvent.Type.UPDATED, 0L, 1L, "states", state(cities), "SYSTEM");
+        final int bsonSize = codec.encode(auditEvent.getSource()).length;
+        final AuditEvent compressed = codec.compress(auditEvent);
+        final int deflatedSize =
+            compressed.isCompressed() ? compressed.getCompressedSource().length() : bsonSize;
+        final int iterations = Math.max(20, Math.min(2_000, MEASURED_BYTES / bsonSize));
+
+        for (int i = 0; i < iterations / 5; i++) {
+          codec.decompress(codec.compress(auditEvent));
+        }
+        long start = threadMXBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+          codec.compress(auditEvent);
+        }
+        final double encodeMicros =
+            (threadMXBean.getCurrentThreadCpuTime() - start) / 1_000.0 / iterations;
+        start = threadMXBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+          codec.decompress(compressed);
+        }
+        final double decodeMicros =
+            (threadMXBean.getCurrentThreadCpuTime() - start) / 1_000.0 / iterations;
+
+        log.info(
+            String.format(
+                "%8d %6d %10d %10d %8.2f %12.1f %12.1f",
+                cities,
+                level,
+                bsonSize,
+                deflatedSize,
+                (double) bsonSize / deflatedSize,
+                encodeMicros,
+                decodeMicros));
+      }
+    }
+  }
+
+  private AuditCompressionCodec codec(final int thresholdBytes, final int level) {
+    final MongoAuditProperties.Compression compression =
+        new MongoAuditProperties().new Compression();
+    compression.setEnabled(true);
+    compression.setThresholdBytes(thresholdBytes);
+    compression.setLevel(level);
+    return new AuditCompressionCodec(
+        MongoClientSettings.getDefaultCodecRegistry(), this.auditMetaData, compression);
+  }
+
+  // State as stored, cities are document references i.e. ObjectIds
+  private static Document state(final int cities) {
+    return new Document("_id", new ObjectId())
+        .append("version", 7L)
+        .append("code", "KA")
+        .append("name", "Karnataka")
+        .append("isUT", false)
+        .append("cities", IntStream.range(0, cities).mapToObj(i -> new ObjectId()).toList())
+        .append("createdAt", Date.from(Instant.now()))
+        .append("_class", "state");
+  }
+}
@@ -0,0 +1,154 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.MongoClientSettings;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+class AuditContentHasherTest {
+
+  private MongoOperations mongoOperations;
+
+  private AuditContentHasher auditContentHasher;
+
+  @BeforeEach
+  void setUp() {
+    this.mongoOperations = mock(MongoOperations.class);
+    final AuditMetaData auditMetaData = new AuditMetaData();
+    auditMetaData.put("states", AuditMetaData.Metadata.of("states_aud", "version"));
+    final MongoAuditProperties.Deduplication deduplication =
+        new MongoAuditProperties().new Deduplication();
+    deduplication.setEnabled(true);
+    this.auditContentHasher =
+        new AuditContentHasher(
+            this.mongoOperations,
+            MongoClientSettings.getDefaultCodecRegistry(),
+            auditMetaData,
+            deduplication);
+  }
+
+  @Test
+  @DisplayName("Test content hash ignores version property only")
+  void testHash() {
+    final ObjectId id = new ObjectId();
+    final String hash = this.auditContentHasher.hash("states", state(id, 1L, "Karnataka"));
+
+    assertAll(
+        "Verify content hash",
+        () ->
+            assertEquals(hash, this.auditContentHasher.hash("states", state(id, 2L, "Karnataka"))),
+        () ->
+            assertNotEquals(
+                hash, this.auditContentHasher.hash("states", state(id, 2L, "Karnatka"))));
+  }
+
+  @Test
+  @DisplayName("Test re-save of unchanged document is detected from cached hash")
+  void testIsUnchanged_Cached() {
+    final ObjectId id = new ObjectId();
+    final Document created = state(id, 0L, "Karnataka");
+    final String createdHash = this.auditContentHasher.hash("states", created);
+    assertFalse(this.auditContentHasher.isUnchanged("states", created, createdHash));
+    this.auditContentHasher.record(this.auditEvent(AuditEvent.Type.CREATED, created, createdHash));
+
+    final Document resaved = state(id, 1L, "Karnataka");
+    final Document updated = state(id, 2L, "Karnatka");
+
+    assertAll(
+        "Verify unchanged detection",
+        () ->
+            assertTrue(
+                this.auditContentHasher.isUnchanged(
+                    "states", resaved, this.auditContentHasher.hash("states", resaved))),
+        () ->
+            assertFalse(
+                this.auditContentHasher.isUnchanged(
+                    "states", updated, this.auditContentHasher.hash("states", updated))));
+    // Created document has no audit history, and later lookups are served from cache
+    verify(this.mongoOperations, never())
+        .findOne(any(Query.class), eq(Document.class), any(String.class));
+  }
+
+  @Test
+  @DisplayName("Test latest hash is read from audit collection on cache miss, once")
+  void testIsUnchanged_CacheMiss() {
+    final ObjectId id = new ObjectId();
+    final Document document = state(id, 3L, "Karnataka");
+    final String hash = this.auditContentHasher.hash("states", document);
+    when(this.mongoOperations.findOne(any(Query.class), eq(Document.class), eq("states_aud")))
+        .thenReturn(new Document("type", "UPDATED").append("hash", hash));
+
+    assertTrue(this.auditContentHasher.isUnchanged("states", document, hash));
+    // Next version is served from cache, as the skipped version has the latest hash
+    assertTrue(this.auditContentHasher.isUnchanged("states", state(id, 4L, "Karnataka"), hash));
+    verify(this.mongoOperations, times(1))
+        .findOne(any(Query.class), eq(Document.class), eq("states_aud"));
+  }
+
+  @Test
+  @DisplayName("Test cached hash is not trusted once the document is saved through another node")
+  void testIsUnchanged_StaleCache() {
+    final ObjectId id = new ObjectId();
+    final Document created = state(id, 0L, "Karnataka");
+    final String createdHash = this.auditContentHasher.hash("states", created);
+    this.auditContentHasher.record(this.auditEvent(AuditEvent.Type.CREATED, created, createdHash));
+    // Version 1 saved and audited by another node, with different content
+    when(this.mongoOperations.findOne(any(Query.class), eq(Document.class), eq("states_aud")))
+        .thenReturn(
+            new Document("type", "UPDATED")
+                .append("hash", this.auditContentHasher.hash("states", state(id, 1L, "Karnatka"))));
+
+    final Document reverted = state(id, 2L, "Karnataka");
+
+    assertFalse(
+        this.auditContentHasher.isUnchanged(
+            "states", reverted, this.auditContentHasher.hash("states", reverted)));
+  }
+
+  @Test
+  @DisplayName("Test deleted document is audited again when recreated with same content")
+  void testIsUnchanged_AfterDelete() {
+    final ObjectId id = new ObjectId();
+    final Document document = state(id, 3L, "Karnataka");
+    final String hash = this.auditContentHasher.hash("states", document);
+    this.auditContentHasher.record(this.auditEvent(AuditEvent.Type.UPDATED, document, hash));
+    this.auditContentHasher.record(this.auditEvent(AuditEvent.Type.DELETED, document, null));
+    when(this.mongoOperations.findOne(any(Query.class), eq(Document.class), eq("states_aud")))
+        .thenReturn(new Document("type", "DELETED"));
+
+    assertFalse(this.auditContentHasher.isUnchanged("states", document, hash));
+  }
+
+  private AuditEvent auditEvent(
+      final AuditEvent.Type type, final Document source, final String hash) {
+    return new AuditEvent(
+        null, null, "SYSTEM", 1L, type, "states", source, null, null, null, null, hash);
+  }
+
+  private static Document state(final ObjectId id, final Long version, final String name) {
+    return new Document("_id", id)
+        .append("version", version)
+        .append("code", "KA")
+        .append("name", name)
+        .append("cities", List.of("65f1d2c4a1b2c3d4e5f60718"))
+        .append("_class", "state");
+  }
+}
@@ -0,0 +1,84 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ksoot.AbstractMongoDBTest;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+class AuditDeltaCodecTest extends AbstractMongoDBTest {
+
+  private static final String AUDIT_COLLECTION = "delta_states_aud";
+
+  @Autowired private MongoTemplate mongoTemplate;
+
+  @Test
+  @DisplayName("Test revisions written by two nodes replay to the audited documents")
+  void testEncode_TwoWriters() {
+    final AuditDeltaCodec nodeA = this.auditDeltaCodec();
+    final AuditDeltaCodec nodeB = this.auditDeltaCodec();
+    final ObjectId id = new ObjectId();
+    final List<Document> versions =
+        List.of(
+            state(id, 0L, "Karnataka", List.of("a")),
+            state(id, 1L, "Karnataka", List.of("a", "b")),
+            state(id, 2L, "Karnataka", List.of("a", "b", "c")),
+            state(id, 3L, "Karnatka", List.of("a", "b", "c", "d")));
+
+    this.write(nodeA, AuditEvent.Type.CREATED, 1, versions.get(0));
+    this.write(nodeA, AuditEvent.Type.UPDATED, 2, versions.get(1));
+    // Node A still has version 1 cached, as its base for the next revision
+    this.write(nodeB, AuditEvent.Type.UPDATED, 3, versions.get(2));
+    this.write(nodeA, AuditEvent.Type.UPDATED, 4, versions.get(3));
+
+    final List<AuditEvent> stored =
+        this.mongoTemplate.find(
+            new Query().with(Sort.by("revision")), AuditEvent.class, AUDIT_COLLECTION);
+    final List<AuditEvent> decoded = nodeA.decode(stored, AUDIT_COLLECTION);
+
+    assertAll(
+        "Verify delta chain",
+        () -> assertTrue(stored.get(1).isDelta(), "Expected delta against cached version 0"),
+        () -> assertTrue(stored.get(2).isDelta(), "Expected delta against loaded version 1"),
+        () -> assertFalse(stored.get(3).isDelta(), "Expected snapshot against stale version 1"),
+        () -> assertEquals(versions, decoded.stream().map(AuditEvent::getSource).toList()));
+  }
+
+  private void write(
+      final AuditDeltaCodec auditDeltaCodec,
+      final AuditEvent.Type type,
+      final long revision,
+      final Document source) {
+    final AuditEvent auditEvent =
+        AuditEvent.of(
+            type, System.currentTimeMillis(), revision, "states", new Document(source), "test");
+    this.mongoTemplate.insert(
+        auditDeltaCodec.encode(auditEvent, AUDIT_COLLECTION), AUDIT_COLLECTION);
+  }
+
+  private AuditDeltaCodec auditDeltaCodec() {
+    final AuditMetaData auditMetaData = new AuditMetaData();
+    auditMetaData.put("states", AuditMetaData.Metadata.of(AUDIT_COLLECTION, "version"));
+    final MongoAuditProperties mongoAuditProperties = new MongoAuditProperties();
+    mongoAuditProperties.getAuditing().getDelta().setEnabled(true);
+    return new AuditDeltaCodec(this.mongoTemplate, auditMetaData, mongoAuditProperties);
+  }
+
+  private static Document state(
+      final ObjectId id, final long version, final String name, final List<String> tags) {
+    return new Document("_id", id)
+        .append("name", name)
+        .append("tags", tags)
+        .append("version", version);
+  }
+}
@@ -0,0 +1,118 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+/**
+ * Per save overhead of routing MongoDB lifecycle events to the audit listener, with the former SpEL
+ * conditioned {@link EventListener} against the {@link AbstractMongoEventListener} looking up
+ * frozen {@link AuditMetaData}. Both listeners only count the events routed to them, so the
+ * difference is the dispatch cost alone.
+ */
+@Slf4j
+@Tag("benchmark")
+class AuditDispatchBenchmarkTest {
+
+  private static final int WARMUP = 200_000;
+
+  private static final int ITERATIONS = 1_000_000;
+
+  @Test
+  @DisplayName("Benchmark dispatch of save events to audit listener")
+  void benchmarkDispatch() {
+    final AuditMetaData auditMetaData = new AuditMetaData();
+    auditMetaData.put("states", AuditMetaData.Metadata.of("states_aud", "version"));
+    auditMetaData.put("cities", AuditMetaData.Metadata.of("cities_aud", "version"));
+    auditMetaData.freeze();
+
+    final AfterSaveEvent<Object> audited = event("states");
+    final AfterSaveEvent<Object> notAudited = event("employees");
+
+    try (AnnotationConfigApplicationContext spelContext = context(auditMetaData);
+        AnnotationConfigApplicationContext typedContext = context(auditMetaData)) {
+      final SpelConditionedListener spelListener = new SpelConditionedListener();
+      spelContext.registerBean(SpelConditionedListener.class, () -> spelListener);
+      spelContext.refresh();
+      final TypedListener typedListener = new TypedListener(auditMetaData);
+      typedContext.registerBean(TypedListener.class, () -> typedListener);
+      typedContext.refresh();
+
+      measure(spelContext, audited, notAudited, WARMUP);
+      measure(typedContext, audited, notAudited, WARMUP);
+      spelListener.audited.reset();
+      typedListener.audited.reset();
+
+      final double spelNanos = measure(spelContext, audited, notAudited, ITERATIONS);
+      final double typedNanos = measure(typedContext, audited, notAudited, ITERATIONS);
+      log.info(
+          String.format(
+              "Audit dispatch per save event, half of them audited. SpEL @EventListener: %.1f ns,"
+                  + " AbstractMongoEventListener: %.1f ns, %.1fx",
+              spelNanos, typedNanos, spelNanos / typedNanos));
+
+      assertEquals(ITERATIONS / 2, spelListener.audited.sum());
+      assertEquals(ITERATIONS / 2, typedListener.audited.sum());
+    }
+  }
+
+  private static double measure(
+      final AnnotationConfigApplicationContext context,
+      final AfterSaveEvent<Object> audited,
+      final AfterSaveEvent<Object> notAudited,
+      final int iterations) {
+    final long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      context.publishEvent(i % 2 == 0 ? audited : notAudited);
+    }
+    return (double) (System.nanoTime() - start) / iterations;
+  }
+
+  private static AnnotationConfigApplicationContext context(final AuditMetaData auditMetaData) {
+    final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+    context.registerBean("auditMetaData", AuditMetaData.class, () -> auditMetaData);
+    return context;
+  }
+
+  private static AfterSaveEvent<Object> event(final String collectionName) {
+    return new AfterSaveEvent<>(
+        new Object(), new Document("_id", "1").append("version", 1L), collectionName);
+  }
+
+  static class SpelConditionedListener {
+
+    final LongAdder audited = new LongAdder();
+
+    @EventListener(condition = "@auditMetaData.isPresent(#event.getCollectionName())")
+    public void onAfterSave(final AfterSaveEvent<?> event) {
+      this.audited.increment();
+    }
+  }
+
+  static class TypedListener extends AbstractMongoEventListener<Object> {
+
+    final LongAdder audited = new LongAdder();
+
+    private final AuditMetaData auditMetaData;
+
+    TypedListener(final AuditMetaData auditMetaData) {
+      this.auditMetaData = auditMetaData;
+    }
+
+    @Override
+    public void onAfterSave(final AfterSaveEvent<Object> event) {
+      if (this.auditMetaData.isPresent(event.getCollectionName())) {
+        this.audited.increment();
+      }
+    }
+  }
+}
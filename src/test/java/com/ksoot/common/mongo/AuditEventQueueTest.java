@@ -0,0 +1,204 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+class AuditEventQueueTest {
+
+  @TempDir private Path journalDirectory;
+
+  private MongoAuditProperties.Async async;
+
+  @BeforeEach
+  void setUp() {
+    this.async = new MongoAuditProperties().new Async();
+    this.async.setEnabled(true);
+    this.async.setJournalDirectory(this.journalDirectory.toString());
+    this.async.setJournalSizeBytes(64 * 1024);
+  }
+
+  @Test
+  @DisplayName("Test Audit events journaled but not inserted are replayed on next startup once")
+  void testReplay() {
+    final AuditEventQueue crashed = this.auditEventQueue(mock(MongoTemplate.class));
+    crashed.open();
+    for (int revision = 1; revision <= 3; revision++) {
+      assertTrue(crashed.offer(auditEvent(revision), "states_aud"));
+    }
+    crashed.close();
+
+    final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    final BulkOperations bulkOperations = mock(BulkOperations.class);
+    when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "states_aud"))
+        .thenReturn(bulkOperations);
+    when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+    final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final AuditEventQueue replaying = this.auditEventQueue(mongoTemplate, meterRegistry);
+    replaying.open();
+    final boolean replayed = replaying.replay();
+    replaying.close();
+
+    final MongoTemplate restartedTemplate = mock(MongoTemplate.class);
+    final AuditEventQueue restarted = this.auditEventQueue(restartedTemplate);
+    restarted.open();
+    restarted.replay();
+
+    @SuppressWarnings("unchecked")
+    final ArgumentCaptor<List<Document>> inserted = ArgumentCaptor.forClass(List.class);
+    verify(bulkOperations).insert(inserted.capture());
+    verify(bulkOperations).execute();
+    assertAll(
+        "Verify journal replay",
+        () -> assertTrue(replayed),
+        () ->
+            assertEquals(
+                List.of(1L, 2L, 3L),
+                inserted.getValue().stream().map(event -> event.getLong("revision")).toList()),
+        () -> assertNotNull(inserted.getValue().getFirst().get("_id"), "Expected id assigned"),
+        () -> assertEquals(3, meterRegistry.counter("mongodb.audit.journal.replayed").count(), 0.0),
+        () ->
+            verify(restartedTemplate, never())
+                .bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq("states_aud")));
+  }
+
+  @Test
+  @DisplayName("Test journal replay does not block startup and is retried until MongoDB is up")
+  void testReplay_Retried() throws InterruptedException {
+    final AuditEventQueue crashed = this.auditEventQueue(mock(MongoTemplate.class));
+    crashed.open();
+    assertTrue(crashed.offer(auditEvent(1), "states_aud"));
+    crashed.close();
+
+    final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    final BulkOperations bulkOperations = mock(BulkOperations.class);
+    when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "states_aud"))
+        .thenReturn(bulkOperations);
+    when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+    when(bulkOperations.execute())
+        .thenThrow(new DataAccessResourceFailureException("MongoDB unreachable"))
+        .thenReturn(null);
+    final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final AuditEventQueue restarted = this.auditEventQueue(mongoTemplate, meterRegistry);
+    restarted.afterPropertiesSet();
+
+    verify(bulkOperations, timeout(5000).times(2)).execute();
+    restarted.destroy();
+    assertEquals(1, meterRegistry.counter("mongodb.audit.journal.replayed").count(), 0.0);
+  }
+
+  @Test
+  @DisplayName("Test queued Audit events are inserted before stopping, none queued after")
+  void testDestroy_Drained() throws InterruptedException {
+    final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    final BulkOperations bulkOperations = mock(BulkOperations.class);
+    final List<Long> inserted = new CopyOnWriteArrayList<>();
+    when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "states_aud"))
+        .thenReturn(bulkOperations);
+    when(bulkOperations.insert(anyList()))
+        .thenAnswer(
+            invocation -> {
+              final List<Document> auditEvents = invocation.getArgument(0);
+              auditEvents.forEach(auditEvent -> inserted.add(auditEvent.getLong("revision")));
+              return bulkOperations;
+            });
+    when(bulkOperations.execute())
+        .thenAnswer(
+            invocation -> {
+              // Slow insert, still in flight when stopping
+              Thread.sleep(200);
+              return null;
+            });
+    final AuditEventQueue auditEventQueue = this.auditEventQueue(mongoTemplate);
+    auditEventQueue.afterPropertiesSet();
+    for (int revision = 1; revision <= 3; revision++) {
+      assertTrue(auditEventQueue.offer(auditEvent(revision), "states_aud"));
+    }
+
+    auditEventQueue.destroy();
+
+    assertAll(
+        "Verify drained on stop",
+        () -> assertEquals(List.of(1L, 2L, 3L), inserted.stream().sorted().toList()),
+        () -> assertFalse(auditEventQueue.offer(auditEvent(4), "states_aud")));
+  }
+
+  @Test
+  @DisplayName("Test journal in use by another instance is not opened")
+  void testOpen_Locked() {
+    final AuditEventQueue first = this.auditEventQueue(mock(MongoTemplate.class));
+    first.open();
+    try {
+      assertThrows(
+          IllegalStateException.class,
+          () -> this.auditEventQueue(mock(MongoTemplate.class)).open());
+    } finally {
+      first.close();
+    }
+  }
+
+  @Test
+  @DisplayName("Test Audit event is not queued when queue is full")
+  void testOffer_QueueFull() {
+    this.async.setQueueCapacity(2);
+    final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final AuditEventQueue auditEventQueue =
+        this.auditEventQueue(mock(MongoTemplate.class), meterRegistry);
+    auditEventQueue.open();
+
+    assertAll(
+        "Verify queue overflow",
+        () -> assertTrue(auditEventQueue.offer(auditEvent(1), "states_aud")),
+        () -> assertTrue(auditEventQueue.offer(auditEvent(2), "states_aud")),
+        () -> assertFalse(auditEventQueue.offer(auditEvent(3), "states_aud")),
+        () -> assertEquals(1, meterRegistry.counter("mongodb.audit.queue.overflow").count(), 0.0),
+        () -> assertEquals(2, meterRegistry.get("mongodb.audit.queue.depth").gauge().value()));
+  }
+
+  private AuditEventQueue auditEventQueue(final MongoTemplate mongoTemplate) {
+    return this.auditEventQueue(mongoTemplate, new SimpleMeterRegistry());
+  }
+
+  private AuditEventQueue auditEventQueue(
+      final MongoTemplate mongoTemplate, final MeterRegistry meterRegistry) {
+    return new AuditEventQueue(
+        mongoTemplate,
+        MongoClientSettings.getDefaultCodecRegistry(),
+        this.async,
+        true,
+        meterRegistry);
+  }
+
+  private static Document auditEvent(final long revision) {
+    return new Document("revision", revision)
+        .append("type", "UPDATED")
+        .append("collection_name", "states")
+        .append("source", new Document("name", "Karnataka"));
+  }
+}
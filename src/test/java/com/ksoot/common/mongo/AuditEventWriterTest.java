@@ -0,0 +1,80 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.adapter.repository.MongoAuditHistoryRepository;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.ksoot.domain.service.LocationService;
+import com.ksoot.domain.service.LocationServiceImpl;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Import({LocationServiceImpl.class, MongoAuditHistoryRepository.class})
+class AuditEventWriterTest extends AbstractMongoDBTest {
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private MongoAuditHistoryRepository mongoAuditHistoryRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  @DisplayName("Test audit events of a nested REQUIRES_NEW transaction commit with it")
+  void testWrite_RequiresNew() {
+    final TransactionTemplate outer = new TransactionTemplate(this.transactionManager);
+    final TransactionTemplate inner = new TransactionTemplate(this.transactionManager);
+    inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    final AtomicReference<State> outerState = new AtomicReference<>();
+    final AtomicReference<State> innerState = new AtomicReference<>();
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            outer.executeWithoutResult(
+                status -> {
+                  outerState.set(
+                      this.locationService.createState(
+                          StateCreationRQ.builder()
+                              .code("WO")
+                              .name("Writer Outer")
+                              .isUT(false)
+                              .build()));
+                  innerState.set(
+                      inner.execute(
+                          nested ->
+                              this.locationService.createState(
+                                  StateCreationRQ.builder()
+                                      .code("WI")
+                                      .name("Writer Inner")
+                                      .isUT(false)
+                                      .build())));
+                  throw new IllegalStateException("Rollback outer transaction");
+                }));
+
+    assertAll(
+        "Verify audit events of nested transactions",
+        () -> assertEquals(1, this.auditEvents(innerState.get()), "Expected inner audit committed"),
+        () ->
+            assertEquals(
+                0, this.auditEvents(outerState.get()), "Expected outer audit rolled back"));
+  }
+
+  private long auditEvents(final State state) {
+    return this.mongoAuditHistoryRepository
+        .getDocumentAuditHistory(
+            "states", state.getId(), null, null, Sort.Direction.ASC, PageRequest.of(0, 10))
+        .getTotalElements();
+  }
+}
@@ -0,0 +1,194 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.ExplainPlans;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.ksoot.domain.model.dto.StateUpdationRQ;
+import com.ksoot.domain.service.LocationService;
+import com.ksoot.domain.service.LocationServiceImpl;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+
+@Import(LocationServiceImpl.class)
+class AuditIndexesTest extends AbstractMongoDBTest {
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private MongoTemplate mongoTemplate;
+
+  @Autowired private AuditMetaData auditMetaData;
+
+  @Autowired private AuditIndexes auditIndexes;
+
+  private String auditCollectionName;
+
+  @BeforeEach
+  void setUp() {
+    this.auditCollectionName = this.auditMetaData.getAuditCollection("states").get();
+    if (this.mongoTemplate.count(new Query(), this.auditCollectionName) == 0) {
+      final State state =
+          this.locationService.createState(
+              StateCreationRQ.builder().code("IX").name("Index State").isUT(false).build());
+      for (int i = 1; i <= 20; i++) {
+        this.locationService.updateState(
+            state.getId(), StateUpdationRQ.builder().isUT(i % 2 == 1).build());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test every Audit History query shape is served by an index without in memory sort")
+  void testAuditHistoryQueryShapes_IndexScan() {
+    final Date from = Date.from(Instant.now().minus(1, ChronoUnit.DAYS));
+    final Date till = Date.from(Instant.now().plus(1, ChronoUnit.DAYS));
+    final List<Document> datetimeRanges =
+        List.of(
+            new Document(),
+            new Document("$gte", from),
+            new Document("$lte", till),
+            new Document("$gte", from).append("$lte", till));
+
+    final List<Document> filters = new ArrayList<>();
+    for (final boolean withType : List.of(false, true)) {
+      for (final boolean withActor : List.of(false, true)) {
+        for (final Document datetimeRange : datetimeRanges) {
+          final Document filter = new Document("collection_name", "states");
+          if (withType) {
+            filter.append("type", AuditEvent.Type.UPDATED.name());
+          }
+          if (withActor) {
+            filter.append("actor", "SYSTEM");
+          }
+          if (!datetimeRange.isEmpty()) {
+            filter.append("datetime", datetimeRange);
+          }
+          filters.add(filter);
+        }
+      }
+    }
+
+    final List<Executable> assertions = new ArrayList<>();
+    for (final Document filter : filters) {
+      for (final int direction : List.of(1, -1)) {
+        final Document sort =
+            new Document("datetime", direction)
+                .append("revision", direction)
+                .append("_id", direction);
+        final Set<String> stages = this.winningPlanStages(filter, sort);
+        assertions.add(
+            () -> {
+              assertTrue(
+                  stages.contains("IXSCAN"),
+                  "Expected IXSCAN for filter: " + filter.toJson() + ", sort: " + sort.toJson());
+              assertFalse(
+                  stages.contains("SORT"),
+                  "Expected no in memory sort for filter: "
+                      + filter.toJson()
+                      + ", sort: "
+                      + sort.toJson());
+            });
+      }
+    }
+
+    // Revisions filter, sorted in memory as only the listed revisions are read
+    final Document revisionsFilter =
+        new Document("collection_name", "states")
+            .append("revision", new Document("$in", List.of(1L, 2L, 3L)));
+    final Set<String> revisionStages =
+        this.winningPlanStages(revisionsFilter, new Document("datetime", 1).append("revision", 1));
+    assertions.add(
+        () -> assertTrue(revisionStages.contains("IXSCAN"), "Expected IXSCAN for revisions"));
+
+    // Continuation token filter
+    final Document keysetFilter =
+        new Document("collection_name", "states")
+            .append(
+                "$or",
+                List.of(
+                    new Document("datetime", new Document("$gt", from)),
+                    new Document("datetime", from).append("revision", new Document("$gt", 1L)),
+                    new Document("datetime", from)
+                        .append("revision", 1L)
+                        .append("_id", new Document("$gt", new ObjectId()))));
+    final Set<String> keysetStages =
+        this.winningPlanStages(
+            keysetFilter, new Document("datetime", 1).append("revision", 1).append("_id", 1));
+    assertions.add(
+        () ->
+            assertAll(
+                () -> assertTrue(keysetStages.contains("IXSCAN"), "Expected IXSCAN for keyset"),
+                () -> assertFalse(keysetStages.contains("COLLSCAN"), "Expected no COLLSCAN")));
+
+    // Point in time lookup of a document, reading the latest revision in datetime range
+    final Document asOfFilter =
+        new Document("collection_name", "states")
+            .append("source._id", new ObjectId())
+            .append("datetime", new Document("$lte", till));
+    final Set<String> asOfStages =
+        this.winningPlanStages(asOfFilter, new Document("datetime", -1).append("revision", -1));
+    assertions.add(
+        () ->
+            assertAll(
+                () -> assertTrue(asOfStages.contains("IXSCAN"), "Expected IXSCAN for as of"),
+                () -> assertFalse(asOfStages.contains("SORT"), "Expected no in memory sort")));
+
+    assertAll("Verify query plans", assertions);
+  }
+
+  @Test
+  @DisplayName("Test reconciling indexes of existing Audit collection replaces obsolete indexes")
+  void testReconcile_ExistingCollection() {
+    this.mongoTemplate
+        .indexOps(this.auditCollectionName)
+        .ensureIndex(new Index().named("idx_datetime").on("datetime", Sort.Direction.ASC));
+    this.mongoTemplate
+        .indexOps(this.auditCollectionName)
+        .dropIndex("idx_collection_datetime_revision");
+
+    this.auditIndexes.reconcile(this.auditCollectionName);
+
+    final Set<String> indexNames = new HashSet<>();
+    this.mongoTemplate
+        .indexOps(this.auditCollectionName)
+        .getIndexInfo()
+        .forEach(indexInfo -> indexNames.add(indexInfo.getName()));
+    assertAll(
+        "Verify reconciled indexes",
+        () -> assertFalse(indexNames.contains("idx_datetime"), "Expected obsolete index dropped"),
+        () ->
+            assertTrue(
+                indexNames.contains("idx_collection_datetime_revision"),
+                "Expected missing index created"));
+  }
+
+  private Set<String> winningPlanStages(final Document filter, final Document sort) {
+    return ExplainPlans.winningPlanStages(
+            this.mongoTemplate,
+            new Document("find", this.auditCollectionName)
+                .append("filter", filter)
+                .append("sort", sort))
+        .keySet();
+  }
+}
@@ -0,0 +1,107 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AuditMetaDataTest {
+
+  private AuditMetaData auditMetaData;
+
+  @BeforeEach
+  void setUp() {
+    this.auditMetaData = new AuditMetaData();
+    this.auditMetaData.put("states", AuditMetaData.Metadata.of("states_aud", "version", true));
+    this.auditMetaData.put("cities", AuditMetaData.Metadata.of("cities_aud", "version"));
+    for (int month = 8; month <= 11; month++) {
+      this.auditMetaData.addPartition("states", YearMonth.of(2026, month));
+    }
+  }
+
+  @Test
+  @DisplayName("Test audit events are routed to monthly partitions in UTC")
+  void testGetAuditCollection_Partitioned() {
+    assertAll(
+        "Verify routing",
+        () ->
+            assertEquals(
+                "states_aud_2026_10",
+                this.auditMetaData
+                    .getAuditCollection("states", OffsetDateTime.parse("2026-10-17T10:15:30Z"))
+                    .get()),
+        () ->
+            assertEquals(
+                "states_aud_2026_09",
+                this.auditMetaData
+                    .getAuditCollection("states", OffsetDateTime.parse("2026-10-01T03:00:00+05:30"))
+                    .get(),
+                "Expected previous month, as datetime is in September in UTC"),
+        () ->
+            assertEquals(
+                "cities_aud",
+                this.auditMetaData
+                    .getAuditCollection("cities", OffsetDateTime.now(ZoneOffset.UTC))
+                    .get()));
+  }
+
+  @Test
+  @DisplayName("Test date range queries fan out to overlapping partitions only")
+  void testGetAuditCollections_OverlappingPartitions() {
+    assertAll(
+        "Verify overlapping partitions",
+        () ->
+            assertEquals(
+                List.of("states_aud_2026_09", "states_aud_2026_10"),
+                this.auditMetaData.getAuditCollections(
+                    "states",
+                    OffsetDateTime.parse("2026-09-15T00:00:00Z"),
+                    OffsetDateTime.parse("2026-10-02T00:00:00Z"))),
+        () ->
+            assertEquals(
+                List.of("states_aud_2026_10", "states_aud_2026_11"),
+                this.auditMetaData.getAuditCollections(
+                    "states", OffsetDateTime.parse("2026-10-01T00:00:00Z"), null)),
+        () ->
+            assertEquals(
+                4,
+                this.auditMetaData.getAuditCollections("states", null, null).size(),
+                "Expected all partitions without range"),
+        () ->
+            assertEquals(
+                List.of(),
+                this.auditMetaData.getAuditCollections(
+                    "states", OffsetDateTime.parse("2027-01-01T00:00:00Z"), null)),
+        () ->
+            assertEquals(
+                List.of("cities_aud"),
+                this.auditMetaData.getAuditCollections(
+                    "cities", OffsetDateTime.parse("2026-09-15T00:00:00Z"), null)));
+  }
+
+  @Test
+  @DisplayName("Test frozen audit metadata rejects new collections but tracks partitions")
+  void testFreeze() {
+    this.auditMetaData.freeze();
+    this.auditMetaData.addPartition("states", YearMonth.of(2026, 12));
+
+    assertAll(
+        "Verify frozen metadata",
+        () ->
+            assertThrows(
+                IllegalStateException.class,
+                () ->
+                    this.auditMetaData.put(
+                        "employees", AuditMetaData.Metadata.of("employees_aud", "version"))),
+        () -> assertTrue(this.auditMetaData.isPresent("cities")),
+        () -> assertTrue(this.auditMetaData.hasPartition("states", YearMonth.of(2026, 12))));
+  }
+}
@@ -0,0 +1,78 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.ksoot.domain.service.LocationService;
+import com.ksoot.domain.service.LocationServiceImpl;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Import(LocationServiceImpl.class)
+@TestPropertySource(
+    properties = {
+      "application.mongodb.auditing.partition.enabled=true",
+      "application.mongodb.auditing.partition.refresh-interval=PT0S",
+      "application.mongodb.auditing.revision-scheme=DOCUMENT"
+    })
+class AuditPartitionsTest extends AbstractMongoDBTest {
+
+  private static final String OTHER_NODE_PARTITION = "states_aud_2020_01";
+
+  @Autowired private AuditPartitions auditPartitions;
+
+  @Autowired private MongoTemplate mongoTemplate;
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  @DisplayName("Test reads see partitions created and dropped by other nodes")
+  void testGetAuditCollections_Refreshed() {
+    this.mongoTemplate.createCollection(OTHER_NODE_PARTITION);
+    final List<String> created = this.auditPartitions.getAuditCollections("states", null, null);
+    this.mongoTemplate.dropCollection(OTHER_NODE_PARTITION);
+    final List<String> dropped = this.auditPartitions.getAuditCollections("states", null, null);
+
+    assertAll(
+        "Verify refreshed partitions",
+        () -> assertTrue(created.contains(OTHER_NODE_PARTITION)),
+        () -> assertFalse(dropped.contains(OTHER_NODE_PARTITION)),
+        () -> assertFalse(dropped.isEmpty(), "Expected partition of current month kept"));
+  }
+
+  @Test
+  @DisplayName("Test delete by id in a transaction refreshes partitions outside of it")
+  void testDeleteById_Transactional() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("PD").name("Partition Delete").isUT(false).build());
+    final TransactionTemplate transactionTemplate =
+        new TransactionTemplate(this.transactionManager);
+
+    // Refresh interval elapsed, partitions are listed on the write path
+    assertDoesNotThrow(
+        () ->
+            transactionTemplate.executeWithoutResult(
+                status -> this.locationService.deleteState(state.getId())));
+    assertFalse(
+        this.mongoTemplate.exists(
+            new Query(Criteria.where("_id").is(new ObjectId(state.getId()))), State.class));
+  }
+}
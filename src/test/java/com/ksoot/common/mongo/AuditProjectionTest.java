@@ -0,0 +1,79 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AuditProjectionTest {
+
+  private static final ObjectId ID = new ObjectId("6558c30160463a1fee00c7dc");
+
+  private static final ObjectId CITY_ID = new ObjectId("6558c30160463a1fee00c7dd");
+
+  @Test
+  @DisplayName("Test excluded fields, nested ones too, are not audited")
+  void testApply_Exclude() {
+    final AuditProjection projection =
+        AuditProjection.of(List.of(), List.of("cities", "capital.population"), "version");
+    final Document document = state();
+
+    assertAll(
+        "Verify exclusion",
+        () ->
+            assertEquals(
+                new Document("_id", ID)
+                    .append("version", 3L)
+                    .append("name", "Karnataka")
+                    .append("capital", new Document("name", "Bengaluru")),
+                projection.apply(document)),
+        () -> assertEquals(state(), document, "Expected audited document left as is"));
+  }
+
+  @Test
+  @DisplayName("Test only included fields, _id and version are audited")
+  void testApply_Include() {
+    final AuditProjection projection =
+        AuditProjection.of(List.of("capital.name", "name"), List.of(), "version");
+
+    assertEquals(
+        new Document("_id", ID)
+            .append("version", 3L)
+            .append("name", "Karnataka")
+            .append("capital", new Document("name", "Bengaluru")),
+        projection.apply(state()));
+  }
+
+  @Test
+  @DisplayName("Test invalid projections are rejected")
+  void testOf_Invalid() {
+    final Document document = state();
+    assertAll(
+        "Verify invalid projections",
+        () ->
+            assertSame(
+                document, AuditProjection.of(List.of(), List.of(), "version").apply(document)),
+        () ->
+            assertThrows(
+                IllegalArgumentException.class,
+                () -> AuditProjection.of(List.of("name"), List.of("cities"), "version")),
+        () ->
+            assertThrows(
+                IllegalArgumentException.class,
+                () -> AuditProjection.of(List.of(), List.of("version"), "version")));
+  }
+
+  private static Document state() {
+    return new Document("_id", ID)
+        .append("version", 3L)
+        .append("name", "Karnataka")
+        .append("capital", new Document("name", "Bengaluru").append("population", 8_443_675))
+        .append("cities", List.of(CITY_ID));
+  }
+}
@@ -0,0 +1,69 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.adapter.repository.MongoAuditHistoryRepository;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.ksoot.domain.model.dto.StateUpdationRQ;
+import com.ksoot.domain.service.LocationService;
+import com.ksoot.domain.service.LocationServiceImpl;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+@Import({LocationServiceImpl.class, MongoAuditHistoryRepository.class})
+@TestPropertySource(properties = "application.mongodb.auditing.revision-scheme=DOCUMENT")
+class AuditRevisionSchemeTest extends AbstractMongoDBTest {
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private MongoAuditHistoryRepository mongoAuditHistoryRepository;
+
+  @Test
+  @DisplayName("Test DOCUMENT revision scheme numbers revisions of every document from 1")
+  void testDocumentRevisions() {
+    final State first =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("R1").name("Revision One").isUT(false).build());
+    final State second =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("R2").name("Revision Two").isUT(false).build());
+    for (int i = 1; i <= 3; i++) {
+      this.locationService.updateState(
+          first.getId(), StateUpdationRQ.builder().isUT(i % 2 == 1).build());
+    }
+    this.locationService.updateState(second.getId(), StateUpdationRQ.builder().isUT(true).build());
+    this.locationService.deleteState(first.getId());
+
+    final Page<AuditEvent> firstHistory =
+        this.mongoAuditHistoryRepository.getDocumentAuditHistory(
+            "states", first.getId(), null, null, Sort.Direction.ASC, PageRequest.of(0, 100));
+    final Page<AuditEvent> secondHistory =
+        this.mongoAuditHistoryRepository.getDocumentAuditHistory(
+            "states", second.getId(), null, null, Sort.Direction.DESC, PageRequest.of(0, 100));
+    final Page<AuditEvent> range =
+        this.mongoAuditHistoryRepository.getDocumentAuditHistory(
+            "states", first.getId(), 2L, 3L, Sort.Direction.ASC, PageRequest.of(0, 1));
+
+    assertAll(
+        "Verify DOCUMENT revision scheme",
+        () ->
+            assertEquals(
+                List.of(1L, 2L, 3L, 4L, 5L),
+                firstHistory.map(AuditEvent::getRevision).getContent()),
+        () -> assertEquals(AuditEvent.Type.DELETED, firstHistory.getContent().getLast().getType()),
+        () ->
+            assertEquals(List.of(2L, 1L), secondHistory.map(AuditEvent::getRevision).getContent()),
+        () -> assertEquals(2, range.getTotalElements()),
+        () -> assertEquals(List.of(2L), range.map(AuditEvent::getRevision).getContent()));
+  }
+}
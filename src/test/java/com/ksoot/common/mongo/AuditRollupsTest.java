@@ -0,0 +1,128 @@
+package com.ksoot.common.mongo;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.adapter.repository.MongoAuditHistoryRepository;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.ksoot.domain.model.dto.StateUpdationRQ;
+import com.ksoot.domain.service.LocationService;
+import com.ksoot.domain.service.LocationServiceImpl;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Import({LocationServiceImpl.class, MongoAuditHistoryRepository.class})
+@TestPropertySource(properties = "application.mongodb.auditing.rollup.enabled=true")
+class AuditRollupsTest extends AbstractMongoDBTest {
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private MongoAuditHistoryRepository mongoAuditHistoryRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  @DisplayName("Test Audit rollups count every Audit Event once, per type and actor")
+  void testGetAuditRollups() {
+    final OffsetDateTime from = OffsetDateTime.now(ZoneOffset.UTC);
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("RU").name("Rollup State").isUT(false).build());
+    for (int i = 1; i <= 5; i++) {
+      this.locationService.updateState(
+          state.getId(), StateUpdationRQ.builder().isUT(i % 2 == 1).build());
+    }
+    final OffsetDateTime till = OffsetDateTime.now(ZoneOffset.UTC);
+
+    final long audited =
+        this.mongoAuditHistoryRepository.countAuditHistory(
+            "states", null, null, null, from.minusHours(1), till.plusHours(1));
+    final List<AuditRollup> hourly =
+        this.mongoAuditHistoryRepository.getAuditRollups(
+            "states", null, null, from, till, AuditRollup.Granularity.HOUR);
+    final List<AuditRollup> daily =
+        this.mongoAuditHistoryRepository.getAuditRollups(
+            "states", AuditEvent.Type.UPDATED, "SYSTEM", from, till, AuditRollup.Granularity.DAY);
+
+    assertAll(
+        "Verify Audit rollups",
+        () ->
+            assertEquals(
+                audited,
+                hourly.stream().mapToLong(AuditRollup::count).sum(),
+                "Expected rollups to count every Audit Event"),
+        () ->
+            assertEquals(
+                1,
+                hourly.stream()
+                    .filter(rollup -> rollup.type() == AuditEvent.Type.CREATED)
+                    .mapToLong(AuditRollup::count)
+                    .sum()),
+        () ->
+            assertEquals(
+                5,
+                daily.stream().mapToLong(AuditRollup::count).sum(),
+                "Expected daily buckets summed from hourly ones"));
+  }
+
+  @Test
+  @DisplayName("Test Audit rollups of a nested REQUIRES_NEW transaction are counted with it")
+  void testGetAuditRollups_RequiresNew() {
+    final OffsetDateTime from = OffsetDateTime.now(ZoneOffset.UTC);
+    final long before = this.createdCount(from);
+    final TransactionTemplate outer = new TransactionTemplate(this.transactionManager);
+    final TransactionTemplate inner = new TransactionTemplate(this.transactionManager);
+    inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            outer.executeWithoutResult(
+                status -> {
+                  this.locationService.createState(
+                      StateCreationRQ.builder()
+                          .code("RO")
+                          .name("Rollup Outer")
+                          .isUT(false)
+                          .build());
+                  inner.executeWithoutResult(
+                      nested ->
+                          this.locationService.createState(
+                              StateCreationRQ.builder()
+                                  .code("RI")
+                                  .name("Rollup Inner")
+                                  .isUT(false)
+                                  .build()));
+                  throw new IllegalStateException("Rollback outer transaction");
+                }));
+
+    assertEquals(
+        before + 1, this.createdCount(from), "Expected only the inner transaction counted");
+  }
+
+  private long createdCount(final OffsetDateTime from) {
+    return this.mongoAuditHistoryRepository
+        .getAuditRollups(
+            "states",
+            AuditEvent.Type.CREATED,
+            null,
+            from.minusHours(1),
+            from.plusHours(1),
+            AuditRollup.Granularity.HOUR)
+        .stream()
+        .mapToLong(AuditRollup::count)
+        .sum();
+  }
+}
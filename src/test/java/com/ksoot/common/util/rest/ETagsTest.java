@@ -0,0 +1,57 @@
+package com.ksoot.common.util.rest;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+class ETagsTest {
+
+  @Test
+  @DisplayName("Test entity tags are built of non empty parts")
+  void testOf() {
+    assertAll(
+        "Verify entity tags",
+        () -> assertEquals("\"s1-3\"", ETags.of("s1", 3L)),
+        () -> assertEquals("\"s1-state,areas-7\"", ETags.of("s1", List.of("state", "areas"), 7L)),
+        () -> assertEquals("\"7\"", ETags.of(7L, null, List.of(), "")));
+  }
+
+  @Test
+  @DisplayName("Test matching If-None-Match responds not modified without getting the body")
+  void testOk() {
+    final AtomicInteger bodies = new AtomicInteger();
+    final String eTag = ETags.of("s1", 3L);
+
+    final ResponseEntity<String> modified =
+        ETags.ok(this.request("\"s1-2\""), eTag, () -> "body-" + bodies.incrementAndGet());
+    final ResponseEntity<String> notModified =
+        ETags.ok(this.request(eTag), eTag, () -> "body-" + bodies.incrementAndGet());
+
+    assertAll(
+        "Verify conditional responses",
+        () -> assertEquals(HttpStatus.OK, modified.getStatusCode()),
+        () -> assertEquals("body-1", modified.getBody()),
+        () -> assertEquals(eTag, modified.getHeaders().getETag()),
+        () -> assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode()),
+        () -> assertNull(notModified.getBody()),
+        () -> assertEquals(eTag, notModified.getHeaders().getETag()),
+        () -> assertEquals(1, bodies.get(), "Expected body not built when not modified"));
+  }
+
+  private ServletWebRequest request(final String ifNoneMatch) {
+    final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/location/states");
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    return new ServletWebRequest(request, new MockHttpServletResponse());
+  }
+}
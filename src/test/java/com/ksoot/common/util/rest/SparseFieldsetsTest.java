@@ -0,0 +1,54 @@
+package com.ksoot.common.util.rest;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ksoot.domain.model.dto.CityVM;
+import com.ksoot.domain.model.dto.StateVM;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SparseFieldsetsTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  @DisplayName("Test requested fields are parsed from comma separated values")
+  void testOf() {
+    assertAll(
+        "Verify parsed fields",
+        () -> assertTrue(SparseFieldsets.of(null).isEmpty()),
+        () -> assertTrue(SparseFieldsets.of(List.of(" , ")).isEmpty()),
+        () ->
+            assertEquals(
+                List.of("code", "name", "state"),
+                List.copyOf(SparseFieldsets.of(List.of("code, name", "state,code")))));
+  }
+
+  @Test
+  @DisplayName("Test only requested fields are serialized, at every nesting level")
+  void testFilters() throws Exception {
+    final StateVM state = new StateVM("s1", "HR", "Haryana", false, null);
+    final CityVM city = new CityVM("c1", "79", "Sirsa", state);
+
+    final String sparse =
+        this.objectMapper
+            .writer(SparseFieldsets.filters(Set.of("code", "state")))
+            .writeValueAsString(city);
+    final String all =
+        this.objectMapper.writer(SparseFieldsets.filters(Set.of())).writeValueAsString(city);
+
+    assertAll(
+        "Verify serialized fields",
+        () -> assertEquals("{\"code\":\"79\",\"state\":{\"code\":\"HR\"}}", sparse),
+        () ->
+            assertEquals(
+                "{\"id\":\"c1\",\"code\":\"79\",\"name\":\"Sirsa\",\"state\":{\"id\":\"s1\","
+                    + "\"code\":\"HR\",\"name\":\"Haryana\",\"isUT\":false}}",
+                all));
+  }
+}
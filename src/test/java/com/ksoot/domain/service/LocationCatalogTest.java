@@ -0,0 +1,139 @@
+package com.ksoot.domain.service;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_STATE;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.domain.model.City;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.CityCreationRQ;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.ksoot.domain.model.dto.StateUpdationRQ;
+import io.micrometer.core.instrument.Metrics;
+import java.time.Duration;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Import(LocationServiceImpl.class)
+class LocationCatalogTest extends AbstractMongoDBTest {
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private LocationCatalog locationCatalog;
+
+  @Autowired private MongoDatabaseFactory mongoDatabaseFactory;
+
+  @Autowired private MongoTemplate mongoTemplate;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  @DisplayName("Test catalog serves states and cities from memory until a change commits")
+  void testCatalog() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("CT").name("Catalog State").isUT(false).build());
+    this.locationService.createCity(
+        state.getId(), CityCreationRQ.builder().code("CT2").name("Zeta").build());
+    this.locationService.createCity(
+        state.getId(), CityCreationRQ.builder().code("CT1").name("alpha").build());
+
+    final List<State> states = this.locationService.getAllStates();
+    final double hitsBefore = this.hits();
+    final State cached = this.locationService.getStateByCode("CT");
+    final City city = this.locationService.getCityByCode("CT1");
+    final double hits = this.hits() - hitsBefore;
+    final List<City> stateCities = cached.getCities();
+
+    this.locationService.updateState(
+        state.getId(), StateUpdationRQ.builder().name("Catalog State Updated").build());
+
+    assertAll(
+        "Verify location catalog",
+        () -> assertTrue(states.contains(cached)),
+        () -> assertEquals(2, hits, "Expected lookups served from snapshot"),
+        () -> assertSame(cached, city.getState(), "Expected city referencing cached state"),
+        () ->
+            assertEquals(
+                List.of("alpha", "Zeta"), stateCities.stream().map(City::getName).toList()),
+        () ->
+            assertEquals(
+                "Catalog State Updated",
+                this.locationCatalog.getStateByCode("CT").get().getName(),
+                "Expected snapshot dropped on commit"));
+  }
+
+  @Test
+  @DisplayName("Test catalog versions differ for snapshots of different content")
+  void testGetVersion_Content() {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("CV").name("Version State").isUT(false).build());
+    final String version = this.locationCatalog.getVersion();
+    // Not raising lifecycle events, so the catalog version is not bumped
+    this.mongoTemplate.updateFirst(
+        new Query(Criteria.where("_id").is(new ObjectId(state.getId()))),
+        new Update().set("name", "Version State Updated").inc("version", 1L),
+        COLLECTION_STATE);
+    final LocationCatalog otherNode =
+        new LocationCatalog(
+            this.mongoDatabaseFactory, this.mongoTemplate, Duration.ofSeconds(5), null);
+
+    assertAll(
+        "Verify catalog versions",
+        () -> assertEquals(version, this.locationCatalog.getVersion()),
+        () -> assertNotEquals(version, otherNode.getVersion(), "Expected content hash changed"));
+  }
+
+  @Test
+  @DisplayName("Test change of a nested REQUIRES_NEW transaction invalidates catalog on its commit")
+  void testInvalidate_RequiresNew() {
+    final State outerState =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("IO").name("Invalidation Outer").isUT(false).build());
+    final State innerState =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("II").name("Invalidation Inner").isUT(false).build());
+    final TransactionTemplate outer = new TransactionTemplate(this.transactionManager);
+    final TransactionTemplate inner = new TransactionTemplate(this.transactionManager);
+    inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.locationCatalog.getStateByCode("II");
+
+    final String innerName =
+        outer.execute(
+            status -> {
+              this.locationService.updateState(
+                  outerState.getId(),
+                  StateUpdationRQ.builder().name("Invalidation Outer Updated").build());
+              inner.executeWithoutResult(
+                  nested ->
+                      this.locationService.updateState(
+                          innerState.getId(),
+                          StateUpdationRQ.builder().name("Invalidation Inner Updated").build()));
+              return this.locationCatalog.getStateByCode("II").get().getName();
+            });
+
+    assertEquals(
+        "Invalidation Inner Updated", innerName, "Expected snapshot dropped on inner commit");
+  }
+
+  private double hits() {
+    return Metrics.globalRegistry.counter("location.catalog.lookups", "result", "hit").count();
+  }
+}
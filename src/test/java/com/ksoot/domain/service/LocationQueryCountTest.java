@@ -0,0 +1,128 @@
+package com.ksoot.domain.service;
+
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_CITY;
+import static com.ksoot.common.mongo.MongoSchema.COLLECTION_STATE;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.domain.mapper.SampleMappers;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.CityCreationRQ;
+import com.ksoot.domain.model.dto.CityVM;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Number of MongoDB queries issued to list cities expanded with their states, which must not grow
+ * with the number of cities.
+ */
+@Import({LocationServiceImpl.class, LocationQueryCountTest.QueryCounterConfiguration.class})
+class LocationQueryCountTest extends AbstractMongoDBTest {
+
+  private static final int CITIES = 25;
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private QueryCounter queryCounter;
+
+  @Test
+  @DisplayName("Test listing cities expanded with state runs one aggregation on states")
+  void testGetAllCities_ExpandState() {
+    for (int s = 0; s < 5; s++) {
+      final State state =
+          this.locationService.createState(
+              StateCreationRQ.builder()
+                  .code("N" + (char) ('A' + s))
+                  .name("Query Count " + (char) ('A' + s))
+                  .isUT(false)
+                  .build());
+      for (int c = 0; c < CITIES / 5; c++) {
+        this.locationService.createCity(
+            state.getId(),
+            CityCreationRQ.builder()
+                .code("N" + (char) ('A' + s) + c)
+                .name("City " + (char) ('A' + s) + c)
+                .build());
+      }
+    }
+
+    this.queryCounter.reset();
+    final List<CityVM> cold = this.listCitiesWithState();
+    final Map<String, Long> coldQueries = this.queryCounter.snapshot();
+    this.queryCounter.reset();
+    final List<CityVM> warm = this.listCitiesWithState();
+    final Map<String, Long> warmQueries = this.queryCounter.snapshot();
+
+    assertAll(
+        "Verify query count",
+        () -> assertEquals(CITIES, cold.size()),
+        () -> cold.forEach(city -> assertNotNull(city.state(), "Expected state expanded")),
+        () -> assertEquals(1L, coldQueries.getOrDefault(COLLECTION_STATE, 0L)),
+        () -> assertEquals(0L, coldQueries.getOrDefault(COLLECTION_CITY, 0L)),
+        () -> assertEquals(CITIES, warm.size()),
+        () -> assertEquals(0L, warmQueries.getOrDefault(COLLECTION_STATE, 0L)),
+        () -> assertEquals(0L, warmQueries.getOrDefault(COLLECTION_CITY, 0L)));
+  }
+
+  private List<CityVM> listCitiesWithState() {
+    return this.locationService.getAllCities().stream()
+        .filter(city -> city.getCode().startsWith("N"))
+        .map(city -> SampleMappers.INSTANCE.toCityViewModel(city, List.of("state")))
+        .toList();
+  }
+
+  // Counts find and aggregate commands per collection
+  static class QueryCounter implements CommandListener {
+
+    private final Map<String, LongAdder> queries = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandStarted(final CommandStartedEvent event) {
+      final String commandName = event.getCommandName();
+      if ("find".equals(commandName) || "aggregate".equals(commandName)) {
+        this.queries
+            .computeIfAbsent(
+                event.getCommand().getString(commandName).getValue(), key -> new LongAdder())
+            .increment();
+      }
+    }
+
+    void reset() {
+      this.queries.clear();
+    }
+
+    Map<String, Long> snapshot() {
+      final Map<String, Long> counts = new ConcurrentHashMap<>();
+      this.queries.forEach((collection, count) -> counts.put(collection, count.sum()));
+      return counts;
+    }
+  }
+
+  @TestConfiguration
+  static class QueryCounterConfiguration {
+
+    @Bean
+    QueryCounter queryCounter() {
+      return new QueryCounter();
+    }
+
+    @Bean
+    MongoClientSettingsBuilderCustomizer queryCounterCustomizer(final QueryCounter queryCounter) {
+      return settings -> settings.addCommandListener(queryCounter);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.ksoot.domain.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ksoot.AbstractMongoDBTest;
+import com.ksoot.common.mongo.AuditMetaData;
+import com.ksoot.domain.model.State;
+import com.ksoot.domain.model.dto.CityCreationRQ;
+import com.ksoot.domain.model.dto.StateCreationRQ;
+import com.ksoot.domain.model.dto.StateUpdationRQ;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@Import(LocationServiceImpl.class)
+class LocationServiceConcurrencyTest extends AbstractMongoDBTest {
+
+  private static final int STATES = 26;
+
+  private static final int UPDATES_PER_STATE = 40;
+
+  private static final int CITIES_PER_STATE = 50;
+
+  @Autowired private LocationService locationService;
+
+  @Autowired private MongoTemplate mongoTemplate;
+
+  @Autowired private AuditMetaData auditMetaData;
+
+  @Test
+  @DisplayName("Test concurrent State updates get unique and gapless audit revisions")
+  void testConcurrentUpdateState_UniqueRevisions() throws Exception {
+    final List<State> states =
+        IntStream.range(0, STATES)
+            .mapToObj(
+                i -> {
+                  final String code = "Q" + (char) ('A' + i);
+                  return this.locationService.createState(
+                      StateCreationRQ.builder()
+                          .code(code)
+                          .name("State " + code)
+                          .isUT(false)
+                          .build());
+                })
+            .toList();
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (final State state : states) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 1; i <= UPDATES_PER_STATE; i++) {
+                    this.locationService.updateState(
+                        state.getId(), StateUpdationRQ.builder().isUT(i % 2 == 1).build());
+                  }
+                }));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    }
+
+    final String auditCollectionName = this.auditMetaData.getAuditCollection("states").get();
+    final List<Long> revisions =
+        this.mongoTemplate.findAll(Document.class, auditCollectionName).stream()
+            .map(document -> document.get("revision", Number.class).longValue())
+            .sorted()
+            .toList();
+    final int expectedRevisions = STATES * (UPDATES_PER_STATE + 1);
+
+    assertAll(
+        "Verify audit revisions",
+        () -> assertEquals(expectedRevisions, revisions.size(), "Expected one revision per write"),
+        () ->
+            assertEquals(
+                expectedRevisions,
+                revisions.stream().distinct().count(),
+                "Expected no duplicate revisions"),
+        () ->
+            assertEquals(
+                (long) expectedRevisions,
+                revisions.get(revisions.size() - 1),
+                "Expected revisions without gaps"));
+  }
+
+  @Test
+  @DisplayName("Test concurrent City creations in one State neither conflict nor write the State")
+  void testConcurrentCreateCity_StateUntouched() throws Exception {
+    final State state =
+        this.locationService.createState(
+            StateCreationRQ.builder().code("HC").name("Hot State").isUT(false).build());
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < CITIES_PER_STATE; i++) {
+        final String code = String.format("9%02d", i);
+        futures.add(
+            executor.submit(
+                () ->
+                    this.locationService.createCity(
+                        state.getId(),
+                        CityCreationRQ.builder().code(code).name("Hot City " + code).build())));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    }
+
+    final State reloaded = this.locationService.getStateById(state.getId());
+
+    assertAll(
+        "Verify State untouched",
+        () -> assertEquals(state.getVersion(), reloaded.getVersion(), "Expected State not saved"),
+        () -> assertEquals(CITIES_PER_STATE, this.locationService.getCityCount(state.getId())));
+  }
+}
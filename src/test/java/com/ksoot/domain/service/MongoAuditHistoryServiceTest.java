@@ -0,0 +1,101 @@
+package com.ksoot.domain.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ksoot.adapter.repository.MongoAuditHistoryRepository;
+import com.ksoot.common.mongo.AuditEvent;
+import com.ksoot.common.mongo.MongoDBModule;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MongoAuditHistoryServiceTest {
+
+  private static final ObjectId STATE_ID = new ObjectId("6558c30160463a1fee00c7dc");
+
+  private MongoAuditHistoryService mongoAuditHistoryService;
+
+  @BeforeEach
+  void setUp() {
+    this.mongoAuditHistoryService =
+        new MongoAuditHistoryService(
+            mock(MongoAuditHistoryRepository.class),
+            new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new MongoDBModule()));
+  }
+
+  @Test
+  @DisplayName("Test Audit History export as NDJSON writes one Audit Event per line")
+  void testWriteAuditHistory_Ndjson() throws IOException {
+    final AtomicBoolean closed = new AtomicBoolean();
+    final String export =
+        this.export(
+            Stream.of(auditEvent(1L, "Haryana"), auditEvent(2L, "Karnataka"))
+                .onClose(() -> closed.set(true)),
+            MongoAuditHistoryService.ExportFormat.NDJSON);
+
+    final String[] lines = export.split("\n");
+    assertAll(
+        "Verify NDJSON export",
+        () -> assertEquals(2, lines.length),
+        () -> assertTrue(lines[0].contains("\"revision\":1")),
+        () -> assertTrue(lines[1].contains("\"_id\":\"" + STATE_ID + "\"")),
+        () -> assertTrue(closed.get(), "Expected stream to be closed"));
+  }
+
+  @Test
+  @DisplayName("Test Audit History export as CSV quotes fields with separators and quotes")
+  void testWriteAuditHistory_Csv() throws IOException {
+    final String export =
+        this.export(
+            Stream.of(auditEvent(1L, "Jammu, \"Kashmir\"")),
+            MongoAuditHistoryService.ExportFormat.CSV);
+
+    final String[] lines = export.split("\n");
+    assertAll(
+        "Verify CSV export",
+        () ->
+            assertEquals(
+                "datetime,revision,type,actor,collection_name,document_id,source", lines[0]),
+        () ->
+            assertTrue(
+                lines[1].endsWith(
+                    ",1,UPDATED,SYSTEM,states,"
+                        + STATE_ID
+                        + ",\"{\"\"_id\"\":\"\""
+                        + STATE_ID
+                        + "\"\",\"\"name\"\":\"\"Jammu, \\\"\"Kashmir\\\"\"\"\"}\""),
+                lines[1]));
+  }
+
+  private String export(
+      final Stream<AuditEvent> auditEvents, final MongoAuditHistoryService.ExportFormat format)
+      throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    this.mongoAuditHistoryService.writeAuditHistory(auditEvents, format, outputStream);
+    return outputStream.toString(StandardCharsets.UTF_8);
+  }
+
+  private static AuditEvent auditEvent(final long revision, final String name) {
+    return AuditEvent.of(
+        AuditEvent.Type.UPDATED,
+        1_700_000_000_000L + revision,
+        revision,
+        "states",
+        new Document("_id", STATE_ID).append("name", name),
+        "SYSTEM");
+  }
+}
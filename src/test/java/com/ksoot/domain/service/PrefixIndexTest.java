@@ -0,0 +1,44 @@
+package com.ksoot.domain.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PrefixIndexTest {
+
+  private record Place(String code, String name) {}
+
+  private static final List<Place> PLACES =
+      List.of(
+          new Place("79", "Sirsa"),
+          new Place("86", "New Delhi"),
+          new Place("12", "Delhi Cantonment"),
+          new Place("45", "Sirmaur"),
+          new Place("17", "Bélgaum"));
+
+  private final PrefixIndex<Place> index =
+      PrefixIndex.of(PLACES, place -> PrefixIndex.nameTerms(place.name(), place.code()));
+
+  @Test
+  @DisplayName("Test items are found by prefix of name, later words of name and code")
+  void testFind() {
+    assertAll(
+        "Verify found items",
+        () -> assertEquals(List.of("Sirmaur", "Sirsa"), this.names("SIR", 10)),
+        () -> assertEquals(List.of("Sirmaur"), this.names("sir", 1)),
+        () -> assertEquals(List.of("New Delhi", "Delhi Cantonment"), this.names("delhi", 10)),
+        () -> assertEquals(List.of("New Delhi"), this.names("  new   d", 10)),
+        () -> assertEquals(List.of("Bélgaum"), this.names("belg", 10)),
+        () -> assertEquals(List.of("Bélgaum"), this.names("17", 10)),
+        () -> assertEquals(List.of(), this.names("x", 10)),
+        () -> assertEquals(List.of(), this.names(" ", 10)),
+        () -> assertEquals(List.of(), this.names("sir", 0)));
+  }
+
+  private List<String> names(final String prefix, final int limit) {
+    return this.index.find(prefix, limit).stream().map(Place::name).toList();
+  }
+}